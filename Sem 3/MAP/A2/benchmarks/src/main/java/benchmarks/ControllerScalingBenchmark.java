@@ -0,0 +1,70 @@
+package benchmarks;
+
+import controller.MultiThreadedController;
+import controller.SchedulingMode;
+import model.statement.IStatement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// A whole executeAllSteps run of forking programs on a pool of threads threads. The pool is a
+// ForkJoinPool so that the work stealing scheduler runs on it as well.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerScalingBenchmark {
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    @Param({"LOCKSTEP", "WORK_STEALING"})
+    SchedulingMode schedulingMode;
+
+    @Param({"16"})
+    int workers;
+
+    @Param({"2000"})
+    int iterations;
+
+    ForkJoinPool pool;
+    IStatement program;
+    MultiThreadedController controller;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ForkJoinPool(threads);
+        program = Workloads.forkingCounters(workers, iterations);
+    }
+
+    @Setup(Level.Invocation)
+    public void newRun() throws Exception {
+        controller = new MultiThreadedController(new Workloads.QuietRepo(), pool, false);
+        controller.setSchedulingMode(schedulingMode);
+        controller.setProgram(program);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public void executeAllSteps() throws Exception {
+        controller.executeAllSteps();
+    }
+}
@@ -0,0 +1,76 @@
+package benchmarks;
+
+import controller.ExecutionEngine;
+import controller.GarbageCollector;
+import model.ProgramState;
+import model.adts.SlotTable;
+import model.programStateComponents.IHeap;
+import model.statement.NopStatement;
+import model.type.IntType;
+import model.type.ReferenceType;
+import model.values.IntValue;
+import model.values.ReferenceValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// One collection over a heap of heapSize cells. The live cells form ROOTS reference chains
+// held by the symbol table, every other cell is garbage. The heap is rebuilt before each
+// collection since a collection frees the garbage.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GarbageCollectorBenchmark {
+    static final int ROOTS = 64;
+
+    @Param({"1000", "10000", "100000"})
+    int heapSize;
+
+    @Param({"10", "90"})
+    int livePercent;
+
+    @Param({"ConcurentHeapTable", "PrimitiveHeapTable"})
+    String implementation;
+
+    List<ProgramState> states;
+
+    @Setup(Level.Invocation)
+    public void setUp() throws Exception {
+        IHeap heap = HeapBenchmark.newHeap(implementation);
+        ProgramState state = Workloads.newProgram(new NopStatement(), SlotTable.EMPTY, ExecutionEngine.AST, heap);
+        int live = heapSize * livePercent / 100;
+        int[] chainHeads = new int[ROOTS];
+        for (int i = 0; i < heapSize; i++) {
+            if (i < live) {
+                int root = i % ROOTS;
+                // each chain cell points at the previous cell of its chain, 0 ends it
+                chainHeads[root] = heap.allocate(new ReferenceValue(chainHeads[root], new ReferenceType(new IntType())));
+            } else {
+                heap.allocate(new IntValue(i));
+            }
+        }
+        for (int root = 0; root < ROOTS; root++)
+            state.getSymbolTable().put("r" + root, new ReferenceValue(chainHeads[root], new ReferenceType(new IntType())));
+        states = List.of(state);
+    }
+
+    @Benchmark
+    public void collect() {
+        GarbageCollector.runGarbageCollector(states);
+    }
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import model.programStateComponents.ConcurentHeapTable;
+import model.programStateComponents.HeapTable;
+import model.programStateComponents.IHeap;
+import model.programStateComponents.PrimitiveHeapTable;
+import model.values.IValue;
+import model.values.IntValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Allocation, reads and writes on each heap implementation from a single program.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeapBenchmark {
+    static final int CELLS = 1 << 16;
+
+    @Param({"HeapTable", "ConcurentHeapTable", "PrimitiveHeapTable"})
+    String implementation;
+
+    IHeap heap;
+    // a fresh heap for allocations, so that they do not grow the one reads and writes use
+    IHeap allocationHeap;
+    final IValue value = new IntValue(42);
+
+    static IHeap newHeap(String implementation) {
+        switch (implementation) {
+            case "HeapTable":
+                return new HeapTable();
+            case "ConcurentHeapTable":
+                return new ConcurentHeapTable();
+            case "PrimitiveHeapTable":
+                return new PrimitiveHeapTable();
+            default:
+                throw new IllegalArgumentException("Unknown heap " + implementation);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        heap = newHeap(implementation);
+        for (int i = 0; i < CELLS; i++)
+            heap.allocate(new IntValue(i));
+    }
+
+    @Setup(Level.Iteration)
+    public void newAllocationHeap() {
+        allocationHeap = newHeap(implementation);
+    }
+
+    // addresses start at 1
+    static int randomAddress() {
+        return ThreadLocalRandom.current().nextInt(CELLS) + 1;
+    }
+
+    @Benchmark
+    public int allocate() throws Exception {
+        return allocationHeap.allocate(value);
+    }
+
+    @Benchmark
+    public IValue read() throws Exception {
+        return heap.read(randomAddress());
+    }
+
+    @Benchmark
+    public void write() throws Exception {
+        heap.write(randomAddress(), value);
+    }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import model.programStateComponents.IHeap;
+import model.values.IValue;
+import model.values.IntValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// The same operations with four threads sharing one heap, the way forked programs do.
+// HeapTable is left out, it is not safe to share.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class SharedHeapBenchmark {
+    @Param({"ConcurentHeapTable", "PrimitiveHeapTable"})
+    String implementation;
+
+    IHeap heap;
+    IHeap allocationHeap;
+    final IValue value = new IntValue(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        heap = HeapBenchmark.newHeap(implementation);
+        for (int i = 0; i < HeapBenchmark.CELLS; i++)
+            heap.allocate(new IntValue(i));
+    }
+
+    @Setup(Level.Iteration)
+    public void newAllocationHeap() {
+        allocationHeap = HeapBenchmark.newHeap(implementation);
+    }
+
+    @Benchmark
+    public int allocate() throws Exception {
+        return allocationHeap.allocate(value);
+    }
+
+    @Benchmark
+    public IValue read() throws Exception {
+        return heap.read(HeapBenchmark.randomAddress());
+    }
+
+    @Benchmark
+    public void write() throws Exception {
+        heap.write(HeapBenchmark.randomAddress(), value);
+    }
+}
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import controller.ExecutionEngine;
+import model.Hardcoded;
+import model.adts.SlotTable;
+import model.adts.TypeEnvironment;
+import model.programStateComponents.ConcurentHeapTable;
+import model.statement.IStatement;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Runs every type correct hardcoded program to completion on one thread. steps is reported
+// next to the run rate, so programs of different length can be compared per step.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StepThroughputBenchmark {
+    // program 0 does not typecheck
+    @Param({"1", "2", "3"})
+    int program;
+
+    @Param({"AST", "BYTECODE"})
+    ExecutionEngine engine;
+
+    IStatement statement;
+    SlotTable slots;
+    boolean createdInput;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Steps {
+        public long steps;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        statement = Hardcoded.hardcodedPrograms.get(program);
+        TypeEnvironment typeEnv = new TypeEnvironment();
+        statement.typecheck(typeEnv);
+        slots = typeEnv.getSlots();
+        createdInput = Workloads.ensureHardcodedInput();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (createdInput)
+            Files.deleteIfExists(Workloads.HARDCODED_INPUT);
+    }
+
+    @Benchmark
+    public long run(Steps steps) throws Exception {
+        long executed = Workloads.runToCompletion(Workloads.newProgram(statement, slots, engine, new ConcurentHeapTable()));
+        steps.steps += executed;
+        return executed;
+    }
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import model.adts.SlotTable;
+import model.programStateComponents.SymbolTable;
+import model.values.IValue;
+import model.values.IntValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// The symbol table copy a fork makes, alone and followed by the first assignment in the fork,
+// which is where a copy on write table pays. Type checked programs keep their variables in
+// slots, named variables are what a restored or hand built table holds.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymbolTableCopyBenchmark {
+    @Param({"4", "64", "1024"})
+    int variables;
+
+    @Param({"slots", "named"})
+    String storage;
+
+    SymbolTable table;
+    final IValue value = new IntValue(7);
+
+    @Setup
+    public void setUp() throws Exception {
+        String[] names = new String[variables];
+        for (int i = 0; i < variables; i++)
+            names[i] = "v" + i;
+        table = storage.equals("slots") ? new SymbolTable(SlotTable.of(names)) : new SymbolTable();
+        for (int i = 0; i < variables; i++)
+            table.put(names[i], new IntValue(i));
+    }
+
+    @Benchmark
+    public SymbolTable copy() {
+        return table.copy();
+    }
+
+    @Benchmark
+    public SymbolTable copyAndAssign() throws Exception {
+        SymbolTable copy = table.copy();
+        if (storage.equals("slots"))
+            copy.writeSlot(0, value);
+        else
+            copy.give("v0", value);
+        return copy;
+    }
+}
@@ -0,0 +1,122 @@
+package benchmarks;
+
+import controller.ExecutionEngine;
+import model.ProgramState;
+import model.adts.SlotTable;
+import model.bytecode.BytecodeCompiler;
+import model.bytecode.VirtualMachine;
+import model.expresion.ArithmeticExpression;
+import model.expresion.ComparisonExpression;
+import model.expresion.IExpression;
+import model.expresion.ValueExpression;
+import model.expresion.VariableExpression;
+import model.programStateComponents.ExecutionStack;
+import model.programStateComponents.FileTable;
+import model.programStateComponents.IHeap;
+import model.programStateComponents.Output;
+import model.programStateComponents.SymbolTable;
+import model.statement.AsignStatement;
+import model.statement.CompoundStatement;
+import model.statement.ForkStatement;
+import model.statement.IStatement;
+import model.statement.SlotResolver;
+import model.statement.VariableDeclarationStatement;
+import model.statement.newStatement;
+import model.statement.whileStatement;
+import model.type.IntType;
+import model.type.ReferenceType;
+import model.values.IntValue;
+import repository.MultiThreadRepo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.List;
+
+// Programs and helpers shared by the benchmarks.
+final class Workloads {
+    // the hardcoded programs read this file from the working directory
+    static final Path HARDCODED_INPUT = Paths.get("test.in");
+
+    private Workloads() {}
+
+    // a repository that keeps the programs but writes no log, so runs measure the interpreter only
+    static class QuietRepo extends MultiThreadRepo {
+        @Override
+        public void logProgramStateExecution(ProgramState currentProgram) {
+        }
+    }
+
+    static IStatement sequence(IStatement... statements) {
+        IStatement result = statements[statements.length - 1];
+        for (int i = statements.length - 2; i >= 0; i--)
+            result = new CompoundStatement(statements[i], result);
+        return result;
+    }
+
+    static IExpression variable(String name) {
+        return new VariableExpression(name);
+    }
+
+    static IExpression constant(int value) {
+        return new ValueExpression(new IntValue(value));
+    }
+
+    // forks workers times, every fork counts down from iterations and allocates on every turn
+    static IStatement forkingCounters(int workers, int iterations) {
+        IStatement worker = sequence(
+                new VariableDeclarationStatement("k", new IntType()),
+                new VariableDeclarationStatement("r", new ReferenceType(new IntType())),
+                new AsignStatement("k", constant(iterations)),
+                new whileStatement(new ComparisonExpression(variable("k"), constant(0), ">"), sequence(
+                        new newStatement("r", variable("k")),
+                        new AsignStatement("k", new ArithmeticExpression(variable("k"), constant(1), 2)))));
+        return sequence(
+                new VariableDeclarationStatement("i", new IntType()),
+                new AsignStatement("i", constant(workers)),
+                new whileStatement(new ComparisonExpression(variable("i"), constant(0), ">"), sequence(
+                        new ForkStatement(worker),
+                        new AsignStatement("i", new ArithmeticExpression(variable("i"), constant(1), 2)))));
+    }
+
+    // the same initial state MultiThreadedController.setProgram builds
+    static ProgramState newProgram(IStatement checked, SlotTable slots, ExecutionEngine engine, IHeap heap) {
+        IStatement statement = SlotResolver.resolve(checked, slots);
+        ProgramState state;
+        if (engine == ExecutionEngine.BYTECODE)
+            state = new ProgramState(new ExecutionStack(), new SymbolTable(), new Output(), new FileTable(), heap, statement,
+                    new VirtualMachine(BytecodeCompiler.compile(statement)));
+        else
+            state = new ProgramState(new ExecutionStack(), new SymbolTable(), new Output(), new FileTable(), heap, statement);
+        state.setSlots(slots);
+        return state;
+    }
+
+    // runs the program and its forks round robin on the calling thread, returns the number of steps
+    static long runToCompletion(ProgramState program) throws Exception {
+        ArrayDeque<ProgramState> ready = new ArrayDeque<>(List.of(program));
+        long steps = 0;
+        while (!ready.isEmpty()) {
+            ProgramState state = ready.poll();
+            ProgramState forked = state.oneStep();
+            steps++;
+            if (forked != null)
+                ready.add(forked);
+            if (state.isNotCompletedYet())
+                ready.add(state);
+            else
+                state.getFileTable().closeAll();
+        }
+        return steps;
+    }
+
+    // true when the file had to be created and should be removed again
+    static boolean ensureHardcodedInput() throws IOException {
+        if (Files.exists(HARDCODED_INPUT))
+            return false;
+        Files.write(HARDCODED_INPUT, List.of("10", "20"));
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+package CView;
+
+import java.util.List;
+
+public class BatchReport {
+    private final List<BatchResult> results;
+    private final long wallNanos;
+
+    public BatchReport(List<BatchResult> results, long wallNanos) {
+        this.results = results;
+        this.wallNanos = wallNanos;
+    }
+
+    public List<BatchResult> getResults() {
+        return results;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public long getFailureCount() {
+        return results.stream().filter(result -> !result.isSuccessful()).count();
+    }
+
+    public double getProgramsPerSecond() {
+        return wallNanos == 0 ? 0 : results.size() / (wallNanos / 1e9);
+    }
+
+    public double getStepsPerSecond() {
+        long steps = results.stream().mapToLong(BatchResult::getSteps).sum();
+        return wallNanos == 0 ? 0 : steps / (wallNanos / 1e9);
+    }
+
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-28s %10s %12s %10s %8s  %s%n", "program", "wall ms", "steps", "peak heap", "outputs", "status"));
+        for (BatchResult result : results)
+            report.append(result).append(System.lineSeparator());
+        report.append(String.format("%d programs (%d failed) in %.1f ms, %.2f programs/s, %.0f steps/s%n",
+                results.size(), getFailureCount(), wallNanos / 1e6, getProgramsPerSecond(), getStepsPerSecond()));
+        return report.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package CView;
+
+// What one program of a batch did. error is null when it ran to completion.
+public class BatchResult {
+    private final String name;
+    private final long wallNanos;
+    private final long steps;
+    private final int peakHeapSize;
+    private final long outputSize;
+    private final String error;
+
+    public BatchResult(String name, long wallNanos, long steps, int peakHeapSize, long outputSize, String error) {
+        this.name = name;
+        this.wallNanos = wallNanos;
+        this.steps = steps;
+        this.peakHeapSize = peakHeapSize;
+        this.outputSize = outputSize;
+        this.error = error;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public int getPeakHeapSize() {
+        return peakHeapSize;
+    }
+
+    public long getOutputSize() {
+        return outputSize;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    public String toString() {
+        return String.format("%-28s %10.1f %12d %10d %8d  %s", name, wallNanos / 1e6, steps, peakHeapSize, outputSize,
+                error == null ? "ok" : "failed: " + error);
+    }
+}
@@ -0,0 +1,260 @@
+package CView;
+
+import controller.ExecutionEngine;
+import controller.MultiThreadedController;
+import controller.SchedulingMode;
+import model.Hardcoded;
+import model.ProgramState;
+import model.generator.WorkloadGenerator;
+import model.generator.WorkloadKind;
+import model.parser.ProgramParser;
+import model.programStateComponents.Output;
+import model.statement.IStatement;
+import repository.MultiThreadRepo;
+import repository.ProgramCatalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Runs many programs without a menu. Every program gets its own repository, controller and heap,
+// at most concurrentPrograms run at once and all of them take their steps on one pool of
+// parallelism threads.
+public class BatchRunner {
+    private final int parallelism;
+    private final int concurrentPrograms;
+    private ExecutionEngine executionEngine = ExecutionEngine.AST;
+    private SchedulingMode schedulingMode = SchedulingMode.WORK_STEALING;
+    // one log file per program in here, null runs without logs
+    private String logDirectory;
+
+    // a program to start, or a checkpoint to resume
+    public static class Job {
+        final String name;
+        final IStatement program;
+        final String checkpointPath;
+
+        private Job(String name, IStatement program, String checkpointPath) {
+            this.name = name;
+            this.program = program;
+            this.checkpointPath = checkpointPath;
+        }
+
+        public static Job program(String name, IStatement program) {
+            return new Job(name, program, null);
+        }
+
+        public static Job checkpoint(String name, String checkpointPath) {
+            return new Job(name, null, checkpointPath);
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public BatchRunner(int parallelism, int concurrentPrograms) {
+        if (parallelism <= 0 || concurrentPrograms <= 0)
+            throw new IllegalArgumentException("Batch runner needs at least one thread");
+        this.parallelism = parallelism;
+        this.concurrentPrograms = concurrentPrograms;
+    }
+
+    public BatchReport run(List<Job> jobs) throws InterruptedException {
+        ForkJoinPool stepPool = new ForkJoinPool(parallelism);
+        ExecutorService drivers = Executors.newFixedThreadPool(concurrentPrograms);
+        long start = System.nanoTime();
+        try {
+            List<Future<BatchResult>> pending = new ArrayList<>();
+            for (Job job : jobs)
+                pending.add(drivers.submit(() -> runJob(job, stepPool)));
+            List<BatchResult> results = new ArrayList<>();
+            for (Future<BatchResult> result : pending) {
+                try {
+                    results.add(result.get());
+                } catch (java.util.concurrent.ExecutionException e) {
+                    throw new IllegalStateException("Batch job crashed: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            return new BatchReport(results, System.nanoTime() - start);
+        } finally {
+            drivers.shutdownNow();
+            stepPool.shutdownNow();
+        }
+    }
+
+    private BatchResult runJob(Job job, ForkJoinPool stepPool) {
+        MultiThreadRepo repo = new MultiThreadRepo();
+        repo.setLogFilePath(logDirectory == null ? null : Paths.get(logDirectory, job.name + ".log").toString());
+        MultiThreadedController controller = new MultiThreadedController(repo, stepPool, false);
+        controller.setExecutionEngine(executionEngine);
+        controller.setSchedulingMode(schedulingMode);
+        Output output = null;
+        String error = null;
+        long start = System.nanoTime();
+        try {
+            if (job.checkpointPath != null)
+                controller.restore(job.checkpointPath);
+            else
+                controller.setProgram(job.program);
+            if (!controller.getProgramList().isEmpty())
+                output = controller.getProgramList().get(0).getOutput();
+            controller.executeAllSteps();
+        } catch (RuntimeException e) {
+            error = e.getMessage() == null ? e.toString() : e.getMessage();
+        } finally {
+            // a failed program can leave forks behind that still hold files
+            for (ProgramState state : controller.getProgramList()) {
+                try {
+                    state.getFileTable().closeAll();
+                } catch (RuntimeException ignored) {
+                }
+            }
+            repo.closeLog();
+        }
+        long wallNanos = System.nanoTime() - start;
+        return new BatchResult(job.name, wallNanos, controller.getStepCount(), controller.getPeakHeapSize(),
+                output == null ? 0 : output.size(), error);
+    }
+
+    public ExecutionEngine getExecutionEngine() {
+        return executionEngine;
+    }
+
+    public void setExecutionEngine(ExecutionEngine executionEngine) {
+        this.executionEngine = executionEngine;
+    }
+
+    public SchedulingMode getSchedulingMode() {
+        return schedulingMode;
+    }
+
+    public void setSchedulingMode(SchedulingMode schedulingMode) {
+        this.schedulingMode = schedulingMode;
+    }
+
+    public String getLogDirectory() {
+        return logDirectory;
+    }
+
+    public void setLogDirectory(String logDirectory) {
+        this.logDirectory = logDirectory;
+    }
+
+    // sources are "hardcoded", "generate:KIND:SIZE[:SEED[:COUNT]]", a program file, a checkpoint
+    // file or a directory of them
+    public static List<Job> jobsFrom(String source) throws IOException {
+        List<Job> jobs = new ArrayList<>();
+        if (source.equals("hardcoded")) {
+            for (int i = 0; i < Hardcoded.hardcodedPrograms.size(); i++)
+                jobs.add(Job.program("hardcoded-" + i, Hardcoded.hardcodedPrograms.get(i)));
+        } else if (source.startsWith("generate:")) {
+            String[] parts = source.split(":");
+            if (parts.length < 3 || parts.length > 5)
+                throw new IllegalArgumentException("Expected generate:KIND:SIZE[:SEED[:COUNT]], got " + source);
+            WorkloadKind kind = WorkloadKind.valueOf(parts[1].toUpperCase());
+            int size = Integer.parseInt(parts[2]);
+            long seed = parts.length > 3 ? Long.parseLong(parts[3]) : 0;
+            int count = parts.length > 4 ? Integer.parseInt(parts[4]) : 1;
+            for (int i = 0; i < count; i++) {
+                String name = kind.name().toLowerCase() + "-" + (seed + i);
+                WorkloadGenerator generator = new WorkloadGenerator(seed + i);
+                if (kind == WorkloadKind.FILE_PIPELINE) {
+                    // every pipeline gets its own files, concurrent ones would truncate each other's output
+                    generator.writeInputFile(name + ".in", size);
+                    jobs.add(Job.program(name, generator.filePipeline(name + ".in", name + ".out", 8, Math.max(1, size / 8))));
+                } else {
+                    jobs.add(Job.program(name, generator.generate(kind, size)));
+                }
+            }
+        } else {
+            Path path = Paths.get(source);
+            if (Files.isDirectory(path)) {
+                List<Path> listed;
+                try (Stream<Path> files = Files.list(path)) {
+                    listed = files.filter(Files::isRegularFile)
+                            .filter(file -> !file.toString().endsWith(".tmp"))
+                            .sorted()
+                            .collect(Collectors.toList());
+                }
+                for (Path file : listed)
+                    jobs.add(fileJob(file));
+            } else if (Files.isRegularFile(path)) {
+                jobs.add(fileJob(path));
+            } else {
+                throw new IllegalArgumentException("No such program source: " + source);
+            }
+        }
+        return jobs;
+    }
+
+    private static Job fileJob(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        if (!ProgramCatalog.isProgramFile(file))
+            return Job.checkpoint(name, file.toString());
+        return Job.program(name, ProgramParser.parse(file));
+    }
+
+    // BatchRunner [--threads N] [--concurrent N] [--engine AST|BYTECODE] [--scheduling MODE] [--log DIR] SOURCE...
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int concurrent = -1;
+        ExecutionEngine engine = ExecutionEngine.AST;
+        SchedulingMode scheduling = SchedulingMode.WORK_STEALING;
+        String logDirectory = null;
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--concurrent":
+                    concurrent = Integer.parseInt(args[++i]);
+                    break;
+                case "--engine":
+                    engine = ExecutionEngine.valueOf(args[++i].toUpperCase());
+                    break;
+                case "--scheduling":
+                    scheduling = SchedulingMode.valueOf(args[++i].toUpperCase());
+                    break;
+                case "--log":
+                    logDirectory = args[++i];
+                    break;
+                default:
+                    sources.add(args[i]);
+            }
+        }
+        if (sources.isEmpty()) {
+            System.out.println("Usage: BatchRunner [--threads N] [--concurrent N] [--engine " + Arrays.toString(ExecutionEngine.values())
+                    + "] [--scheduling " + Arrays.toString(SchedulingMode.values()) + "] [--log DIR] SOURCE...");
+            System.out.println("SOURCE is hardcoded, generate:KIND:SIZE[:SEED[:COUNT]] with KIND one of "
+                    + Arrays.toString(WorkloadKind.values()) + ", a program file (" + ProgramCatalog.EXTENSION
+                    + "), a checkpoint file or a directory of them");
+            return;
+        }
+        List<Job> jobs = new ArrayList<>();
+        for (String source : sources)
+            jobs.addAll(jobsFrom(source));
+        if (logDirectory != null)
+            new File(logDirectory).mkdirs();
+
+        BatchRunner runner = new BatchRunner(threads, concurrent > 0 ? concurrent : threads);
+        runner.setExecutionEngine(engine);
+        runner.setSchedulingMode(scheduling);
+        runner.setLogDirectory(logDirectory);
+        BatchReport report = runner.run(jobs);
+        System.out.print(report);
+        System.exit(report.getFailureCount() == 0 ? 0 : 1);
+    }
+}
@@ -12,7 +12,10 @@ import model.values.*;
 import model.adts.*;
 import exception.*;
 import model.programStateComponents.*;
+import model.parser.ProgramParser;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -30,8 +33,10 @@ public class Interpreter {
         );
         System.out.println("Checking ex1 type");
         try {
-            ex1.typecheck(new MyDictionary<String, IType>());
-            ProgramState prg1 = new ProgramState(new ExecutionStack(), new SymbolTable(), new Output(), new FileTable(), new HeapTable(), ex1);
+            TypeEnvironment typeEnv1 = new TypeEnvironment();
+            ex1.typecheck(typeEnv1);
+            ProgramState prg1 = new ProgramState(new ExecutionStack(), new SymbolTable(), new Output(), new FileTable(), new ConcurentHeapTable(), SlotResolver.resolve(ex1, typeEnv1.getSlots()));
+            prg1.setSlots(typeEnv1.getSlots());
             IRepo repo1 = new MultiThreadRepo(prg1, "log1.txt");
             IController ctr1 = new MultiThreadedController(repo1);
             menu.addCommand(new RunExampleCommand("1", ex1.toString(), ctr1));
@@ -66,8 +71,10 @@ public class Interpreter {
         );
         System.out.println("Checking ex2 type");
         try {
-            ex2.typecheck(new MyDictionary<String, IType>());
-            ProgramState prg2 = new ProgramState(new ExecutionStack(), new SymbolTable(), new Output(), new FileTable(), new HeapTable(), ex2);
+            TypeEnvironment typeEnv2 = new TypeEnvironment();
+            ex2.typecheck(typeEnv2);
+            ProgramState prg2 = new ProgramState(new ExecutionStack(), new SymbolTable(), new Output(), new FileTable(), new ConcurentHeapTable(), SlotResolver.resolve(ex2, typeEnv2.getSlots()));
+            prg2.setSlots(typeEnv2.getSlots());
             IRepo repo2 = new MultiThreadRepo(prg2, "log2.txt");
             IController ctr2 = new MultiThreadedController(repo2);
             menu.addCommand(new RunExampleCommand("2", ex2.toString(), ctr2));
@@ -106,8 +113,10 @@ public class Interpreter {
                 ));
         System.out.println("Checking ex3 type");
         try {
-            ex3.typecheck(new MyDictionary<String, IType>());
-            ProgramState prg3 = new ProgramState(new ExecutionStack(), new SymbolTable(), new Output(), new FileTable(), new HeapTable(), ex3);
+            TypeEnvironment typeEnv3 = new TypeEnvironment();
+            ex3.typecheck(typeEnv3);
+            ProgramState prg3 = new ProgramState(new ExecutionStack(), new SymbolTable(), new Output(), new FileTable(), new ConcurentHeapTable(), SlotResolver.resolve(ex3, typeEnv3.getSlots()));
+            prg3.setSlots(typeEnv3.getSlots());
             IRepo repo3 = new MultiThreadRepo(prg3, "log3.txt");
             IController ctr3 = new MultiThreadedController(repo3);
             menu.addCommand(new RunExampleCommand("3", ex3.toString(), ctr3));
@@ -149,8 +158,10 @@ public class Interpreter {
         )));
         System.out.println("Checking ex4 type");
         try {
-            ex4.typecheck(new MyDictionary<String, IType>());
-            ProgramState prg4 = new ProgramState(new ExecutionStack(), new SymbolTable(), new Output(), new FileTable(), new ConcurentHeapTable(), ex4);
+            TypeEnvironment typeEnv4 = new TypeEnvironment();
+            ex4.typecheck(typeEnv4);
+            ProgramState prg4 = new ProgramState(new ExecutionStack(), new SymbolTable(), new Output(), new FileTable(), new ConcurentHeapTable(), SlotResolver.resolve(ex4, typeEnv4.getSlots()));
+            prg4.setSlots(typeEnv4.getSlots());
             IRepo repo4 = new MultiThreadRepo(prg4, "log4.txt");
             ExecutorService executor = Executors.newFixedThreadPool(2);
             IController ctr4 = new MultiThreadedController(repo4, executor, true);
@@ -160,6 +171,21 @@ public class Interpreter {
         catch (TypeNotMatchException e) {
             System.out.println("ex4 problem:"+e.getMessage());
         }
+        // program files given on the command line come after the examples
+        for (int i = 0; i < args.length; i++) {
+            String key = String.valueOf(5 + i);
+            try {
+                IStatement program = ProgramParser.parse(Paths.get(args[i]));
+                TypeEnvironment typeEnv = new TypeEnvironment();
+                program.typecheck(typeEnv);
+                ProgramState state = new ProgramState(new ExecutionStack(), new SymbolTable(), new Output(), new FileTable(), new ConcurentHeapTable(), SlotResolver.resolve(program, typeEnv.getSlots()));
+                state.setSlots(typeEnv.getSlots());
+                IRepo repo = new MultiThreadRepo(state, "log" + key + ".txt");
+                menu.addCommand(new RunExampleCommand(key, program.toString(), new MultiThreadedController(repo)));
+            } catch (IOException | ProgramSyntaxException | TypeNotMatchException e) {
+                System.out.println(args[i] + " problem:" + e.getMessage());
+            }
+        }
         menu.addCommand(new ExitCommand("exit", "Exits the interpreter"));
         System.out.println("\n");
         menu.show();
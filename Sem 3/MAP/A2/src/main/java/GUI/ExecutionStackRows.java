@@ -0,0 +1,63 @@
+package GUI;
+
+import javafx.collections.ObservableListBase;
+import model.programStateComponents.ExecutionStack;
+import model.statement.IStatement;
+
+import java.util.Collections;
+import java.util.List;
+
+// The rows of the execution stack view, top of the stack first. Nothing is copied, a row is read
+// from the stack when the view shows it. The size only changes at a frame, so while a run is going
+// a row can already show what the next frame will report, and rows past the live stack read empty.
+public class ExecutionStackRows extends ObservableListBase<IStatement> {
+    private List<IStatement> stack = Collections.emptyList();
+    private int size;
+
+    // null empties the view
+    public void load(ExecutionStack executionStack) {
+        int oldSize = size;
+        stack = executionStack == null ? Collections.emptyList() : executionStack.toList();
+        size = stack.size();
+        beginChange();
+        if (oldSize > 0)
+            nextRemove(0, Collections.nCopies(oldSize, null));
+        if (size > 0)
+            nextAdd(0, size);
+        endChange();
+    }
+
+    // popped statements leave the top, then pushed ones are added on it
+    public void apply(int popped, int pushed) {
+        popped = Math.min(popped, size);
+        if (popped == 0 && pushed == 0)
+            return;
+        beginChange();
+        if (popped > 0) {
+            size -= popped;
+            nextRemove(0, Collections.nCopies(popped, null));
+        }
+        if (pushed > 0) {
+            size += pushed;
+            nextAdd(0, pushed);
+        }
+        endChange();
+    }
+
+    @Override
+    public IStatement get(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException(row);
+        // the stack is a Vector, a statement popped meanwhile makes the read fail instead of tearing
+        try {
+            return stack.get(stack.size() - 1 - row);
+        } catch (IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
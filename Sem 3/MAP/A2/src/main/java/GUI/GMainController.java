@@ -1,6 +1,10 @@
 package GUI;
 
 import controller.IController;
+import controller.RunControl;
+import controller.RunSnapshot;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.fxml.FXML;
@@ -9,20 +13,29 @@ import javafx.scene.control.*;
 import javafx.scene.input.KeyCode;
 import javafx.util.Pair;
 import model.ProgramState;
-import model.programStateComponents.IFileTable;
-import model.programStateComponents.IHeap;
-import model.programStateComponents.IOutput;
 import model.statement.IStatement;
 import model.values.IValue;
 
-import java.util.List;
-import java.util.NoSuchElementException;
-
 public class GMainController {
+    // while a run is going the views and statistics are brought up to date at most this often
+    static final long FRAME_INTERVAL_NANOS = 1_000_000_000L / 30;
+
     IController controller;
-    IHeap heap;
-    IOutput output;
-    IFileTable fileTable;
+    ProgramStateView view;
+    volatile boolean running;
+    RunSnapshot previousSnapshot;
+    double stepsPerSecond;
+    long lastFrameNanos;
+    AnimationTimer frameTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            if (now - lastFrameNanos < FRAME_INTERVAL_NANOS)
+                return;
+            lastFrameNanos = now;
+            view.applyFrame();
+            showStatistics();
+        }
+    };
 
     public GMainController(IController controller) {
         this.controller = controller;
@@ -66,68 +79,140 @@ public class GMainController {
     @FXML
     private Button oneStepButton;
 
+    @FXML
+    private Button pauseButton;
+
+    @FXML
+    private Button cancelButton;
+
+    @FXML
+    private Label statisticsLabel;
+
+    @FXML
+    private TextField heapAddressField;
+
+    HeapTableRows heapRows = new HeapTableRows();
+    ExecutionStackRows stackRows = new ExecutionStackRows();
+
+    // rebuilds every view, stepping only applies what changed
     public void refresh() {
-        Integer selectedProgramId = this.programStatesListView.getSelectionModel().getSelectedItem();
-        this.programStatesListView.getItems().clear();
-        this.heapTableTableView.getItems().clear();
-        this.outListView.getItems().clear();
-        this.fileTableListView.getItems().clear();
-        this.symbolTableTableView.getItems().clear();
-        this.executionStackListView.getItems().clear();
-       if(this.controller==null)
-           System.err.println("Controller is null");
-        this.programStatesLabel.setText("Program states: " + this.controller.getProgramList().size());
-        this.controller.getProgramList().forEach(progState -> this.programStatesListView.getItems().add(progState.getId()));
-
-        if (!this.controller.getProgramList().isEmpty()) {
-            this.heap = this.controller.getProgramList().get(0).getHeapTable();
-            this.output = this.controller.getProgramList().get(0).getOutput();
-            this.fileTable = this.controller.getProgramList().get(0).getFileTable();
+        this.view.reload();
+    }
 
-        }
+    // after every frame of the view
+    private void frameApplied() {
+        this.programStatesLabel.setText("Program states: " + this.programStatesListView.getItems().size());
+        ProgramState shown = this.view.getShown();
+        if (shown != null && !Integer.valueOf(shown.getId()).equals(this.programStatesListView.getSelectionModel().getSelectedItem()))
+            this.programStatesListView.getSelectionModel().select(Integer.valueOf(shown.getId()));
+    }
 
-        if (this.heap != null) {
-            this.heap.toMap().forEach((key, value) ->
-                    this.heapTableTableView.getItems().add(new Pair<>(key, value)));
-        }
+    private void showStatistics() {
+        RunSnapshot snapshot = this.controller.getRunSnapshot();
+        if (this.previousSnapshot != null && snapshot.getNanoTime() > this.previousSnapshot.getNanoTime())
+            this.stepsPerSecond = snapshot.stepsPerSecondSince(this.previousSnapshot);
+        this.previousSnapshot = snapshot;
+        boolean stepping = this.running && !this.controller.getRunControl().isPaused();
+        this.statisticsLabel.setText(String.format("Steps: %d (%.0f/s)   Threads: %d   Heap: %d",
+                snapshot.getSteps(), stepping ? this.stepsPerSecond : 0.0, snapshot.getPrograms(), snapshot.getHeapCells()));
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
 
-        if (this.output != null) {
-            this.output.getOutputAsList().forEach(output
-                    -> this.outListView.getItems().add(output.toString()));
+    // executeAllSteps on a worker thread, the window keeps responding and shows the run as it goes
+    private void startRun() {
+        this.setRunning(true);
+        Thread worker = new Thread(() -> {
+            String error = null;
+            try {
+                this.controller.executeAllSteps();
+            } catch (Exception e) {
+                error = e.getMessage();
+            }
+            String message = error;
+            Platform.runLater(() -> this.finishRun(message));
+        }, "interpreter-run");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void finishRun(String error) {
+        this.setRunning(false);
+        if (error != null) {
+            Alert alert = new Alert(Alert.AlertType.ERROR, error);
+            alert.show();
         }
+    }
 
-        if (this.fileTable != null) {
-            this.fileTable.getFileList().forEach(key
-                    -> this.fileTableListView.getItems().add(key.toString()));
+    private void setRunning(boolean running) {
+        this.running = running;
+        this.oneStepButton.setDisable(running);
+        this.runButton.setDisable(running);
+        this.pauseButton.setDisable(!running);
+        this.cancelButton.setDisable(!running);
+        this.pauseButton.setText("Pause");
+        this.view.setThrottled(running);
+        this.previousSnapshot = null;
+        if (running) {
+            this.frameTimer.start();
+        } else {
+            this.frameTimer.stop();
+            // the bytecode engine reports no stack changes and open files report none at all
+            this.view.requestFrame();
+            this.showStatistics();
         }
+    }
 
-        ProgramState current;
-        try{
-            current = this.controller.getProgramList().stream().filter(x -> Integer.valueOf(x.getId()).equals(selectedProgramId)).findAny().get();
-            current.getSymbolTable().toMap().forEach((x, y) -> this.symbolTableTableView.getItems().add(new Pair<>(x,y)));
-            List<IStatement> statementList = current.getExecutionStack().toList();
-            for(int i = statementList.size() - 1;i >= 0;i--){
-                this.executionStackListView.getItems().add(statementList.get(i));
-            }
-            this.programStatesListView.getSelectionModel().select(selectedProgramId);
-        } catch (NoSuchElementException e) {
+    // scrolls to the cell, or to where it would be if it is not allocated
+    private void jumpToAddress() {
+        int address;
+        try {
+            address = Integer.parseInt(this.heapAddressField.getText().trim());
+        } catch (NumberFormatException e) {
+            Alert alert = new Alert(Alert.AlertType.ERROR, "Not an address: " + this.heapAddressField.getText());
+            alert.show();
             return;
-        } finally {
-            this.programStatesListView.refresh();
-            this.heapTableTableView.refresh();
-            this.outListView.refresh();
-            this.fileTableListView.refresh();
-            this.symbolTableTableView.refresh();
-            this.executionStackListView.refresh();
         }
+        int row = this.heapRows.rowOfAddress(address);
+        if (row >= 0) {
+            this.heapTableTableView.getSelectionModel().clearAndSelect(row);
+        } else {
+            row = Math.min(-row - 1, this.heapRows.size() - 1);
+            this.heapTableTableView.getSelectionModel().clearSelection();
+        }
+        if (row >= 0)
+            this.heapTableTableView.scrollTo(row);
     }
 
     @FXML
     public void initialize() {
         this.heapAddressesColumn.setCellValueFactory(p -> new SimpleIntegerProperty(p.getValue().getKey()).asObject());
-        this.heapValuesColumn.setCellValueFactory(p -> new SimpleObjectProperty<>(p.getValue().getValue().toString()));
+        // a cell freed since the last frame has no value
+        this.heapValuesColumn.setCellValueFactory(p -> new SimpleObjectProperty<>(p.getValue().getValue() == null ? "" : p.getValue().getValue().toString()));
+        // the rows are read from the heap as they are shown, sorting by value would read all of them
+        this.heapValuesColumn.setSortable(false);
+        this.heapTableTableView.setItems(this.heapRows);
+        this.heapTableTableView.setSortPolicy(table -> {
+            this.heapRows.setDescending(!table.getSortOrder().isEmpty() && table.getSortOrder().get(0).getSortType() == TableColumn.SortType.DESCENDING);
+            return true;
+        });
+        this.executionStackListView.setItems(this.stackRows);
+        this.heapAddressField.setOnAction(actionEvent -> this.jumpToAddress());
         this.symbolNameColumn.setCellValueFactory(p -> new SimpleObjectProperty<>(p.getValue().getKey()));
         this.symbolValueColumn.setCellValueFactory(p -> new SimpleObjectProperty<>(p.getValue().getValue().toString()));
+        if(this.controller==null)
+            System.err.println("Controller is null");
+        this.view = new ProgramStateView(this.controller,
+                this.programStatesListView.getItems(),
+                this.heapRows,
+                this.outListView.getItems(),
+                this.fileTableListView.getItems(),
+                this.symbolTableTableView.getItems(),
+                this.stackRows,
+                this::frameApplied);
+        this.controller.setStateListener(this.view);
         this.refresh();
 
         this.oneStepButton.setOnAction(actionEvent -> {
@@ -137,18 +222,25 @@ public class GMainController {
                 Alert alert = new Alert(Alert.AlertType.ERROR, e.getMessage());
                 alert.show();
             }
-            this.refresh();
+            // the bytecode engine reports no stack changes and open files report none at all
+            this.view.requestFrame();
+            this.showStatistics();
         });
 
-        this.runButton.setOnAction(actionEvent -> {
-            try {
-                this.controller.executeAllSteps();
-            } catch (Exception e) {
-                Alert alert = new Alert(Alert.AlertType.ERROR, e.getMessage());
-                alert.show();
+        this.runButton.setOnAction(actionEvent -> this.startRun());
+
+        this.pauseButton.setOnAction(actionEvent -> {
+            RunControl runControl = this.controller.getRunControl();
+            if (runControl.isPaused()) {
+                runControl.resume();
+                this.pauseButton.setText("Pause");
+            } else {
+                runControl.pause();
+                this.pauseButton.setText("Resume");
             }
-            this.refresh();
         });
-        this.programStatesListView.setOnMouseClicked(x -> this.refresh());
+
+        this.cancelButton.setOnAction(actionEvent -> this.controller.getRunControl().cancel());
+        this.programStatesListView.setOnMouseClicked(x -> this.view.show(this.programStatesListView.getSelectionModel().getSelectedItem()));
     }
 }
\ No newline at end of file
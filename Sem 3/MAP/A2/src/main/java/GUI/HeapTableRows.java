@@ -0,0 +1,148 @@
+package GUI;
+
+import exception.InvalidAddressException;
+import javafx.collections.ObservableListBase;
+import javafx.util.Pair;
+import model.programStateComponents.IHeap;
+import model.values.IValue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+
+// The rows of the heap table. Only the allocated addresses are kept, in order, a row's value is read
+// from the heap when the table asks for it, and the table only asks for the rows it shows. Sorting
+// by address turns the order around without touching the heap, a cell freed after the last frame
+// reads as an empty value until the frame that removes its row.
+public class HeapTableRows extends ObservableListBase<Pair<Integer, IValue>> {
+    // past this many changes in a frame the rows are merged in one pass and reported as replaced
+    static final int MERGE_THRESHOLD = 256;
+
+    private IHeap heap;
+    private int[] addresses = new int[16];
+    private int size;
+    private boolean descending;
+
+    // lists every address of the heap, null empties the table
+    public void load(IHeap heap) {
+        int oldSize = size;
+        this.heap = heap;
+        int[] allocated = heap == null ? new int[0] : heap.addresses();
+        addresses = Arrays.copyOf(allocated, Math.max(16, allocated.length));
+        size = allocated.length;
+        beginChange();
+        if (oldSize > 0)
+            nextRemove(0, Collections.nCopies(oldSize, null));
+        if (size > 0)
+            nextAdd(0, size);
+        endChange();
+    }
+
+    // a null value is a freed cell, a value for an address not listed yet adds its row. The changes
+    // come in address order.
+    public void apply(SortedMap<Integer, IValue> changes) {
+        if (changes.size() > MERGE_THRESHOLD) {
+            merge(changes);
+            return;
+        }
+        beginChange();
+        changes.forEach((address, value) -> {
+            int index = Arrays.binarySearch(addresses, 0, size, address);
+            if (value == null) {
+                if (index >= 0) {
+                    int row = rowOf(index);
+                    System.arraycopy(addresses, index + 1, addresses, index, size - index - 1);
+                    size--;
+                    nextRemove(row, (Pair<Integer, IValue>) null);
+                }
+            } else if (index >= 0) {
+                nextUpdate(rowOf(index));
+            } else {
+                index = -index - 1;
+                if (size == addresses.length)
+                    addresses = Arrays.copyOf(addresses, size * 2);
+                System.arraycopy(addresses, index, addresses, index + 1, size - index);
+                addresses[index] = address;
+                size++;
+                int row = rowOf(index);
+                nextAdd(row, row + 1);
+            }
+        });
+        endChange();
+    }
+
+    private void merge(SortedMap<Integer, IValue> changes) {
+        int oldSize = size;
+        int[] merged = new int[Math.max(16, size + changes.size())];
+        int count = 0;
+        int index = 0;
+        for (Map.Entry<Integer, IValue> change : changes.entrySet()) {
+            int address = change.getKey();
+            while (index < size && addresses[index] < address)
+                merged[count++] = addresses[index++];
+            if (index < size && addresses[index] == address)
+                index++;
+            if (change.getValue() != null)
+                merged[count++] = address;
+        }
+        while (index < size)
+            merged[count++] = addresses[index++];
+        addresses = merged;
+        size = count;
+        beginChange();
+        if (oldSize > 0)
+            nextRemove(0, Collections.nCopies(oldSize, null));
+        if (size > 0)
+            nextAdd(0, size);
+        endChange();
+    }
+
+    public void setDescending(boolean descending) {
+        if (this.descending == descending)
+            return;
+        this.descending = descending;
+        int[] permutation = new int[size];
+        for (int row = 0; row < size; row++)
+            permutation[row] = size - 1 - row;
+        beginChange();
+        nextPermutation(0, size, permutation);
+        endChange();
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    // the row of an address, or -(row it would be inserted at) - 1 when it is not allocated
+    public int rowOfAddress(int address) {
+        int index = Arrays.binarySearch(addresses, 0, size, address);
+        if (index >= 0)
+            return rowOf(index);
+        int insertion = -index - 1;
+        return -(descending ? size - insertion : insertion) - 1;
+    }
+
+    private int rowOf(int index) {
+        return descending ? size - 1 - index : index;
+    }
+
+    @Override
+    public Pair<Integer, IValue> get(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException(row);
+        int address = addresses[rowOf(row)];
+        IValue value;
+        try {
+            value = heap.read(address);
+        } catch (InvalidAddressException e) {
+            value = null;
+        }
+        return new Pair<>(address, value);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
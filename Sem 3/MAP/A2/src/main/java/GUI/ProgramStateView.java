@@ -0,0 +1,379 @@
+package GUI;
+
+import controller.IController;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.util.Pair;
+import model.ProgramState;
+import model.programStateComponents.ExecutionStack;
+import model.programStateComponents.IHeap;
+import model.programStateComponents.IOutput;
+import model.programStateComponents.Output;
+import model.programStateComponents.StateListener;
+import model.programStateComponents.SymbolTable;
+import model.statement.IStatement;
+import model.values.IValue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Keeps the lists of the main window in step with the program list and with the components of the
+// shown program. The interpreter threads only record what changed, the changes are merged until the
+// FX thread gets to them, so a frame costs what changed since the previous one and not the size of
+// the heap or of the output. Everything but the listener methods runs on the FX thread.
+public class ProgramStateView implements StateListener {
+    private final IController controller;
+    private final ObservableList<Integer> programs;
+    private final HeapTableRows heap;
+    private final ObservableList<String> output;
+    private final ObservableList<String> files;
+    private final ObservableList<Pair<String, IValue>> symbols;
+    private final ExecutionStackRows stack;
+    private final Runnable afterFrame;
+
+    private ProgramState shown;
+    // the programs listed, kept from the notifications so a run never has to be looked at
+    private final Map<Integer, ProgramState> byId = new LinkedHashMap<>();
+    // the components listened to, notifications from any other one are late and ignored
+    private volatile IHeap shownHeap;
+    private volatile Output shownOutput;
+    private volatile SymbolTable shownSymbols;
+    private volatile ExecutionStack shownStack;
+
+    // at most one frame is queued, whatever arrives before it runs is merged into it
+    private final AtomicBoolean frameRequested = new AtomicBoolean();
+    // while set nothing is queued, frames are applied by applyFrame at the caller's pace
+    private volatile boolean throttled;
+    // guarded by this, the changes since the last frame
+    private boolean reloadPrograms;
+    private boolean reloadHeap;
+    // in address order, so that new cells are appended. A null value is a freed cell
+    private final TreeMap<Integer, IValue> heapChanges = new TreeMap<>();
+    // a null value is a removed variable
+    private final Map<String, IValue> symbolChanges = new LinkedHashMap<>();
+    private final ArrayDeque<IValue> outputAdded = new ArrayDeque<>();
+    // a pop cancels a push of the same frame, only the pops of older statements are counted
+    private int pushed;
+    private int popped;
+    // true for a program that started, false for one that finished
+    private final Map<ProgramState, Boolean> programChanges = new LinkedHashMap<>();
+
+    public ProgramStateView(IController controller, ObservableList<Integer> programs, HeapTableRows heap,
+                            ObservableList<String> output, ObservableList<String> files,
+                            ObservableList<Pair<String, IValue>> symbols, ExecutionStackRows stack, Runnable afterFrame) {
+        this.controller = controller;
+        this.programs = programs;
+        this.heap = heap;
+        this.output = output;
+        this.files = files;
+        this.symbols = symbols;
+        this.stack = stack;
+        this.afterFrame = afterFrame;
+    }
+
+    public ProgramState getShown() {
+        return shown;
+    }
+
+    // rebuilds everything from the controller, keeping the shown program if it is still there
+    public void reload() {
+        synchronized (this) {
+            reloadPrograms = false;
+            programChanges.clear();
+        }
+        byId.clear();
+        controller.getProgramList().forEach(program -> byId.put(program.getId(), program));
+        programs.setAll(new ArrayList<>(byId.keySet()));
+        show(shown == null ? null : shown.getId());
+    }
+
+    // shows the program with that id, or the first one if there is none
+    public void show(Integer programId) {
+        ProgramState program = programId == null ? null : byId.get(programId);
+        if (program == null && !byId.isEmpty())
+            program = byId.values().iterator().next();
+        detach();
+        shown = program;
+        if (program != null) {
+            shownHeap = program.getHeapTable();
+            shownOutput = program.getOutput();
+            shownSymbols = program.getSymbolTable();
+            shownStack = program.getExecutionStack();
+            shownHeap.addListener(this);
+            shownOutput.addListener(this);
+            shownSymbols.addListener(this);
+            shownStack.addListener(this);
+        }
+        // listening starts before the snapshots, so nothing made in between is lost
+        synchronized (this) {
+            reloadHeap = false;
+            heapChanges.clear();
+            symbolChanges.clear();
+            outputAdded.clear();
+            pushed = 0;
+            popped = 0;
+        }
+        if (program == null) {
+            heap.load(null);
+            output.clear();
+            files.clear();
+            symbols.clear();
+            stack.load(null);
+        } else {
+            heap.load(program.getHeapTable());
+            List<String> values = new ArrayList<>();
+            program.getOutput().getOutputAsList().forEach(value -> values.add(value.toString()));
+            output.setAll(values);
+            List<Pair<String, IValue>> variables = new ArrayList<>();
+            program.getSymbolTable().forEach((name, value) -> variables.add(new Pair<>(name, value)));
+            symbols.setAll(variables);
+            stack.load(program.getExecutionStack());
+            loadFiles();
+        }
+        afterFrame.run();
+    }
+
+    private void detach() {
+        if (shownHeap != null)
+            shownHeap.removeListener(this);
+        if (shownOutput != null)
+            shownOutput.removeListener(this);
+        if (shownSymbols != null)
+            shownSymbols.removeListener(this);
+        if (shownStack != null)
+            shownStack.removeListener(this);
+        shownHeap = null;
+        shownOutput = null;
+        shownSymbols = null;
+        shownStack = null;
+    }
+
+    // the file table is a handful of entries and reports no changes, it is read on every frame
+    private void loadFiles() {
+        List<String> names = new ArrayList<>();
+        shown.getFileTable().getFileList().forEach(name -> names.add(name.toString()));
+        if (!names.equals(files))
+            files.setAll(names);
+    }
+
+    public void requestFrame() {
+        if (frameRequested.compareAndSet(false, true) && !throttled)
+            Platform.runLater(this::applyChanges);
+    }
+
+    public void setThrottled(boolean throttled) {
+        this.throttled = throttled;
+        if (!throttled)
+            applyFrame();
+    }
+
+    // applies whatever changed since the last frame
+    public void applyFrame() {
+        if (frameRequested.get())
+            applyChanges();
+    }
+
+    private void applyChanges() {
+        frameRequested.set(false);
+        boolean reloadPrograms;
+        boolean reloadHeap;
+        TreeMap<Integer, IValue> heapChanges;
+        Map<String, IValue> symbolChanges;
+        List<IValue> outputAdded;
+        int pushed;
+        int popped;
+        Map<ProgramState, Boolean> programChanges;
+        synchronized (this) {
+            reloadPrograms = this.reloadPrograms;
+            reloadHeap = this.reloadHeap;
+            heapChanges = new TreeMap<>(this.heapChanges);
+            symbolChanges = new LinkedHashMap<>(this.symbolChanges);
+            outputAdded = new ArrayList<>(this.outputAdded);
+            pushed = this.pushed;
+            popped = this.popped;
+            programChanges = new LinkedHashMap<>(this.programChanges);
+            this.reloadPrograms = false;
+            this.reloadHeap = false;
+            this.heapChanges.clear();
+            this.symbolChanges.clear();
+            this.outputAdded.clear();
+            this.pushed = 0;
+            this.popped = 0;
+            this.programChanges.clear();
+        }
+        if (reloadPrograms) {
+            reload();
+            return;
+        }
+        boolean shownFinished = false;
+        for (Map.Entry<ProgramState, Boolean> change : programChanges.entrySet()) {
+            if (change.getValue()) {
+                // a reload may have listed it already
+                if (byId.put(change.getKey().getId(), change.getKey()) == null)
+                    programs.add(change.getKey().getId());
+            } else {
+                byId.remove(change.getKey().getId());
+                programs.remove(Integer.valueOf(change.getKey().getId()));
+                shownFinished |= change.getKey() == shown;
+            }
+        }
+        if (shownFinished || (shown == null && !programs.isEmpty())) {
+            show(null);
+            return;
+        }
+        if (shown == null) {
+            afterFrame.run();
+            return;
+        }
+        if (reloadHeap)
+            heap.load(shown.getHeapTable());
+        else if (!heapChanges.isEmpty())
+            heap.apply(heapChanges);
+        symbolChanges.forEach(this::applySymbolChange);
+        if (!outputAdded.isEmpty()) {
+            List<String> values = new ArrayList<>(outputAdded.size());
+            outputAdded.forEach(value -> values.add(value.toString()));
+            output.addAll(values);
+            int excess = output.size() - shown.getOutput().getTailCapacity();
+            if (excess > 0)
+                output.remove(0, excess);
+        }
+        stack.apply(popped, pushed);
+        loadFiles();
+        afterFrame.run();
+    }
+
+    private void applySymbolChange(String name, IValue value) {
+        for (int i = 0; i < symbols.size(); i++) {
+            if (symbols.get(i).getKey().equals(name)) {
+                if (value == null)
+                    symbols.remove(i);
+                else
+                    symbols.set(i, new Pair<>(name, value));
+                return;
+            }
+        }
+        if (value != null)
+            symbols.add(new Pair<>(name, value));
+    }
+
+    @Override
+    public void heapWritten(IHeap heap, int address, IValue value) {
+        if (heap != shownHeap)
+            return;
+        synchronized (this) {
+            heapChanges.put(address, value);
+        }
+        requestFrame();
+    }
+
+    @Override
+    public void heapFreed(IHeap heap, int address) {
+        if (heap != shownHeap)
+            return;
+        synchronized (this) {
+            heapChanges.put(address, null);
+        }
+        requestFrame();
+    }
+
+    @Override
+    public void heapRestored(IHeap heap) {
+        if (heap != shownHeap)
+            return;
+        synchronized (this) {
+            reloadHeap = true;
+            heapChanges.clear();
+        }
+        requestFrame();
+    }
+
+    @Override
+    public void symbolWritten(SymbolTable table, String name, IValue value) {
+        if (table != shownSymbols)
+            return;
+        synchronized (this) {
+            symbolChanges.put(name, value);
+        }
+        requestFrame();
+    }
+
+    @Override
+    public void symbolRemoved(SymbolTable table, String name) {
+        if (table != shownSymbols)
+            return;
+        synchronized (this) {
+            symbolChanges.put(name, null);
+        }
+        requestFrame();
+    }
+
+    @Override
+    public void outputAppended(IOutput output, IValue value) {
+        Output shownOutput = this.shownOutput;
+        if (output != shownOutput)
+            return;
+        synchronized (this) {
+            // only the tail is shown, older values would be dropped by the frame anyway
+            if (outputAdded.size() == shownOutput.getTailCapacity())
+                outputAdded.pollFirst();
+            outputAdded.addLast(value);
+        }
+        requestFrame();
+    }
+
+    @Override
+    public void statementPushed(ExecutionStack stack, IStatement statement) {
+        if (stack != shownStack)
+            return;
+        synchronized (this) {
+            pushed++;
+        }
+        requestFrame();
+    }
+
+    @Override
+    public void statementPopped(ExecutionStack stack) {
+        if (stack != shownStack)
+            return;
+        synchronized (this) {
+            if (pushed > 0)
+                pushed--;
+            else
+                popped++;
+        }
+        requestFrame();
+    }
+
+    @Override
+    public void programStarted(ProgramState program) {
+        synchronized (this) {
+            programChanges.put(program, true);
+        }
+        requestFrame();
+    }
+
+    @Override
+    public void programFinished(ProgramState program) {
+        synchronized (this) {
+            // a program that started and finished within one frame is never shown
+            if (programChanges.remove(program) == null)
+                programChanges.put(program, false);
+        }
+        requestFrame();
+    }
+
+    @Override
+    public void programsReset() {
+        synchronized (this) {
+            reloadPrograms = true;
+            programChanges.clear();
+        }
+        requestFrame();
+    }
+}
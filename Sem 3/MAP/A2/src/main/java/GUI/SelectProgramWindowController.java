@@ -6,15 +6,17 @@ import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.ListView;
 import javafx.scene.input.KeyCode;
-import model.Hardcoded;
-import model.statement.IStatement;
+import repository.ProgramCatalog;
+
+import java.io.IOException;
 
 public class SelectProgramWindowController {
     IController controller;
     GMainController mainWindowController;
+    ProgramCatalog catalog = new ProgramCatalog();
 
     @FXML
-    private ListView<IStatement> programsListView;
+    private ListView<ProgramCatalog.Entry> programsListView;
 
     @FXML
     private Button selectProgramButton;
@@ -26,18 +28,29 @@ public class SelectProgramWindowController {
 
     @FXML
     public void initialize() {
-        programsListView.setItems(FXCollections.observableList(Hardcoded.hardcodedPrograms));
+        try {
+            catalog = ProgramCatalog.standard();
+        } catch (IOException e) {
+            System.out.println("Cannot list the programs: " + e.getMessage());
+        }
+        programsListView.setItems(FXCollections.observableList(catalog.getEntries()));
         selectProgramButton.setOnAction(actionEvent -> {
+            if (this.mainWindowController.isRunning()) {
+                System.out.println("A program is running, cancel it first");
+                return;
+            }
             try{
                 int index = programsListView.getSelectionModel().getSelectedIndex();
                 if (index < 0) {
                     System.out.println("No index selected");
-                } else if (index >= Hardcoded.hardcodedPrograms.size()) {
+                } else if (index >= catalog.size()) {
                     System.out.println("No program at selected index");
                 } else {
                     System.out.println("Selected program " + index);
                 }
-                this.controller.setProgram(Hardcoded.hardcodedPrograms.get(index));
+                // a program from a file is only parsed now, its entry shows it from then on
+                this.controller.setProgram(catalog.get(index).getProgram());
+                this.programsListView.refresh();
                 this.mainWindowController.refresh();
             } catch (Exception e) {
                 System.out.println(e.getMessage());
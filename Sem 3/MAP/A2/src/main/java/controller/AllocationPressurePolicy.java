@@ -0,0 +1,81 @@
+package controller;
+
+import model.programStateComponents.IHeap;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+public class AllocationPressurePolicy implements IGarbageCollectionPolicy {
+    private final long allocationThreshold;
+    private final double growthRatio;
+    private final int minimumHeapSize;
+
+    private final Map<IHeap, HeapState> heaps = new WeakHashMap<>();
+    private final Map<GarbageCollectionTrigger, Long> collections = new EnumMap<>(GarbageCollectionTrigger.class);
+    private long requestedEpoch = 0;
+
+    public AllocationPressurePolicy(long allocationThreshold, double growthRatio, int minimumHeapSize) {
+        if (allocationThreshold <= 0 || growthRatio <= 1.0 || minimumHeapSize < 0)
+            throw new IllegalArgumentException("Invalid garbage collection policy parameters");
+        this.allocationThreshold = allocationThreshold;
+        this.growthRatio = growthRatio;
+        this.minimumHeapSize = minimumHeapSize;
+    }
+
+    public AllocationPressurePolicy() {
+        this(1024, 2.0, 256);
+    }
+
+    @Override
+    public synchronized GarbageCollectionTrigger shouldCollect(IHeap heap) {
+        // a heap first seen now owes nothing to the requests made before it
+        HeapState state = heaps.computeIfAbsent(heap, h -> new HeapState(requestedEpoch));
+        if (state.handledEpoch < requestedEpoch)
+            return GarbageCollectionTrigger.EXPLICIT;
+        long allocations = heap.getAllocationCount() - state.allocationsAtLastCollection;
+        if (allocations == 0)
+            return null;
+        if (allocations >= allocationThreshold)
+            return GarbageCollectionTrigger.ALLOCATION_COUNT;
+        if (heap.size() >= Math.max(state.liveAfterLastCollection, minimumHeapSize) * growthRatio)
+            return GarbageCollectionTrigger.HEAP_GROWTH;
+        return null;
+    }
+
+    @Override
+    public synchronized void collected(IHeap heap, GarbageCollectionTrigger trigger) {
+        HeapState state = heaps.computeIfAbsent(heap, h -> new HeapState(requestedEpoch));
+        state.allocationsAtLastCollection = heap.getAllocationCount();
+        state.liveAfterLastCollection = heap.size();
+        state.handledEpoch = requestedEpoch;
+        collections.merge(trigger, 1L, Long::sum);
+    }
+
+    @Override
+    public synchronized void requestCollection() {
+        requestedEpoch++;
+    }
+
+    @Override
+    public synchronized long getCollections(GarbageCollectionTrigger trigger) {
+        return collections.getOrDefault(trigger, 0L);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AllocationPressurePolicy(threshold=" + allocationThreshold +
+                ", growthRatio=" + growthRatio +
+                ", collections=" + collections + ")";
+    }
+
+    private static class HeapState {
+        long allocationsAtLastCollection = 0;
+        int liveAfterLastCollection = 0;
+        long handledEpoch;
+
+        HeapState(long handledEpoch) {
+            this.handledEpoch = handledEpoch;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package controller;
+
+import model.programStateComponents.IHeap;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class EveryStepGarbageCollectionPolicy implements IGarbageCollectionPolicy {
+    private final AtomicLong collections = new AtomicLong(0);
+
+    @Override
+    public GarbageCollectionTrigger shouldCollect(IHeap heap) {
+        return GarbageCollectionTrigger.EVERY_STEP;
+    }
+
+    @Override
+    public void collected(IHeap heap, GarbageCollectionTrigger trigger) {
+        collections.incrementAndGet();
+    }
+
+    @Override
+    public void requestCollection() {
+    }
+
+    @Override
+    public long getCollections(GarbageCollectionTrigger trigger) {
+        return trigger == GarbageCollectionTrigger.EVERY_STEP ? collections.get() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "EveryStepPolicy(collections=" + collections.get() + ")";
+    }
+}
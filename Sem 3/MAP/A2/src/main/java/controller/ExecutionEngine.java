@@ -0,0 +1,6 @@
+package controller;
+
+public enum ExecutionEngine {
+    AST,
+    BYTECODE
+}
@@ -0,0 +1,8 @@
+package controller;
+
+public enum GarbageCollectionTrigger {
+    ALLOCATION_COUNT,
+    HEAP_GROWTH,
+    EXPLICIT,
+    EVERY_STEP
+}
@@ -1,57 +1,171 @@
 package controller;
 
-import exception.InvalidAddressException;
 import model.ProgramState;
+import model.bytecode.Instruction;
+import model.bytecode.VirtualMachine;
 import model.programStateComponents.IHeap;
-import model.type.ReferenceType;
+import model.statement.IStatement;
 import model.values.IValue;
 import model.values.ReferenceValue;
+import model.values.ValueCollector;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 public class GarbageCollector implements IGarbageCollector {
+    private static final int[] NO_LITERALS = new int[0];
+    private static final GarbageCollector sharedCollector = new GarbageCollector();
+
+    private final GarbageCollectorStatistics statistics = new GarbageCollectorStatistics();
+    // reference literals found in statement trees and compiled code, computed once per node
+    private final Map<Object, int[]> literalCache = new WeakHashMap<>();
 
     public static void runGarbageCollector(List<ProgramState> states){
-        if(states.size() < 1){
+        sharedCollector.collect(states);
+    }
+
+    @Override
+    public synchronized void collect(List<ProgramState> states) {
+        if(states.isEmpty()){
             return ;
         }
-        IHeap heap = states.get(0).getHeapTable();
-        List<Integer> activeAddresses = states.stream().flatMap(e -> GarbageCollector.getActiveAddressesForState(e).stream()).toList();
-        heap.toMap().keySet().stream().filter(e -> !activeAddresses.contains(e)).forEach(e -> {
-            try {
-                heap.deallocate(e);
-            } catch (InvalidAddressException ex) {
-                throw new RuntimeException(ex);
+        long start = System.nanoTime();
+        Map<IHeap, List<ProgramState>> statesByHeap = new IdentityHashMap<>();
+        for (ProgramState state : states) {
+            statesByHeap.computeIfAbsent(state.getHeapTable(), heap -> new ArrayList<>()).add(state);
+        }
+        int collected = 0;
+        int live = 0;
+        for (Map.Entry<IHeap, List<ProgramState>> entry : statesByHeap.entrySet()) {
+            BitSet marked = mark(entry.getKey(), entry.getValue());
+            live += marked.cardinality();
+            collected += sweep(entry.getKey(), marked);
+        }
+        statistics.record(collected, live, System.nanoTime() - start);
+    }
+
+    @Override
+    public GarbageCollectorStatistics getStatistics() {
+        return statistics;
+    }
+
+    private BitSet mark(IHeap heap, List<ProgramState> states) {
+        Marker marker = new Marker(heap);
+        for (ProgramState state : states) {
+            state.getSymbolTable().forEach((name, value) -> marker.markValue(value));
+            VirtualMachine virtualMachine = state.getVirtualMachine();
+            if (virtualMachine != null) {
+                marker.markAll(literals(virtualMachine.getCode()));
+            } else {
+                for (IStatement statement : state.getExecutionStack().toList()) {
+                    marker.markAll(literals(statement));
+                }
+            }
+        }
+        marker.traceHeap();
+        return marker.marked;
+    }
+
+    private int sweep(IHeap heap, BitSet marked) {
+        int collected = 0;
+        for (int address : heap.addresses()) {
+            if (!marked.get(address)) {
+                heap.deallocate(address);
+                collected++;
             }
-        });
-    }
-
-    private static List<Integer> getActiveAddressesForState(ProgramState state) {
-        return state.getSymbolTable().toMap().values().stream()
-                .filter(e -> e.getType() instanceof ReferenceType)
-                .map(e -> (ReferenceValue) e)
-                .flatMap(value -> {
-                    List<Integer> addresses = new ArrayList<Integer>();
-                    while (true) {
-                        if(value.getAddress() == 0){
-                            break;
-                        }
-                        addresses.add(value.getAddress());
-                        IValue next_value;
-                        try {
-                            next_value = state.getHeapTable().read(value.getAddress());
-                        } catch (InvalidAddressException e) {
-                            throw new RuntimeException(e);
-                        }
-                        if (!(next_value.getType() instanceof ReferenceType)) {
-                            break;
-                        }
-                        value = (ReferenceValue) next_value;
-                    }
-                    return addresses.stream();
-                }).collect(Collectors.toList());
+        }
+        return collected;
+    }
+
+    private int[] literals(IStatement statement) {
+        int[] cached = literalCache.get(statement);
+        if (cached == null) {
+            LiteralCollector collector = new LiteralCollector();
+            statement.collectValues(collector);
+            cached = collector.toArray();
+            literalCache.put(statement, cached);
+        }
+        return cached;
     }
 
+    private int[] literals(Instruction[] code) {
+        int[] cached = literalCache.get(code);
+        if (cached == null) {
+            LiteralCollector collector = new LiteralCollector();
+            for (Instruction instruction : code) {
+                instruction.collectValues(collector);
+            }
+            cached = collector.toArray();
+            literalCache.put(code, cached);
+        }
+        return cached;
+    }
+
+    private class LiteralCollector implements ValueCollector {
+        int[] addresses = NO_LITERALS;
+        int size = 0;
+
+        void add(int address) {
+            if (size == addresses.length)
+                addresses = Arrays.copyOf(addresses, Math.max(4, size * 2));
+            addresses[size++] = address;
+        }
+
+        @Override
+        public void value(IValue value) {
+            if (value instanceof ReferenceValue && ((ReferenceValue) value).getAddress() != 0)
+                add(((ReferenceValue) value).getAddress());
+        }
+
+        @Override
+        public void statement(IStatement statement) {
+            for (int address : literals(statement))
+                add(address);
+        }
+
+        int[] toArray() {
+            return size == 0 ? NO_LITERALS : Arrays.copyOf(addresses, size);
+        }
+    }
+
+    private static class Marker {
+        final IHeap heap;
+        final BitSet marked = new BitSet();
+        int[] worklist = new int[64];
+        int pending = 0;
+
+        Marker(IHeap heap) {
+            this.heap = heap;
+        }
+
+        void markValue(IValue value) {
+            if (value instanceof ReferenceValue)
+                markAddress(((ReferenceValue) value).getAddress());
+        }
+
+        void markAll(int[] addresses) {
+            for (int address : addresses)
+                markAddress(address);
+        }
+
+        void markAddress(int address) {
+            if (address <= 0 || marked.get(address) || !heap.contains(address))
+                return;
+            marked.set(address);
+            if (pending == worklist.length)
+                worklist = Arrays.copyOf(worklist, pending * 2);
+            worklist[pending++] = address;
+        }
+
+        void traceHeap() {
+            while (pending > 0) {
+                markValue(heap.read(worklist[--pending]));
+            }
+        }
+    }
 }
@@ -0,0 +1,60 @@
+package controller;
+
+public class GarbageCollectorStatistics {
+    private long collections;
+    private long totalCollected;
+    private int lastCollected;
+    private int lastLive;
+    private long lastPauseNanos;
+    private long totalPauseNanos;
+    private long maxPauseNanos;
+
+    public synchronized void record(int collected, int live, long pauseNanos) {
+        collections++;
+        totalCollected += collected;
+        lastCollected = collected;
+        lastLive = live;
+        lastPauseNanos = pauseNanos;
+        totalPauseNanos += pauseNanos;
+        maxPauseNanos = Math.max(maxPauseNanos, pauseNanos);
+    }
+
+    public synchronized long getCollections() {
+        return collections;
+    }
+
+    public synchronized long getTotalCollected() {
+        return totalCollected;
+    }
+
+    public synchronized int getLastCollected() {
+        return lastCollected;
+    }
+
+    public synchronized int getLastLive() {
+        return lastLive;
+    }
+
+    public synchronized long getLastPauseNanos() {
+        return lastPauseNanos;
+    }
+
+    public synchronized long getTotalPauseNanos() {
+        return totalPauseNanos;
+    }
+
+    public synchronized long getMaxPauseNanos() {
+        return maxPauseNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "GC(collections=" + collections +
+                ", collected=" + totalCollected +
+                ", lastCollected=" + lastCollected +
+                ", lastLive=" + lastLive +
+                ", lastPause=" + lastPauseNanos / 1000 + "us" +
+                ", maxPause=" + maxPauseNanos / 1000 + "us" +
+                ", totalPause=" + totalPauseNanos / 1000 + "us)";
+    }
+}
@@ -2,6 +2,7 @@ package controller;
 
 import exception.InterpreterException;
 import model.ProgramState;
+import model.programStateComponents.StateListener;
 import model.statement.IStatement;
 
 import java.util.List;
@@ -14,7 +15,14 @@ public interface IController {
 
     public void setDisplayFlag(boolean displayFlag);
     void setProgram(IStatement statement) throws InterpreterException;
+    int addProgram(IStatement statement) throws InterpreterException;
     void setProgramList(List<ProgramState> programList);
     public List<ProgramState> getProgramList();
+    // told when programs join or leave the program list
+    void setStateListener(StateListener listener);
+    // pauses or cancels executeAllSteps from another thread
+    RunControl getRunControl();
+    // progress as of the last safepoint, safe to read while a run is going
+    RunSnapshot getRunSnapshot();
 
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package controller;
+
+import model.programStateComponents.IHeap;
+
+public interface IGarbageCollectionPolicy {
+    // null means the heap does not need a collection yet
+    GarbageCollectionTrigger shouldCollect(IHeap heap);
+
+    void collected(IHeap heap, GarbageCollectionTrigger trigger);
+
+    void requestCollection();
+
+    long getCollections(GarbageCollectionTrigger trigger);
+}
@@ -3,23 +3,64 @@ package controller;
 import exception.AdtException;
 import exception.ExecutionException;
 import exception.InterpreterException;
+import exception.TypeNotMatchException;
 import model.ProgramState;
+import model.adts.SlotTable;
+import model.adts.TypeEnvironment;
+import model.bytecode.BytecodeCompiler;
+import model.bytecode.VirtualMachine;
 import model.programStateComponents.*;
 import model.statement.IStatement;
-import model.statement.NopStatement;
+import model.statement.SlotResolver;
 import repository.IRepo;
+import repository.checkpoint.Checkpoint;
+import repository.checkpoint.CheckpointSeries;
+import repository.checkpoint.CheckpointWriter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class MultiThreadedController implements IController{
     IRepo repo;
     boolean displayFlag;
+    ExecutionEngine executionEngine = ExecutionEngine.AST;
+    IGarbageCollector garbageCollector = new GarbageCollector();
+    IGarbageCollectionPolicy garbageCollectionPolicy = new AllocationPressurePolicy();
+    Supplier<IHeap> heapFactory = ConcurentHeapTable::new;
+    SchedulingMode schedulingMode = SchedulingMode.LOCKSTEP;
+    int quantum = WorkStealingScheduler.DEFAULT_QUANTUM;
+    CheckpointWriter checkpointWriter;
+    CheckpointSeries checkpointSeries;
+    long checkpointIntervalMillis;
+    long lastCheckpointMillis;
+    Supplier<OutputSink> outputSinkFactory;
+    boolean privateFileCursors = false;
+    // outputs seen at safepoints during the current run, their sinks are flushed when it ends
+    Set<Output> activeOutputs = Collections.newSetFromMap(new IdentityHashMap<>());
+    // steps of programs that already finished, and every heap a run used since the last load, whose
+    // own high-water marks make up the peak, so cells freed between two safepoints are counted too
+    AtomicLong completedSteps = new AtomicLong();
+    Set<IHeap> runHeaps = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    volatile RunSnapshot runSnapshot = new RunSnapshot(0, 0, 0, System.nanoTime());
+    RunControl runControl = new RunControl();
+    // runs that failed since the last error was reported, with their error
+    Map<Integer, String> failedRuns = Collections.synchronizedMap(new LinkedHashMap<>());
+    // told when programs join or leave the program list
+    volatile StateListener stateListener;
 
     ExecutorService executor;
 
@@ -31,7 +72,7 @@ public class MultiThreadedController implements IController{
 
     public MultiThreadedController(IRepo repo){
         this.repo = repo;
-        this.executor = Executors.newSingleThreadExecutor();
+        this.executor = Executors.newWorkStealingPool();
         this.displayFlag = true;
     }
 
@@ -50,44 +91,145 @@ public class MultiThreadedController implements IController{
 
     @Override
     public void removeCompletedPrograms(){
-        this.repo.setProgramList(
-                this.repo.getProgramList().stream()
-                        .filter(ProgramState::isNotCompletedYet)
-                        .collect(Collectors.toList()));
+        Map<Boolean, List<ProgramState>> programs = this.repo.getProgramList().stream()
+                .collect(Collectors.partitioningBy(ProgramState::isNotCompletedYet));
+        // a finished program gives up its file handles, the files stay open for the others
+        programs.get(false).forEach(program -> {
+            this.completedSteps.addAndGet(program.getSteps());
+            program.getFileTable().closeAll();
+        });
+        this.repo.setProgramList(programs.get(true));
+        // only once they are off the list, a listener looking at it must not find them
+        programs.get(false).forEach(this::finished);
     }
     public void executeOneStep() throws InterpreterException {
+        this.failedRuns.clear();
+        this.stepAll();
+        this.safepoint();
+        this.throwFailedRuns();
+    }
+
+    // one step of every program, a program that fails takes its run out and the other runs go on
+    private void stepAll() {
         this.removeCompletedPrograms();
-        List<Callable<ProgramState>> stepList = repo.getProgramList().stream()
+        List<ProgramState> programs = new ArrayList<>(repo.getProgramList());
+        List<Callable<ProgramState>> stepList = programs.stream()
                 .map(program -> (Callable<ProgramState>) (() -> {
                     return program.oneStep();
                 }))
                 .toList();
-        List<ProgramState> newPrograms = null;
+        List<Future<ProgramState>> futures;
         try {
-            newPrograms = executor.invokeAll(stepList).stream()
-                    .map(future -> {
-                        try {
-                            return future.get();
-                        } catch (InterruptedException e) {
-                            throw new RuntimeException(e);
-                        } catch (java.util.concurrent.ExecutionException e) {
-                            try {
-                                this.setProgram(new NopStatement());
-                                //log on log file the error
-                                throw new RuntimeException("Program execution stopped, error:"+e.getMessage());
-                            } catch (InterpreterException ex) {
-                                throw new RuntimeException(ex);
-                            }
-                        }
-                    })
-                    .filter(Objects::nonNull)
-                    .toList();
+            futures = executor.invokeAll(stepList);
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
         }
-        newPrograms.forEach(e -> this.repo.addProgram(e));
-        //garbage collector
-        GarbageCollector.runGarbageCollector(this.repo.getProgramList());
+        List<ProgramState> newPrograms = new ArrayList<>();
+        Map<ProgramState, Throwable> failures = new IdentityHashMap<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                ProgramState child = futures.get(i).get();
+                if (child != null)
+                    newPrograms.add(child);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } catch (java.util.concurrent.ExecutionException e) {
+                Throwable cause = e.getCause();
+                // a ForkJoinPool wraps checked exceptions of its callables
+                if (cause.getClass() == RuntimeException.class && cause.getCause() != null)
+                    cause = cause.getCause();
+                failures.put(programs.get(i), cause);
+            }
+        }
+        this.addPrograms(newPrograms);
+        this.failRuns(failures);
+    }
+
+    private void executeAllStepsWorkStealing() throws InterpreterException {
+        ForkJoinPool pool = this.executor instanceof ForkJoinPool ? (ForkJoinPool) this.executor : ForkJoinPool.commonPool();
+        WorkStealingScheduler scheduler = new WorkStealingScheduler(pool, this.quantum);
+        while(true){
+            this.removeCompletedPrograms();
+            if(this.repo.getProgramList().isEmpty() || !this.runControl.proceed()){
+                break;
+            }
+            Map<ProgramState, Throwable> failures = new IdentityHashMap<>();
+            List<ProgramState> newPrograms = scheduler.runEpoch(this.repo.getProgramList(), failures);
+            this.addPrograms(newPrograms);
+            this.failRuns(failures);
+            this.safepoint();
+        }
+    }
+
+    private void executeAllStepsVirtualThreads() throws InterpreterException {
+        this.removeCompletedPrograms();
+        VirtualThreadScheduler scheduler = new VirtualThreadScheduler();
+        scheduler.run(this.repo.getProgramList(), newPrograms -> {
+            this.addPrograms(newPrograms);
+            this.failRuns(scheduler.drainFailures());
+            this.removeCompletedPrograms();
+            this.safepoint();
+            // the program threads wait while the safepoint runs, so a pause holds all of them
+            if (!this.runControl.proceed())
+                scheduler.stop();
+        });
+    }
+
+    // forks of a run that already failed are dropped
+    private void addPrograms(List<ProgramState> programs) {
+        programs.forEach(program -> {
+            if (this.failedRuns.containsKey(program.getRunId()))
+                program.getFileTable().closeAll();
+            else {
+                this.repo.addProgram(program);
+                this.started(program);
+            }
+        });
+    }
+
+    private void failRuns(Map<ProgramState, Throwable> failures) {
+        failures.forEach((program, error) -> {
+            String message = error.getMessage() == null ? error.toString() : error.getMessage();
+            if (this.failedRuns.putIfAbsent(program.getRunId(), message) != null)
+                return;
+            Map<Boolean, List<ProgramState>> programs = this.repo.getProgramList().stream()
+                    .collect(Collectors.partitioningBy(state -> state.getRunId() == program.getRunId()));
+            programs.get(true).forEach(state -> {
+                this.completedSteps.addAndGet(state.getSteps());
+                state.getFileTable().closeAll();
+            });
+            this.repo.setProgramList(programs.get(false));
+            programs.get(true).forEach(this::finished);
+        });
+    }
+
+    private void throwFailedRuns() throws InterpreterException {
+        if (this.failedRuns.isEmpty())
+            return;
+        String message;
+        if (this.failedRuns.size() == 1) {
+            message = "Program execution stopped, error:" + this.failedRuns.values().iterator().next();
+        } else {
+            StringBuilder errors = new StringBuilder();
+            this.failedRuns.forEach((runId, error) -> errors.append(errors.length() == 0 ? "" : "; ").append("run ").append(runId).append(": ").append(error));
+            message = "Program execution stopped, errors:" + errors;
+        }
+        this.failedRuns.clear();
+        throw new InterpreterException(message);
+    }
+
+    // the programs of every run still going, by run id
+    public Map<Integer, List<ProgramState>> getRuns() {
+        Map<Integer, List<ProgramState>> runs = new LinkedHashMap<>();
+        this.repo.getProgramList().forEach(program -> runs.computeIfAbsent(program.getRunId(), runId -> new ArrayList<>()).add(program));
+        return runs;
+    }
+
+    // every program is between two steps here: collect garbage, display and log
+    private void safepoint() throws InterpreterException {
+        this.recordStatistics();
+        this.collectGarbage();
+        this.repo.getProgramList().forEach(e -> this.activeOutputs.add(e.getOutput()));
         if (displayFlag)
             this.repo.getProgramList().forEach(System.out::println);
         this.repo.getProgramList().forEach(e -> {
@@ -97,17 +239,136 @@ public class MultiThreadedController implements IController{
                 throw new InterpreterException(ex.getMessage());
             }
         });
+        if (this.checkpointSeries != null && System.currentTimeMillis() - this.lastCheckpointMillis >= this.checkpointIntervalMillis) {
+            this.lastCheckpointMillis = System.currentTimeMillis();
+            this.getCheckpointWriter().offer(this.checkpointSeries, this.repo.getProgramList());
+        }
+    }
+
+    private void recordStatistics() {
+        Set<IHeap> heaps = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.repo.getProgramList().forEach(state -> heaps.add(state.getHeapTable()));
+        int size = 0;
+        for (IHeap heap : heaps)
+            size += heap.size();
+        this.runSnapshot = new RunSnapshot(this.getStepCount(), this.repo.getProgramList().size(), size, System.nanoTime());
+    }
+
+    @Override
+    public RunSnapshot getRunSnapshot() {
+        return runSnapshot;
+    }
+
+    @Override
+    public RunControl getRunControl() {
+        return runControl;
+    }
+
+    public long getStepCount() {
+        long steps = this.completedSteps.get();
+        for (ProgramState state : this.repo.getProgramList())
+            steps += state.getSteps();
+        return steps;
+    }
+
+    // the heaps of runs that share the controller peak on their own, their peaks are added up
+    public int getPeakHeapSize() {
+        synchronized (this.runHeaps) {
+            int peak = 0;
+            for (IHeap heap : this.runHeaps)
+                peak += heap.getPeakSize();
+            return peak;
+        }
+    }
+
+    private synchronized CheckpointWriter getCheckpointWriter() {
+        if (this.checkpointWriter == null)
+            this.checkpointWriter = new CheckpointWriter();
+        return this.checkpointWriter;
+    }
+
+    // checkpoints are taken at safepoints while running, null turns them off
+    public void setCheckpointFile(String checkpointFilePath, long checkpointIntervalMillis) {
+        if (this.checkpointSeries != null)
+            this.checkpointSeries.close();
+        this.checkpointSeries = checkpointFilePath == null ? null : new CheckpointSeries(checkpointFilePath);
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+        this.lastCheckpointMillis = System.currentTimeMillis();
+    }
+
+    // only call this between runs, the programs have to be between two steps
+    public void checkpoint(String path) {
+        this.getCheckpointWriter().submit(Checkpoint.capture(this.repo.getProgramList()), path);
+    }
+
+    public void waitForCheckpoint() {
+        if (this.checkpointWriter != null)
+            this.checkpointWriter.await();
+    }
+
+    public void restore(String path) throws InterpreterException {
+        List<ProgramState> programStates = Checkpoint.read(path).restore(this.heapFactory);
+        if (this.outputSinkFactory != null) {
+            Set<Output> outputs = Collections.newSetFromMap(new IdentityHashMap<>());
+            programStates.forEach(state -> outputs.add(state.getOutput()));
+            outputs.forEach(output -> output.setSink(this.outputSinkFactory.get()));
+        }
+        this.repo.clear();
+        this.completedSteps.set(0);
+        this.runHeaps.clear();
+        programStates.forEach(state -> this.runHeaps.add(state.getHeapTable()));
+        programStates.forEach(this.repo::addProgram);
+        if (this.checkpointSeries != null)
+            this.checkpointSeries.restart();
+        this.recordStatistics();
+        this.reset();
+        if (this.displayFlag)
+            this.displayCurrentState();
+    }
+
+    private void collectGarbage() {
+        Map<IHeap, List<ProgramState>> statesByHeap = new IdentityHashMap<>();
+        this.repo.getProgramList().forEach(state ->
+                statesByHeap.computeIfAbsent(state.getHeapTable(), heap -> new ArrayList<>()).add(state));
+        statesByHeap.forEach((heap, states) -> {
+            GarbageCollectionTrigger trigger = this.garbageCollectionPolicy.shouldCollect(heap);
+            if (trigger != null) {
+                this.garbageCollector.collect(states);
+                this.garbageCollectionPolicy.collected(heap, trigger);
+            }
+        });
+    }
+
+    public void requestGarbageCollection() {
+        this.garbageCollectionPolicy.requestCollection();
     }
 
     @Override
     public void executeAllSteps() throws InterpreterException{
-        while(true){
-            this.removeCompletedPrograms();
-            if(this.repo.getProgramList().isEmpty()){
-                break;
+        this.failedRuns.clear();
+        try {
+            if (this.schedulingMode == SchedulingMode.WORK_STEALING) {
+                this.executeAllStepsWorkStealing();
+            } else if (this.schedulingMode == SchedulingMode.VIRTUAL_THREADS) {
+                this.executeAllStepsVirtualThreads();
+            } else {
+                while(true){
+                    this.removeCompletedPrograms();
+                    if(this.repo.getProgramList().isEmpty() || !this.runControl.proceed()){
+                        break;
+                    }
+                    this.stepAll();
+                    this.safepoint();
+                }
             }
-            this.executeOneStep();
+        } finally {
+            this.runControl.clear();
         }
+        this.activeOutputs.forEach(Output::flush);
+        this.activeOutputs.clear();
+        this.repo.flushLog();
+        this.waitForCheckpoint();
+        this.throwFailedRuns();
     }
 
     @Override
@@ -118,18 +379,66 @@ public class MultiThreadedController implements IController{
 
     @Override
     public void setProgram(IStatement statement) throws InterpreterException {
-
+        TypeEnvironment typeEnv = new TypeEnvironment();
+        try {
+            statement.typecheck(typeEnv);
+        } catch (TypeNotMatchException e) {
+            throw new InterpreterException("Typecheck failed: " + e.getMessage());
+        }
         this.repo.clear();
-        this.repo.addProgram(new ProgramState(
-                new ExecutionStack(),
-                new SymbolTable(),
-                new Output(),
-                new FileTable(),
-                new ConcurentHeapTable(),
-                statement));
+        this.completedSteps.set(0);
+        this.runHeaps.clear();
+        this.reset();
+        this.startRun(statement, typeEnv.getSlots());
+    }
+
+    // starts the program next to the ones already loaded, with its own heap, output and files, so
+    // runs only share the controller and its executor. Returns the id of the new run.
+    @Override
+    public int addProgram(IStatement statement) throws InterpreterException {
+        TypeEnvironment typeEnv = new TypeEnvironment();
+        try {
+            statement.typecheck(typeEnv);
+        } catch (TypeNotMatchException e) {
+            throw new InterpreterException("Typecheck failed: " + e.getMessage());
+        }
+        return this.startRun(statement, typeEnv.getSlots());
+    }
+
+    private int startRun(IStatement checked, SlotTable slots) throws InterpreterException {
+        // the copy that runs has its variables bound to their slots
+        IStatement statement = SlotResolver.resolve(checked, slots);
+        Output output = new Output();
+        if (this.outputSinkFactory != null)
+            output.setSink(this.outputSinkFactory.get());
+        ProgramState program;
+        if (this.executionEngine == ExecutionEngine.BYTECODE) {
+            program = new ProgramState(
+                    new ExecutionStack(),
+                    new SymbolTable(),
+                    output,
+                    new FileTable(this.privateFileCursors),
+                    this.heapFactory.get(),
+                    statement,
+                    new VirtualMachine(BytecodeCompiler.compile(statement)));
+        } else {
+            program = new ProgramState(
+                    new ExecutionStack(),
+                    new SymbolTable(),
+                    output,
+                    new FileTable(this.privateFileCursors),
+                    this.heapFactory.get(),
+                    statement);
+        }
+        program.setSlots(slots);
+        program.setRunId(ProgramState.newRunID());
+        this.runHeaps.add(program.getHeapTable());
+        this.repo.addProgram(program);
+        this.recordStatistics();
+        this.started(program);
 
         try {
-            this.repo.logProgramStateExecution(this.repo.getProgramList().get(0));
+            this.repo.logProgramStateExecution(program);
         } catch (ExecutionException | IOException | AdtException e) {
             throw new InterpreterException(e.getMessage());
         }
@@ -137,11 +446,37 @@ public class MultiThreadedController implements IController{
         if(this.displayFlag){
             this.displayCurrentState();
         }
+        return program.getRunId();
     }
 
     @Override
     public void setProgramList(List<ProgramState> programList) {
         this.repo.setProgramList(programList);
+        this.reset();
+    }
+
+    @Override
+    public void setStateListener(StateListener stateListener) {
+        this.stateListener = stateListener;
+    }
+
+    private void started(ProgramState program) {
+        StateListener listener = this.stateListener;
+        if (listener != null)
+            listener.programStarted(program);
+    }
+
+    private void finished(ProgramState program) {
+        program.getHeapTable().release(program.getAllocationBuffer());
+        StateListener listener = this.stateListener;
+        if (listener != null)
+            listener.programFinished(program);
+    }
+
+    private void reset() {
+        StateListener listener = this.stateListener;
+        if (listener != null)
+            listener.programsReset();
     }
 
     @Override
@@ -154,6 +489,72 @@ public class MultiThreadedController implements IController{
         this.displayFlag = displayFlag;
     }
 
+    public ExecutionEngine getExecutionEngine() {
+        return executionEngine;
+    }
+
+    public void setExecutionEngine(ExecutionEngine executionEngine) {
+        this.executionEngine = executionEngine;
+    }
+
+    public IGarbageCollector getGarbageCollector() {
+        return garbageCollector;
+    }
+
+    public void setGarbageCollector(IGarbageCollector garbageCollector) {
+        this.garbageCollector = garbageCollector;
+    }
+
+    public IGarbageCollectionPolicy getGarbageCollectionPolicy() {
+        return garbageCollectionPolicy;
+    }
+
+    public void setGarbageCollectionPolicy(IGarbageCollectionPolicy garbageCollectionPolicy) {
+        this.garbageCollectionPolicy = garbageCollectionPolicy;
+    }
+
+    public boolean isPrivateFileCursors() {
+        return privateFileCursors;
+    }
+
+    // with private cursors a forked program reads its files on without moving its parent
+    public void setPrivateFileCursors(boolean privateFileCursors) {
+        this.privateFileCursors = privateFileCursors;
+    }
+
+    public Supplier<OutputSink> getOutputSinkFactory() {
+        return outputSinkFactory;
+    }
+
+    // every new program's output streams to a sink from this factory, null keeps only the tail
+    public void setOutputSinkFactory(Supplier<OutputSink> outputSinkFactory) {
+        this.outputSinkFactory = outputSinkFactory;
+    }
+
+    public Supplier<IHeap> getHeapFactory() {
+        return heapFactory;
+    }
+
+    public void setHeapFactory(Supplier<IHeap> heapFactory) {
+        this.heapFactory = heapFactory;
+    }
+
+    public SchedulingMode getSchedulingMode() {
+        return schedulingMode;
+    }
+
+    public void setSchedulingMode(SchedulingMode schedulingMode) {
+        this.schedulingMode = schedulingMode;
+    }
+
+    public int getQuantum() {
+        return quantum;
+    }
+
+    public void setQuantum(int quantum) {
+        this.quantum = quantum;
+    }
+
     public IRepo getRepo() {
         return repo;
     }
@@ -0,0 +1,49 @@
+package controller;
+
+// Lets another thread pause or cancel a run. The run looks at it where every program is between two
+// steps, so a paused run can be inspected and a cancelled one stepped or run again from where it is.
+public class RunControl {
+    private boolean paused;
+    private boolean cancelled;
+
+    public synchronized void pause() {
+        paused = true;
+    }
+
+    public synchronized void resume() {
+        paused = false;
+        notifyAll();
+    }
+
+    public synchronized void cancel() {
+        cancelled = true;
+        notifyAll();
+    }
+
+    public synchronized boolean isPaused() {
+        return paused;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    // blocks while paused, false once the run has to stop
+    synchronized boolean proceed() {
+        while (paused && !cancelled) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+            }
+        }
+        return !cancelled;
+    }
+
+    // a pause or cancel only applies to the run it was made during
+    synchronized void clear() {
+        paused = false;
+        cancelled = false;
+    }
+}
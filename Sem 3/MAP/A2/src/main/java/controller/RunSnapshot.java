@@ -0,0 +1,41 @@
+package controller;
+
+// The counters of a run at one safepoint, published so other threads can show progress without
+// touching the programs
+public class RunSnapshot {
+    private final long steps;
+    private final int programs;
+    private final int heapCells;
+    private final long nanoTime;
+
+    public RunSnapshot(long steps, int programs, int heapCells, long nanoTime) {
+        this.steps = steps;
+        this.programs = programs;
+        this.heapCells = heapCells;
+        this.nanoTime = nanoTime;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public int getPrograms() {
+        return programs;
+    }
+
+    public int getHeapCells() {
+        return heapCells;
+    }
+
+    public long getNanoTime() {
+        return nanoTime;
+    }
+
+    // steps per second between an earlier snapshot and this one
+    public double stepsPerSecondSince(RunSnapshot earlier) {
+        long nanos = nanoTime - earlier.nanoTime;
+        if (nanos <= 0)
+            return 0;
+        return (steps - earlier.steps) * 1e9 / nanos;
+    }
+}
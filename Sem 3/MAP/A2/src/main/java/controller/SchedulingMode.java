@@ -0,0 +1,7 @@
+package controller;
+
+public enum SchedulingMode {
+    LOCKSTEP,
+    WORK_STEALING,
+    VIRTUAL_THREADS
+}
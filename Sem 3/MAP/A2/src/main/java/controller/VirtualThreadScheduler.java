@@ -0,0 +1,148 @@
+package controller;
+
+import exception.InterpreterException;
+import model.ProgramState;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Runs every program on its own thread until it completes. Program threads hold the read side of the
+// safepoint lock while stepping, the supervisor takes the write side to reach a safepoint. A program
+// that fails stops the other programs of its run and is handed out by drainFailures.
+public class VirtualThreadScheduler {
+    public static final int DEFAULT_STEPS_PER_SLICE = 256;
+    public static final long DEFAULT_SAFEPOINT_INTERVAL_MILLIS = 50;
+
+    private final ThreadFactory threadFactory;
+    private final int stepsPerSlice;
+    private final long safepointIntervalMillis;
+
+    private final ReentrantReadWriteLock safepointLock = new ReentrantReadWriteLock();
+    private final Object monitor = new Object();
+    private final AtomicInteger running = new AtomicInteger(0);
+    private final ConcurrentLinkedQueue<ProgramState> spawned = new ConcurrentLinkedQueue<>();
+    private final Map<ProgramState, Throwable> failures = new ConcurrentHashMap<>();
+    private final Set<Integer> failedRuns = ConcurrentHashMap.newKeySet();
+    // set when the supervisor itself is interrupted, stops every program
+    private volatile Throwable failure;
+    private volatile boolean stopped;
+
+    public VirtualThreadScheduler(ThreadFactory threadFactory, int stepsPerSlice, long safepointIntervalMillis) {
+        if (stepsPerSlice <= 0 || safepointIntervalMillis <= 0)
+            throw new IllegalArgumentException("Invalid scheduler parameters");
+        this.threadFactory = threadFactory;
+        this.stepsPerSlice = stepsPerSlice;
+        this.safepointIntervalMillis = safepointIntervalMillis;
+    }
+
+    public VirtualThreadScheduler() {
+        this(defaultThreadFactory(), DEFAULT_STEPS_PER_SLICE, DEFAULT_SAFEPOINT_INTERVAL_MILLIS);
+    }
+
+    // safepoint receives the programs forked since the previous safepoint
+    public void run(List<ProgramState> programs, Consumer<List<ProgramState>> safepoint) throws InterpreterException {
+        new ArrayList<>(programs).forEach(this::start);
+        boolean finished = false;
+        while (!finished) {
+            synchronized (monitor) {
+                if (running.get() > 0 && failure == null) {
+                    try {
+                        monitor.wait(safepointIntervalMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        failure = e;
+                    }
+                }
+            }
+            finished = running.get() == 0 || failure != null;
+            safepointLock.writeLock().lock();
+            try {
+                List<ProgramState> forked = new ArrayList<>();
+                ProgramState program;
+                while ((program = spawned.poll()) != null)
+                    forked.add(program);
+                safepoint.accept(forked);
+            } finally {
+                safepointLock.writeLock().unlock();
+            }
+        }
+        if (failure != null)
+            throw new InterpreterException("Program execution stopped, error:" + failure.getMessage());
+    }
+
+    private void start(ProgramState program) {
+        running.incrementAndGet();
+        Thread thread = threadFactory.newThread(() -> runProgram(program));
+        thread.start();
+    }
+
+    private void runProgram(ProgramState program) {
+        try {
+            while (program.isNotCompletedYet() && failure == null && !stopped && !failedRuns.contains(program.getRunId())) {
+                safepointLock.readLock().lock();
+                try {
+                    for (int step = 0; step < stepsPerSlice && program.isNotCompletedYet() && !stopped; step++) {
+                        ProgramState child = program.oneStep();
+                        if (child != null) {
+                            spawned.add(child);
+                            start(child);
+                        }
+                    }
+                } finally {
+                    safepointLock.readLock().unlock();
+                }
+            }
+        } catch (Throwable e) {
+            failures.put(program, e);
+            failedRuns.add(program.getRunId());
+        } finally {
+            if (running.decrementAndGet() == 0 || failure != null || !failures.isEmpty()) {
+                synchronized (monitor) {
+                    monitor.notifyAll();
+                }
+            }
+        }
+    }
+
+    // every program stops after its current step and is left as it is, run returns once they all did
+    public void stop() {
+        stopped = true;
+    }
+
+    // the programs that failed since the last call, meant to be called from the safepoint callback
+    public Map<ProgramState, Throwable> drainFailures() {
+        Map<ProgramState, Throwable> drained = new HashMap<>();
+        for (ProgramState program : new ArrayList<>(failures.keySet())) {
+            Throwable error = failures.remove(program);
+            if (error != null)
+                drained.put(program, error);
+        }
+        return drained;
+    }
+
+    // virtual threads when the runtime has them (Java 21+), daemon platform threads otherwise
+    public static ThreadFactory defaultThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger counter = new AtomicInteger(0);
+            return runnable -> {
+                Thread thread = new Thread(runnable, "program-thread-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package controller;
+
+import exception.InterpreterException;
+import model.ProgramState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+// Runs every program for up to a quantum of steps on a ForkJoinPool. Forked programs are pushed
+// on the worker's own deque so idle workers can steal them. The end of an epoch is a safepoint.
+public class WorkStealingScheduler {
+    public static final int DEFAULT_QUANTUM = 1000;
+
+    private final ForkJoinPool pool;
+    private final int quantum;
+
+    public WorkStealingScheduler(ForkJoinPool pool, int quantum) {
+        if (quantum <= 0)
+            throw new IllegalArgumentException("Quantum must be positive");
+        this.pool = pool;
+        this.quantum = quantum;
+    }
+
+    public WorkStealingScheduler(ForkJoinPool pool) {
+        this(pool, DEFAULT_QUANTUM);
+    }
+
+    public int getQuantum() {
+        return quantum;
+    }
+
+    // returns the programs forked during the epoch. A program that fails is put in failures and
+    // stops every program of its run, the other runs finish their quantum.
+    public List<ProgramState> runEpoch(List<ProgramState> programs, Map<ProgramState, Throwable> failures) throws InterpreterException {
+        ConcurrentLinkedQueue<ProgramState> spawned = new ConcurrentLinkedQueue<>();
+        Epoch epoch = new Epoch(spawned);
+        List<QuantumTask> tasks = new ArrayList<>();
+        programs.forEach(program -> tasks.add(new QuantumTask(program, epoch)));
+        try {
+            this.pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(tasks);
+                }
+            });
+        } catch (RuntimeException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new InterpreterException("Program execution stopped, error:" + cause.getMessage());
+        }
+        failures.putAll(epoch.failures);
+        return new ArrayList<>(spawned);
+    }
+
+    private static class Epoch {
+        final ConcurrentLinkedQueue<ProgramState> spawned;
+        final Map<ProgramState, Throwable> failures = new ConcurrentHashMap<>();
+        final Set<Integer> failedRuns = ConcurrentHashMap.newKeySet();
+
+        Epoch(ConcurrentLinkedQueue<ProgramState> spawned) {
+            this.spawned = spawned;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private class QuantumTask extends RecursiveAction {
+        private final ProgramState program;
+        private final Epoch epoch;
+
+        QuantumTask(ProgramState program, Epoch epoch) {
+            this.program = program;
+            this.epoch = epoch;
+        }
+
+        @Override
+        protected void compute() {
+            List<QuantumTask> children = new ArrayList<>();
+            try {
+                for (int step = 0; step < quantum && program.isNotCompletedYet() && !epoch.failedRuns.contains(program.getRunId()); step++) {
+                    ProgramState child = program.oneStep();
+                    if (child != null) {
+                        epoch.spawned.add(child);
+                        QuantumTask childTask = new QuantumTask(child, epoch);
+                        childTask.fork();
+                        children.add(childTask);
+                    }
+                }
+            } catch (Exception e) {
+                epoch.failures.put(program, e);
+                epoch.failedRuns.add(program.getRunId());
+            }
+            children.forEach(ForkJoinTask::join);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package exception;
+
+public class CheckpointException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public CheckpointException(String message) {
+        super(message);
+    }
+}
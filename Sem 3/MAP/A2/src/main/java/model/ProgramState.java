@@ -3,6 +3,8 @@ package model;
 import exception.AdtException;
 import exception.ExecutionException;
 import exception.ExpressionException;
+import model.adts.SlotTable;
+import model.bytecode.VirtualMachine;
 import model.programStateComponents.*;
 import model.statement.IStatement;
 
@@ -14,8 +16,18 @@ public class ProgramState {
     FileTable fileTable;
     IHeap heapTable;
     IStatement originalProgram;
+    VirtualMachine virtualMachine;
+    AllocationBuffer allocationBuffer = new AllocationBuffer();
+    // where the type checker put the variables of the program, shared with its forks and their
+    // symbol tables
+    SlotTable slots = SlotTable.EMPTY;
     int id;
+    // steps this program took, a fork starts counting from zero
+    long steps;
+    // programs forked from the same program belong to its run and share its heap, output and files
+    int runId;
     static int nextID = 0;
+    static int nextRunID = 0;
 
     public ProgramState(IExecutionStack executionStack,ISymbolTable symTable,IOutput output,IFileTable fileTable,IHeap heap,IStatement statement){
         synchronized (ProgramState.class){
@@ -30,12 +42,26 @@ public class ProgramState {
         this.originalProgram = statement;
         this.executionStack.push(statement);
     }
+
+    public ProgramState(IExecutionStack executionStack,ISymbolTable symTable,IOutput output,IFileTable fileTable,IHeap heap,IStatement statement,VirtualMachine virtualMachine){
+        synchronized (ProgramState.class){
+            this.id = nextID++;
+        }
+
+        this.executionStack = (ExecutionStack) executionStack;
+        this.symbolTable = (SymbolTable) symTable;
+        this.output = (Output) output;
+        this.fileTable = (FileTable) fileTable;
+        this.heapTable = heap;
+        this.originalProgram = statement;
+        this.virtualMachine = virtualMachine;
+    }
     public ProgramState(){}
 
     @Override
     public String toString() {
-        return "ProgramState(id= " + id + "){"+
-                "executionStack=" + executionStack.toString() +
+        return "ProgramState(id= " + id + ", run= " + runId + "){"+
+                (virtualMachine == null ? "executionStack=" + executionStack.toString() : "vm=" + virtualMachine.toString()) +
                 "; symbolTable=" + symbolTable.toString() +
                 "; output=" + output.toString() +
                 "; fileTable=" + fileTable.toString() +
@@ -44,10 +70,15 @@ public class ProgramState {
     }
 
     public boolean isNotCompletedYet(){
+        if(virtualMachine != null)
+            return !virtualMachine.isHalted();
         return !executionStack.isEmpty();
     }
 
     public ProgramState oneStep() throws AdtException, ExpressionException, ExecutionException {
+        steps++;
+        if(virtualMachine != null)
+            return virtualMachine.step(this);
         if(executionStack.isEmpty())
             throw new ExecutionException("Execution stack is empty");
         IStatement currentStatement = executionStack.pop();
@@ -67,6 +98,24 @@ public class ProgramState {
         this.executionStack = executionStack;
     }
 
+    public VirtualMachine getVirtualMachine() {
+        return virtualMachine;
+    }
+
+    public AllocationBuffer getAllocationBuffer() {
+        return allocationBuffer;
+    }
+
+    public SlotTable getSlots() {
+        return slots;
+    }
+
+    // the table the program was resolved with, see SlotResolver
+    public void setSlots(SlotTable slots) {
+        this.slots = slots;
+        symbolTable.setSlots(slots);
+    }
+
     public SymbolTable getSymbolTable() {
         return symbolTable;
     }
@@ -107,6 +156,10 @@ public class ProgramState {
         this.originalProgram = originalProgram;
     }
 
+    public long getSteps() {
+        return steps;
+    }
+
     public int getId() {
         return id;
     }
@@ -115,6 +168,26 @@ public class ProgramState {
         this.id = id;
     }
 
+    public int getRunId() {
+        return runId;
+    }
+
+    public void setRunId(int runId) {
+        this.runId = runId;
+    }
+
+    public static synchronized int newRunID() {
+        return nextRunID++;
+    }
+
+    public static synchronized int getNextRunID() {
+        return nextRunID;
+    }
+
+    public static synchronized void setNextRunID(int nextRunID) {
+        ProgramState.nextRunID = nextRunID;
+    }
+
     public static int getNextID() {
         return nextID;
     }
@@ -53,11 +53,11 @@ public class ConcurentMyDictionary<K,V> implements MyIDictionary<K,V>{
 
     @Override
     public String toString() {
-        String outS = "";
+        StringBuilder outS = new StringBuilder();
         for (K key : dict.keySet()) {
-            outS = outS + key.toString() + " --> " + dict.get(key).toString() + "|";
+            outS.append(key.toString()).append(" --> ").append(dict.get(key).toString()).append("|");
         }
-        return outS;
+        return outS.toString();
     }
 
     public List<K> getKeys() {
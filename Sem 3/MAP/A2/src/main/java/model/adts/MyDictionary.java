@@ -47,11 +47,11 @@ public class MyDictionary<K,V> implements MyIDictionary<K,V> {
 
     @Override
     public String toString() {
-        String outS = "";
+        StringBuilder outS = new StringBuilder();
         for (K key : dict.keySet()) {
-            outS = outS + key.toString() + " --> " + dict.get(key).toString() + "|";
+            outS.append(key.toString()).append(" --> ").append(dict.get(key).toString()).append("|");
         }
-        return outS;
+        return outS.toString();
     }
 
     @Override
@@ -37,11 +37,11 @@ public class MyList <T> implements MyIList<T> {
 
     @Override
     public String toString() {
-        String outStr = "";
+        StringBuilder outStr = new StringBuilder();
         for (T el : list) {
-            outStr = outStr + el.toString() + "|";
+            outStr.append(el.toString()).append("|");
         }
-        return outStr;
+        return outStr.toString();
     }
 
     protected List<T> getList() {
@@ -39,11 +39,11 @@ public class MyStack<T> implements MyIStack<T>{
 
     @Override
     public String toString() {
-        String outS = "";
+        StringBuilder outS = new StringBuilder();
         for (T el : stack) {
-            outS = outS + el.toString() + "|";
+            outS.append(el.toString()).append("|");
         }
-        return outS;
+        return outS.toString();
     }
 
     protected List<T> getList() {
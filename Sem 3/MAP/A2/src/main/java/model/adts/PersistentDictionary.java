@@ -0,0 +1,344 @@
+package model.adts;
+
+import exception.AdtException;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// Hash array mapped trie. Nodes are never modified, a write copies only the path to the changed
+// entry, so copy() is O(1) and the copies share everything neither side has written since.
+public class PersistentDictionary<K,V> implements MyIDictionary<K,V> {
+    private Node root;
+    private int size;
+
+    public PersistentDictionary() {
+        this.root = BitmapNode.EMPTY;
+        this.size = 0;
+    }
+
+    private PersistentDictionary(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    // shares the contents of other, like copy() does
+    protected PersistentDictionary(PersistentDictionary<K,V> other) {
+        this(other.root, other.size);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private Entry find(K key) {
+        return root.find(key, hash(key), 0);
+    }
+
+    private void store(K key, V value) {
+        boolean[] added = new boolean[1];
+        root = root.put(new Entry(key, value, hash(key)), 0, added);
+        if (added[0])
+            size++;
+    }
+
+    @Override
+    public void put(K key, V value) throws AdtException {
+        if (find(key) != null)
+            throw new AdtException("Key already exists in dictionary");
+        store(key, value);
+    }
+
+    @Override
+    public void give(K key, V value) throws AdtException {
+        if (find(key) == null)
+            throw new AdtException("Key not found in dictionary");
+        store(key, value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V lookup(K key) throws AdtException {
+        Entry entry = find(key);
+        if (entry == null)
+            throw new AdtException("Key not found in dictionary");
+        return (V) entry.value;
+    }
+
+    // null when the key is absent
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        Entry entry = find(key);
+        return entry == null ? null : (V) entry.value;
+    }
+
+    @Override
+    public boolean isDefined(K id) {
+        return find(id) != null;
+    }
+
+    @Override
+    public void remove(K key) {
+        Node newRoot = root.remove(key, hash(key), 0);
+        if (newRoot != root) {
+            root = newRoot;
+            size--;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach((key, value) -> action.accept((K) key, (V) value));
+    }
+
+    // a snapshot, later writes to the dictionary do not show up in it
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<K, V> toMap() {
+        Map<K, V> map = new LinkedHashMap<>();
+        root.forEach((key, value) -> map.put((K) key, (V) value));
+        return map;
+    }
+
+    public PersistentDictionary<K,V> copy() {
+        return new PersistentDictionary<>(root, size);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder outS = new StringBuilder();
+        root.forEach((key, value) -> outS.append(key.toString()).append(" --> ").append(value.toString()).append("|"));
+        return outS.toString();
+    }
+
+    private static final class Entry {
+        final Object key;
+        final Object value;
+        final int hash;
+
+        Entry(Object key, Object value, int hash) {
+            this.key = key;
+            this.value = value;
+            this.hash = hash;
+        }
+    }
+
+    private abstract static class Node {
+        abstract Entry find(Object key, int hash, int shift);
+
+        // returns this when nothing changed
+        abstract Node put(Entry entry, int shift, boolean[] added);
+
+        // returns this when the key is absent
+        abstract Node remove(Object key, int hash, int shift);
+
+        abstract boolean isEmpty();
+
+        abstract void forEach(BiConsumer<Object, Object> action);
+    }
+
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        // every element is either an Entry or a child Node
+        final Object[] children;
+
+        BitmapNode(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & 31);
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Entry find(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0)
+                return null;
+            Object child = children[index(bit)];
+            if (child instanceof Entry) {
+                Entry entry = (Entry) child;
+                return entry.hash == hash && entry.key.equals(key) ? entry : null;
+            }
+            return ((Node) child).find(key, hash, shift + 5);
+        }
+
+        @Override
+        Node put(Entry entry, int shift, boolean[] added) {
+            int bit = bit(entry.hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] newChildren = new Object[children.length + 1];
+                System.arraycopy(children, 0, newChildren, 0, index);
+                newChildren[index] = entry;
+                System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newChildren);
+            }
+            Object child = children[index];
+            Object newChild;
+            if (child instanceof Entry) {
+                Entry existing = (Entry) child;
+                if (existing.hash == entry.hash && existing.key.equals(entry.key)) {
+                    if (existing.value == entry.value)
+                        return this;
+                    newChild = entry;
+                } else {
+                    newChild = merge(existing, entry, shift + 5);
+                    added[0] = true;
+                }
+            } else {
+                newChild = ((Node) child).put(entry, shift + 5, added);
+                if (newChild == child)
+                    return this;
+            }
+            Object[] newChildren = children.clone();
+            newChildren[index] = newChild;
+            return new BitmapNode(bitmap, newChildren);
+        }
+
+        static Node merge(Entry first, Entry second, int shift) {
+            if (first.hash == second.hash || shift >= 32)
+                return new CollisionNode(first.hash, new Entry[]{first, second});
+            int firstBit = bit(first.hash, shift);
+            int secondBit = bit(second.hash, shift);
+            if (firstBit == secondBit)
+                return new BitmapNode(firstBit, new Object[]{merge(first, second, shift + 5)});
+            if (Integer.compareUnsigned(firstBit, secondBit) < 0)
+                return new BitmapNode(firstBit | secondBit, new Object[]{first, second});
+            return new BitmapNode(firstBit | secondBit, new Object[]{second, first});
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0)
+                return this;
+            int index = index(bit);
+            Object child = children[index];
+            if (child instanceof Entry) {
+                Entry entry = (Entry) child;
+                if (entry.hash != hash || !entry.key.equals(key))
+                    return this;
+                return without(bit, index);
+            }
+            Node newChild = ((Node) child).remove(key, hash, shift + 5);
+            if (newChild == child)
+                return this;
+            if (newChild.isEmpty())
+                return without(bit, index);
+            Object[] newChildren = children.clone();
+            newChildren[index] = newChild;
+            return new BitmapNode(bitmap, newChildren);
+        }
+
+        private Node without(int bit, int index) {
+            if (children.length == 1)
+                return EMPTY;
+            Object[] newChildren = new Object[children.length - 1];
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            return new BitmapNode(bitmap & ~bit, newChildren);
+        }
+
+        @Override
+        boolean isEmpty() {
+            return bitmap == 0;
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (Object child : children) {
+                if (child instanceof Entry)
+                    action.accept(((Entry) child).key, ((Entry) child).value);
+                else
+                    ((Node) child).forEach(action);
+            }
+        }
+    }
+
+    // entries whose full 32 bit hashes are equal
+    private static final class CollisionNode extends Node {
+        final int hash;
+        final Entry[] entries;
+
+        CollisionNode(int hash, Entry[] entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].key.equals(key))
+                    return i;
+            }
+            return -1;
+        }
+
+        @Override
+        Entry find(Object key, int hash, int shift) {
+            if (hash != this.hash)
+                return null;
+            int index = indexOf(key);
+            return index < 0 ? null : entries[index];
+        }
+
+        @Override
+        Node put(Entry entry, int shift, boolean[] added) {
+            if (entry.hash != hash)
+                return new BitmapNode(BitmapNode.bit(hash, shift), new Object[]{this}).put(entry, shift, added);
+            int index = indexOf(entry.key);
+            Entry[] newEntries;
+            if (index < 0) {
+                newEntries = Arrays.copyOf(entries, entries.length + 1);
+                newEntries[entries.length] = entry;
+                added[0] = true;
+            } else {
+                if (entries[index].value == entry.value)
+                    return this;
+                newEntries = entries.clone();
+                newEntries[index] = entry;
+            }
+            return new CollisionNode(hash, newEntries);
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift) {
+            if (hash != this.hash)
+                return this;
+            int index = indexOf(key);
+            if (index < 0)
+                return this;
+            if (entries.length == 1)
+                return BitmapNode.EMPTY;
+            Entry[] newEntries = new Entry[entries.length - 1];
+            System.arraycopy(entries, 0, newEntries, 0, index);
+            System.arraycopy(entries, index + 1, newEntries, index, entries.length - index - 1);
+            return new CollisionNode(hash, newEntries);
+        }
+
+        @Override
+        boolean isEmpty() {
+            return entries.length == 0;
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (Entry entry : entries)
+                action.accept(entry.key, entry.value);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package model.adts;
+
+// The symbol table slot of every variable of a program, filled in while the program is type
+// checked. A name gets one slot for the whole program however many scopes declare it, so a second
+// declaration meets the first in the same slot. Kept next to the program instead of in its nodes,
+// a tree shared by several programs, or checked by several threads at once, resolves separately
+// for each of them.
+public class SlotTable {
+    // for programs that were not type checked, their variables are looked up by name
+    public static final SlotTable EMPTY = new SlotTable();
+
+    // open addressing on the hash of the name
+    private String[] names = new String[16];
+    private int[] slots = new int[16];
+    // the names again, by slot
+    private String[] slotNames = new String[8];
+    private int slotCount;
+
+    public int slotOf(String name) {
+        int mask = names.length - 1;
+        for (int index = name.hashCode() & mask; ; index = (index + 1) & mask) {
+            String found = names[index];
+            if (found == null)
+                return -1;
+            if (found == name || found.equals(name))
+                return slots[index];
+        }
+    }
+
+    // the slot of the name, a new one the first time it is asked for
+    int slotFor(String name) {
+        int slot = slotOf(name);
+        if (slot >= 0)
+            return slot;
+        if (this == EMPTY)
+            throw new IllegalStateException("The empty slot table cannot be changed");
+        slot = slotCount++;
+        if (slot == slotNames.length) {
+            String[] grown = new String[slotNames.length * 2];
+            System.arraycopy(slotNames, 0, grown, 0, slot);
+            slotNames = grown;
+        }
+        slotNames[slot] = name;
+        if (slotCount * 2 > names.length) {
+            names = new String[names.length * 2];
+            slots = new int[names.length];
+            for (int i = 0; i < slot; i++)
+                insert(slotNames[i], i);
+        }
+        insert(name, slot);
+        return slot;
+    }
+
+    private void insert(String name, int slot) {
+        int mask = names.length - 1;
+        int index = name.hashCode() & mask;
+        while (names[index] != null)
+            index = (index + 1) & mask;
+        names[index] = name;
+        slots[index] = slot;
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public String getName(int slot) {
+        return slotNames[slot];
+    }
+
+    // the table of a checkpointed program, its names given in slot order
+    public static SlotTable of(String... names) {
+        SlotTable table = new SlotTable();
+        for (String name : names)
+            table.slotFor(name);
+        return table;
+    }
+}
@@ -0,0 +1,71 @@
+package model.adts;
+
+import exception.AdtException;
+import model.type.IType;
+
+import java.util.Map;
+
+// Stored in persistent dictionaries instead of the inherited map, so the copy made for every
+// fork and nested scope during type checking is O(1).
+public class TypeEnvironment extends MyDictionary<String, IType> {
+    private final PersistentDictionary<String, IType> types;
+    // shared by every copy, the slots of a program do not depend on the scope that declares them
+    private final SlotTable slots;
+
+    public TypeEnvironment() {
+        super();
+        this.types = new PersistentDictionary<>();
+        this.slots = new SlotTable();
+    }
+
+    private TypeEnvironment(TypeEnvironment other) {
+        super();
+        this.types = other.types.copy();
+        this.slots = other.slots;
+    }
+
+    @Override
+    public void put(String key, IType value) throws AdtException {
+        types.put(key, value);
+        slots.slotFor(key);
+    }
+
+    @Override
+    public void give(String key, IType value) throws AdtException {
+        types.give(key, value);
+    }
+
+    @Override
+    public IType lookup(String key) throws AdtException {
+        return types.lookup(key);
+    }
+
+    @Override
+    public boolean isDefined(String id) {
+        return types.isDefined(id);
+    }
+
+    @Override
+    public void remove(String key) {
+        types.remove(key);
+    }
+
+    @Override
+    public Map<String, IType> toMap() {
+        return types.toMap();
+    }
+
+    @Override
+    public String toString() {
+        return types.toString();
+    }
+
+    public SlotTable getSlots() {
+        return slots;
+    }
+
+    @Override
+    public TypeEnvironment copy() {
+        return new TypeEnvironment(this);
+    }
+}
@@ -0,0 +1,55 @@
+package model.bytecode;
+
+import model.expresion.IExpression;
+import model.statement.IStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BytecodeCompiler {
+    private final List<Instruction> code = new ArrayList<>();
+
+    public static Instruction[] compile(IStatement program) {
+        BytecodeCompiler compiler = new BytecodeCompiler();
+        program.compile(compiler);
+        return compiler.code.toArray(new Instruction[0]);
+    }
+
+    public int emit(Instruction instruction) {
+        code.add(instruction);
+        return code.size() - 1;
+    }
+
+    public int position() {
+        return code.size();
+    }
+
+    public void emitStatement(IStatement statement) {
+        emit(new ExecuteInstruction(statement));
+    }
+
+    public void emitIf(IExpression condition, IStatement thenS, IStatement elseS) {
+        ConditionalJumpInstruction toElse = new ConditionalJumpInstruction(condition, false, -1);
+        emit(toElse);
+        thenS.compile(this);
+        JumpInstruction toEnd = new JumpInstruction(-1);
+        emit(toEnd);
+        toElse.setTarget(position());
+        elseS.compile(this);
+        toEnd.setTarget(position());
+    }
+
+    // the condition is placed after the body so one iteration costs a single jump
+    public void emitWhile(IExpression condition, IStatement body) {
+        JumpInstruction toCondition = new JumpInstruction(-1);
+        emit(toCondition);
+        int bodyStart = position();
+        body.compile(this);
+        toCondition.setTarget(position());
+        emit(new ConditionalJumpInstruction(condition, true, bodyStart));
+    }
+
+    public void emitFork(IStatement innerStatement) {
+        emit(new ForkInstruction(innerStatement, compile(innerStatement)));
+    }
+}
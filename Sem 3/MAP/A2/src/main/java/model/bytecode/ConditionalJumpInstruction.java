@@ -0,0 +1,46 @@
+package model.bytecode;
+
+import exception.AdtException;
+import exception.ExecutionException;
+import exception.ExpressionException;
+import model.ProgramState;
+import model.expresion.IExpression;
+import model.type.BoolType;
+import model.values.BoolValue;
+import model.values.IValue;
+import model.values.ValueCollector;
+
+public class ConditionalJumpInstruction extends JumpInstruction {
+    IExpression condition;
+    boolean jumpWhen;
+
+    public ConditionalJumpInstruction(IExpression condition, boolean jumpWhen, int target) {
+        super(target);
+        this.condition = condition;
+        this.jumpWhen = jumpWhen;
+    }
+
+    @Override
+    public ProgramState execute(VirtualMachine vm, ProgramState state) throws ExpressionException, AdtException, ExecutionException {
+        IValue value = condition.evaluate(state);
+        if (!(value.getType() instanceof BoolType))
+            throw new ExecutionException("Condition " + condition + " should evaluate to a Boolean Type");
+        if (((BoolValue) value).getVal() == jumpWhen)
+            vm.jump(target);
+        return null;
+    }
+
+    public IExpression getCondition() {
+        return condition;
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        condition.collectValues(collector);
+    }
+
+    @Override
+    public String toString() {
+        return (jumpWhen ? "JT " : "JF ") + condition.toString() + " -> " + target;
+    }
+}
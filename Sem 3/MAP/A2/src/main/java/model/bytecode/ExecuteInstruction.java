@@ -0,0 +1,35 @@
+package model.bytecode;
+
+import exception.AdtException;
+import exception.ExecutionException;
+import exception.ExpressionException;
+import model.ProgramState;
+import model.statement.IStatement;
+import model.values.ValueCollector;
+
+public class ExecuteInstruction implements Instruction {
+    IStatement statement;
+
+    public ExecuteInstruction(IStatement statement) {
+        this.statement = statement;
+    }
+
+    @Override
+    public ProgramState execute(VirtualMachine vm, ProgramState state) throws ExpressionException, AdtException, ExecutionException {
+        return statement.execute(state);
+    }
+
+    public IStatement getStatement() {
+        return statement;
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        collector.statement(statement);
+    }
+
+    @Override
+    public String toString() {
+        return "EXEC " + statement.toString();
+    }
+}
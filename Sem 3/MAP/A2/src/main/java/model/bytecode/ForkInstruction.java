@@ -0,0 +1,39 @@
+package model.bytecode;
+
+import model.ProgramState;
+import model.programStateComponents.ExecutionStack;
+import model.statement.IStatement;
+import model.values.ValueCollector;
+
+public class ForkInstruction implements Instruction {
+    IStatement innerStatement;
+    Instruction[] code;
+
+    public ForkInstruction(IStatement innerStatement, Instruction[] code) {
+        this.innerStatement = innerStatement;
+        this.code = code;
+    }
+
+    @Override
+    public ProgramState execute(VirtualMachine vm, ProgramState state) {
+        ProgramState child = new ProgramState(new ExecutionStack(), state.getSymbolTable().copy(), state.getOutput(), state.getFileTable().fork(),
+                state.getHeapTable(), innerStatement, new VirtualMachine(code));
+        child.setSlots(state.getSlots());
+        child.setRunId(state.getRunId());
+        return child;
+    }
+
+    public Instruction[] getCode() {
+        return code;
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        collector.statement(innerStatement);
+    }
+
+    @Override
+    public String toString() {
+        return "FORK[" + code.length + "] " + innerStatement.toString();
+    }
+}
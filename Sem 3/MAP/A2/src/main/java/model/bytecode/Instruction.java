@@ -0,0 +1,16 @@
+package model.bytecode;
+
+import exception.AdtException;
+import exception.ExecutionException;
+import exception.ExpressionException;
+import model.ProgramState;
+import model.values.ValueCollector;
+
+public interface Instruction {
+    ProgramState execute(VirtualMachine vm, ProgramState state) throws ExpressionException, AdtException, ExecutionException;
+
+    default void collectValues(ValueCollector collector) {
+    }
+
+    String toString();
+}
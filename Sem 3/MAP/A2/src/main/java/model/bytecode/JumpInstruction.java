@@ -0,0 +1,29 @@
+package model.bytecode;
+
+import exception.AdtException;
+import exception.ExecutionException;
+import exception.ExpressionException;
+import model.ProgramState;
+
+public class JumpInstruction implements Instruction {
+    int target;
+
+    public JumpInstruction(int target) {
+        this.target = target;
+    }
+
+    @Override
+    public ProgramState execute(VirtualMachine vm, ProgramState state) throws ExpressionException, AdtException, ExecutionException {
+        vm.jump(target);
+        return null;
+    }
+
+    public void setTarget(int target) {
+        this.target = target;
+    }
+
+    @Override
+    public String toString() {
+        return "JMP " + target;
+    }
+}
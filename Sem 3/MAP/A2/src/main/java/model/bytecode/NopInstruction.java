@@ -0,0 +1,19 @@
+package model.bytecode;
+
+import exception.AdtException;
+import exception.ExecutionException;
+import exception.ExpressionException;
+import model.ProgramState;
+
+// takes a step like nop does on the execution stack, so both engines count the same steps
+public class NopInstruction implements Instruction {
+    @Override
+    public ProgramState execute(VirtualMachine vm, ProgramState state) throws ExpressionException, AdtException, ExecutionException {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "NOP";
+    }
+}
@@ -0,0 +1,46 @@
+package model.bytecode;
+
+import exception.AdtException;
+import exception.ExecutionException;
+import exception.ExpressionException;
+import model.ProgramState;
+
+public class VirtualMachine {
+    Instruction[] code;
+    int pc;
+
+    public VirtualMachine(Instruction[] code) {
+        this.code = code;
+        this.pc = 0;
+    }
+
+    public ProgramState step(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
+        if (isHalted())
+            throw new ExecutionException("Program counter out of bounds");
+        Instruction instruction = code[pc++];
+        return instruction.execute(this, state);
+    }
+
+    public void jump(int target) {
+        this.pc = target;
+    }
+
+    public boolean isHalted() {
+        return pc >= code.length;
+    }
+
+    public int getPc() {
+        return pc;
+    }
+
+    public Instruction[] getCode() {
+        return code;
+    }
+
+    @Override
+    public String toString() {
+        if (isHalted())
+            return "halted";
+        return "pc=" + pc + ": " + code[pc].toString();
+    }
+}
@@ -4,10 +4,13 @@ import exception.*;
 import model.ProgramState;
 import model.adts.MyDictionary;
 import model.programStateComponents.SymbolTable;
+import model.statement.NodeEncoder;
+import model.statement.SlotResolver;
 import model.type.IType;
 import model.type.IntType;
 import model.values.IValue;
 import model.values.IntValue;
+import model.values.ValueCollector;
 
 public class ArithmeticExpression implements IExpression {
     IExpression exp1, exp2;
@@ -21,37 +24,47 @@ public class ArithmeticExpression implements IExpression {
 
     @Override
     public IValue evaluate(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
-        SymbolTable table = state.getSymbolTable();
-        IValue v1, v2;
-        v1 = exp1.evaluate(state);
-        if(v1.getType().equals(new IntType())) {
-           v2 = exp2.evaluate(state);
-           if(v2.getType().equals(new IntType())){
-               IntValue i1 = (IntValue)v1;
-                IntValue i2 = (IntValue)v2;
-                int n1, n2;
-                n1 = i1.getVal();
-                n2 = i2.getVal();
-                switch(op){
-                    case 1:
-                        return new IntValue(n1+n2);
-                    case 2:
-                        return new IntValue(n1-n2);
-                    case 3:
-                        return new IntValue(n1*n2);
-                    case 4:
-                        if(n2 == 0)
-                            throw new DivisionByZeroException("Division by zero");
-                        return new IntValue(n1/n2);
-                    default:
-                        throw new ExpressionException("Invalid operation");
-                }
-           }
-              else
-                throw new ExpressionException("Second operand is not an integer");
+        return new IntValue(evaluateInt(state));
+    }
+
+    // the operands are worked out as ints too, only the value of the whole expression is boxed
+    @Override
+    public int evaluateInt(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
+        int n1, n2;
+        n1 = exp1.evaluateInt(state);
+        n2 = exp2.evaluateInt(state);
+        switch(op){
+            case 1:
+                return n1+n2;
+            case 2:
+                return n1-n2;
+            case 3:
+                return n1*n2;
+            case 4:
+                if(n2 == 0)
+                    throw new DivisionByZeroException("Division by zero");
+                return n1/n2;
+            default:
+                throw new ExpressionException("Invalid operation");
         }
-        else
-            throw new ExpressionException("First operand is not an integer");
+    }
+
+    @Override
+    public IExpression resolve(SlotResolver resolver) {
+        return new ArithmeticExpression(resolver.expression(exp1), resolver.expression(exp2), op);
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.expression(exp1);
+        encoder.expression(exp2);
+        encoder.number(op);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        exp1.collectValues(collector);
+        exp2.collectValues(collector);
     }
 
     @Override
@@ -7,11 +7,14 @@ import exception.ExecutionException;
 import exception.ExpressionException;
 import model.adts.MyDictionary;
 import model.programStateComponents.SymbolTable;
+import model.statement.NodeEncoder;
+import model.statement.SlotResolver;
 import model.type.IType;
 import model.type.IntType;
 import model.values.BoolValue;
 import model.values.IValue;
 import model.values.IntValue;
+import model.values.ValueCollector;
 
 public class ComparisonExpression implements IExpression {
     private final IExpression e1;
@@ -26,33 +29,28 @@ public class ComparisonExpression implements IExpression {
 
     @Override
     public IValue evaluate(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
-        SymbolTable table = state.getSymbolTable();
-        IValue v1=e1.evaluate(state);
-        IValue v2=e2.evaluate(state);
-        if(!v1.getType().equals(new IntType()) || !v2.getType().equals(new IntType()))
-            throw new ExpressionException("Both part of a comparison must be integer types");
-
-        IntValue iv1=(IntValue)v1;
-        IntValue iv2=(IntValue)v2;
+        // the operands are compared as ints, neither is boxed
+        int n1=e1.evaluateInt(state);
+        int n2=e2.evaluateInt(state);
         BoolValue result=new BoolValue(false);
         switch (op){
             case "<":
-                result=new BoolValue(iv1.getVal()<iv2.getVal());
+                result=new BoolValue(n1<n2);
                 break;
             case "<=":
-                result=new BoolValue(iv1.getVal()<=iv2.getVal());
+                result=new BoolValue(n1<=n2);
                 break;
             case "==":
-                result=new BoolValue(iv1.getVal()==iv2.getVal());
+                result=new BoolValue(n1==n2);
                 break;
             case "!=":
-                result=new BoolValue(iv1.getVal()!=iv2.getVal());
+                result=new BoolValue(n1!=n2);
                 break;
             case ">":
-                result=new BoolValue(iv1.getVal()>iv2.getVal());
+                result=new BoolValue(n1>n2);
                 break;
             case ">=":
-                result=new BoolValue(iv1.getVal()>=iv2.getVal());
+                result=new BoolValue(n1>=n2);
                 break;
             default:
                 throw new ExpressionException("Invalid comparison operator");
@@ -60,6 +58,24 @@ public class ComparisonExpression implements IExpression {
         return result;
     }
 
+    @Override
+    public IExpression resolve(SlotResolver resolver) {
+        return new ComparisonExpression(resolver.expression(e1), resolver.expression(e2), op);
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.expression(e1);
+        encoder.expression(e2);
+        encoder.name(op);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        e1.collectValues(collector);
+        e2.collectValues(collector);
+    }
+
     @Override
     public String toString() {
         return e1.toString() + " " + op + " " + e2.toString();
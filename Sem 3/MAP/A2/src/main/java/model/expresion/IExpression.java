@@ -7,9 +7,32 @@ import exception.ExpressionException;
 import model.adts.MyDictionary;
 import model.type.IType;
 import model.values.IValue;
+import model.values.IntValue;
+import model.values.ValueCollector;
 import exception.TypeNotMatchException;
+import model.statement.NodeEncoder;
+import model.statement.SlotResolver;
+
 public interface IExpression {
     IValue evaluate(ProgramState state) throws ExpressionException, AdtException, ExecutionException;
     String toString();
     IType typeCheck(MyDictionary<String,IType> typeEnv) throws TypeNotMatchException, AdtException;
+
+    void encode(NodeEncoder encoder);
+
+    // the value of an int expression as a plain int, the nodes that can work it out without
+    // building an IntValue do so
+    default int evaluateInt(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
+        IValue value = evaluate(state);
+        if (!(value instanceof IntValue))
+            throw new ExpressionException("Expression " + this + " is not an integer");
+        return ((IntValue) value).getVal();
+    }
+
+    default void collectValues(ValueCollector collector) {
+    }
+
+    default IExpression resolve(SlotResolver resolver) {
+        return this;
+    }
 }
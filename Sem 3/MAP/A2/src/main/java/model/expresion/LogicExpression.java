@@ -7,10 +7,13 @@ import exception.ExecutionException;
 import exception.ExpressionException;
 import model.adts.MyDictionary;
 import model.programStateComponents.SymbolTable;
+import model.statement.NodeEncoder;
+import model.statement.SlotResolver;
 import model.type.BoolType;
 import model.type.IType;
 import model.values.BoolValue;
 import model.values.IValue;
+import model.values.ValueCollector;
 
 public class LogicExpression implements IExpression{
     public LogicExpression(IExpression e1, IExpression e2, int op) {
@@ -71,6 +74,25 @@ public class LogicExpression implements IExpression{
 
     }
 
+    @Override
+    public IExpression resolve(SlotResolver resolver) {
+        return new LogicExpression(resolver.expression(e1), resolver.expression(e2), op);
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.expression(e1);
+        encoder.expression(e2);
+        encoder.number(op);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        e1.collectValues(collector);
+        if (e2 != null)
+            e2.collectValues(collector);
+    }
+
     @Override
     public String toString() {
         if(op == 1)
@@ -86,7 +108,8 @@ public class LogicExpression implements IExpression{
     @Override
     public IType typeCheck(MyDictionary<String, IType> typeEnv) throws TypeNotMatchException, AdtException {
         IType t1 = e1.typeCheck(typeEnv);
-        IType t2 = e2.typeCheck(typeEnv);
+        // a negation has no second operand
+        IType t2 = op == 3 ? t1 : e2.typeCheck(typeEnv);
         if(t1.equals(new BoolType()) && t2.equals(new BoolType()))
             return new BoolType();
         else
@@ -5,8 +5,11 @@ import exception.TypeNotMatchException;
 import model.ProgramState;
 import exception.ExpressionException;
 import model.adts.MyDictionary;
+import model.statement.NodeEncoder;
 import model.type.IType;
 import model.values.IValue;
+import model.values.IntValue;
+import model.values.ValueCollector;
 
 public class ValueExpression implements IExpression {
 
@@ -22,6 +25,23 @@ public class ValueExpression implements IExpression {
         return value;
     }
 
+    @Override
+    public int evaluateInt(ProgramState state) throws ExpressionException {
+        if (!(value instanceof IntValue))
+            throw new ExpressionException("Expression " + this + " is not an integer");
+        return ((IntValue) value).getVal();
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.value(value);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        collector.value(value);
+    }
+
     @Override
     public String toString() {
         return value.toString();
@@ -7,25 +7,50 @@ import exception.ExpressionException;
 import exception.VariableNotDefinedException;
 import model.adts.MyDictionary;
 import model.programStateComponents.SymbolTable;
+import model.statement.NodeEncoder;
+import model.statement.SlotResolver;
 import model.type.IType;
 import model.values.IValue;
 
 public class VariableExpression implements IExpression {
 
     String id;
+    // set in the copy SlotResolver makes, -1 for a variable looked up by name
+    final int slot;
 
     public VariableExpression(String id) {
+        this(id, -1);
+    }
+
+    private VariableExpression(String id, int slot) {
         this.id = id;
+        this.slot = slot;
     }
 
     @Override
     public IValue evaluate(ProgramState state) throws ExpressionException, AdtException {
         SymbolTable table = state.getSymbolTable();
+        if(slot >= 0){
+            IValue value = table.readSlot(slot);
+            if(value == null)
+                throw new VariableNotDefinedException("Variable " + id + " is not defined");
+            return value;
+        }
         if(!table.isDefined(id))
             throw new VariableNotDefinedException("Variable " + id + " is not defined");
         return table.lookup(id);
     }
 
+    @Override
+    public IExpression resolve(SlotResolver resolver) {
+        return new VariableExpression(id, resolver.slotOf(id));
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.name(id);
+    }
+
     @Override
     public String toString() {
         return id;
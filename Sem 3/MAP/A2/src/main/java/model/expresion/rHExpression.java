@@ -6,10 +6,13 @@ import exception.AdtException;
 import exception.ExecutionException;
 import exception.ExpressionException;
 import model.adts.MyDictionary;
+import model.statement.NodeEncoder;
+import model.statement.SlotResolver;
 import model.type.IType;
 import model.type.ReferenceType;
 import model.values.IValue;
 import model.values.ReferenceValue;
+import model.values.ValueCollector;
 
 public class rHExpression implements IExpression {
     IExpression expression;
@@ -20,11 +23,21 @@ public class rHExpression implements IExpression {
 
     @Override
     public IValue evaluate(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
+        return state.getHeapTable().read(address(state));
+    }
+
+    // an int cell read for arithmetic or a comparison is never boxed
+    @Override
+    public int evaluateInt(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
+        return state.getHeapTable().readInt(address(state));
+    }
+
+    private int address(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
         IValue value = expression.evaluate(state);
         if(!(value.getType() instanceof ReferenceType)){
             throw new ExecutionException("Heap should only be accessed through references");
         }
-        return state.getHeapTable().read(((ReferenceValue)value).getAddress());
+        return ((ReferenceValue) value).getAddress();
     }
 
     @Override
@@ -36,6 +49,21 @@ public class rHExpression implements IExpression {
         throw new TypeNotMatchException("rH argument should be a reference type");
     }
 
+    @Override
+    public IExpression resolve(SlotResolver resolver) {
+        return new rHExpression(resolver.expression(expression));
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.expression(expression);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        expression.collectValues(collector);
+    }
+
     @Override
     public String toString() {
         return "rH(" + expression.toString() + ")";
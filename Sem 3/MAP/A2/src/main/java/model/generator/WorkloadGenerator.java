@@ -0,0 +1,234 @@
+package model.generator;
+
+import model.expresion.ArithmeticExpression;
+import model.expresion.ComparisonExpression;
+import model.expresion.IExpression;
+import model.expresion.ValueExpression;
+import model.expresion.VariableExpression;
+import model.expresion.rHExpression;
+import model.statement.AsignStatement;
+import model.statement.BlockStatement;
+import model.statement.CloseReadFileStatement;
+import model.statement.CloseWriteFileStatement;
+import model.statement.ForkStatement;
+import model.statement.IStatement;
+import model.statement.IfStatement;
+import model.statement.NopStatement;
+import model.statement.OpenReadFileStatement;
+import model.statement.OpenWriteFileStatement;
+import model.statement.PrintStatement;
+import model.statement.ReadFileStatement;
+import model.statement.VariableDeclarationStatement;
+import model.statement.WriteFileStatement;
+import model.statement.newStatement;
+import model.statement.wHStatement;
+import model.statement.whileStatement;
+import model.type.IType;
+import model.type.IntType;
+import model.type.ReferenceType;
+import model.type.StringType;
+import model.values.IntValue;
+import model.values.StringValue;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Builds large type correct programs for stress runs. The shape of a program comes from its size
+// parameters, the seed only picks constants and the arithmetic done in loop bodies, so the same
+// seed and sizes always give the same program. Typecheck and running leave the tree as it is, so
+// a generated program can be loaded as often as needed.
+public class WorkloadGenerator {
+    public static final String DEFAULT_INPUT_FILE = "workload.in";
+    public static final String DEFAULT_OUTPUT_FILE = "workload.out";
+
+    private final long seed;
+    private final Random random;
+
+    public WorkloadGenerator(long seed) {
+        this.seed = seed;
+        this.random = new Random(seed);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // one size knob per kind, roughly proportional to the number of steps the program takes
+    public IStatement generate(WorkloadKind kind, int size) {
+        switch (kind) {
+            case DEEP_LOOPS:
+                return deepLoops(3, Math.max(1, (int) Math.cbrt(size)));
+            case ALLOCATION_CHAINS:
+                return allocationChains(16, Math.max(1, size / 16));
+            case FORK_FAN_OUT:
+                return forkFanOut(Math.max(1, (int) Math.sqrt(size)), Math.max(1, (int) Math.sqrt(size)));
+            case FILE_PIPELINE:
+                return filePipeline(DEFAULT_INPUT_FILE, DEFAULT_OUTPUT_FILE, 8, Math.max(1, size / 8));
+            default:
+                throw new IllegalArgumentException("Unknown workload " + kind);
+        }
+    }
+
+    // depth nested loops of iterations turns each, the innermost body mixes arithmetic on acc
+    public IStatement deepLoops(int depth, int iterations) {
+        List<IStatement> program = new ArrayList<>();
+        program.add(declare("acc", new IntType()));
+        for (int level = 0; level < depth; level++)
+            program.add(declare("i" + level, new IntType()));
+        IStatement body = arithmetic("acc", 4);
+        for (int level = depth - 1; level >= 0; level--) {
+            String counter = "i" + level;
+            body = sequence(
+                    assign(counter, constant(iterations)),
+                    new whileStatement(greaterThanZero(counter), sequence(body, decrement(counter))));
+        }
+        program.add(body);
+        program.add(new PrintStatement(variable("acc")));
+        return sequence(program);
+    }
+
+    // every round allocates a chain of length cells, each pointing at the one before it. The
+    // previous round's chain becomes garbage, so the collector keeps tracing chains of that length.
+    public IStatement allocationChains(int length, int rounds) {
+        List<IStatement> program = new ArrayList<>();
+        IType type = new IntType();
+        for (int link = 0; link < length; link++) {
+            type = new ReferenceType(type);
+            program.add(declare("c" + link, type));
+        }
+        program.add(declare("n", new IntType()));
+        List<IStatement> round = new ArrayList<>();
+        round.add(new newStatement("c0", variable("n")));
+        for (int link = 1; link < length; link++)
+            round.add(new newStatement("c" + link, variable("c" + (link - 1))));
+        round.add(new wHStatement(variable("c0"), new ArithmeticExpression(variable("n"), constant(randomConstant()), 1)));
+        round.add(decrement("n"));
+        program.add(assign("n", constant(rounds)));
+        program.add(new whileStatement(greaterThanZero("n"), sequence(round)));
+        IExpression deepest = variable("c" + (length - 1));
+        for (int link = 0; link < length; link++)
+            deepest = new rHExpression(deepest);
+        program.add(new PrintStatement(deepest));
+        return sequence(program);
+    }
+
+    // forks width programs that each run work turns of arithmetic and allocation on their own heap cell
+    public IStatement forkFanOut(int width, int work) {
+        IStatement worker = sequence(
+                declare("k", new IntType()),
+                declare("w", new IntType()),
+                declare("cell", new ReferenceType(new IntType())),
+                assign("w", variable("i")),
+                new newStatement("cell", variable("w")),
+                assign("k", constant(work)),
+                new whileStatement(greaterThanZero("k"), sequence(
+                        arithmetic("w", 2),
+                        new wHStatement(variable("cell"), variable("w")),
+                        decrement("k"))),
+                new PrintStatement(new rHExpression(variable("cell"))));
+        return sequence(
+                declare("i", new IntType()),
+                assign("i", constant(width)),
+                new whileStatement(greaterThanZero("i"), sequence(new ForkStatement(worker), decrement("i"))));
+    }
+
+    // readers forks share the input file and the output file, each reads items numbers, keeps a
+    // running total on the heap and writes every transformed number. writeInputFile makes a
+    // matching input.
+    public IStatement filePipeline(String inputFile, String outputFile, int readers, int items) {
+        IStatement reader = sequence(
+                declare("k", new IntType()),
+                declare("x", new IntType()),
+                declare("total", new ReferenceType(new IntType())),
+                new newStatement("total", constant(0)),
+                assign("k", constant(items)),
+                new whileStatement(greaterThanZero("k"), sequence(
+                        new ReadFileStatement(new VariableExpression("in"), "x"),
+                        arithmetic("x", 2),
+                        new wHStatement(variable("total"), new ArithmeticExpression(new rHExpression(variable("total")), variable("x"), 1)),
+                        new WriteFileStatement(variable("out"), variable("x")),
+                        decrement("k"))),
+                new PrintStatement(new rHExpression(variable("total"))));
+        return sequence(
+                declare("in", new StringType()),
+                declare("out", new StringType()),
+                declare("i", new IntType()),
+                assign("in", new ValueExpression(new StringValue(inputFile))),
+                assign("out", new ValueExpression(new StringValue(outputFile))),
+                new OpenReadFileStatement(variable("in")),
+                new OpenWriteFileStatement(variable("out")),
+                assign("i", constant(readers)),
+                new whileStatement(greaterThanZero("i"), sequence(new ForkStatement(reader), decrement("i"))),
+                new CloseReadFileStatement(variable("in")),
+                new CloseWriteFileStatement(variable("out")));
+    }
+
+    // count numbers between 0 and 999, one per line, drawn from this generator's seed
+    public void writeInputFile(String path, int count) throws IOException {
+        Random numbers = new Random(seed);
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(path))) {
+            for (int i = 0; i < count; i++) {
+                writer.write(Integer.toString(numbers.nextInt(1000)));
+                writer.newLine();
+            }
+        }
+    }
+
+    // operations steps on name, divided back down whenever it leaves -bound..bound so it never overflows
+    private IStatement arithmetic(String name, int operations) {
+        List<IStatement> steps = new ArrayList<>();
+        for (int i = 0; i < operations; i++) {
+            int operation = 1 + random.nextInt(4);
+            steps.add(assign(name, new ArithmeticExpression(variable(name), constant(randomConstant()), operation)));
+        }
+        int bound = 1000 + random.nextInt(9000);
+        IStatement shrink = assign(name, new ArithmeticExpression(variable(name), constant(bound), 4));
+        steps.add(new IfStatement(new ComparisonExpression(variable(name), constant(bound), ">"), shrink, new NopStatement()));
+        steps.add(new IfStatement(new ComparisonExpression(variable(name), constant(-bound), "<"), shrink, new NopStatement()));
+        return sequence(steps);
+    }
+
+    // never zero, so it can divide
+    private int randomConstant() {
+        return 1 + random.nextInt(9);
+    }
+
+    private static IStatement declare(String name, IType type) {
+        return new VariableDeclarationStatement(name, type);
+    }
+
+    private static IStatement assign(String name, IExpression expression) {
+        return new AsignStatement(name, expression);
+    }
+
+    private static IStatement decrement(String name) {
+        return assign(name, new ArithmeticExpression(variable(name), constant(1), 2));
+    }
+
+    private static IExpression greaterThanZero(String name) {
+        return new ComparisonExpression(variable(name), constant(0), ">");
+    }
+
+    private static IExpression variable(String name) {
+        return new VariableExpression(name);
+    }
+
+    private static IExpression constant(int value) {
+        return new ValueExpression(new IntValue(value));
+    }
+
+    private static IStatement sequence(IStatement... statements) {
+        return sequence(List.of(statements));
+    }
+
+    private static IStatement sequence(List<IStatement> statements) {
+        if (statements.size() == 1)
+            return statements.get(0);
+        return new BlockStatement(statements);
+    }
+}
@@ -0,0 +1,8 @@
+package model.generator;
+
+public enum WorkloadKind {
+    DEEP_LOOPS,
+    ALLOCATION_CHAINS,
+    FORK_FAN_OUT,
+    FILE_PIPELINE
+}
@@ -0,0 +1,273 @@
+package model.parser;
+
+import exception.ProgramSyntaxException;
+
+// Splits a program text into tokens, one at a time and without backtracking. The current token is
+// kept in the fields, only string literals make a new String each time, an identifier is made once
+// and looked up from then on.
+class Lexer {
+    static final int EOF = 0;
+    static final int IDENTIFIER = 1;
+    static final int NUMBER = 2;
+    static final int STRING = 3;
+    static final int LEFT_PAREN = 4;
+    static final int RIGHT_PAREN = 5;
+    static final int LEFT_BRACE = 6;
+    static final int RIGHT_BRACE = 7;
+    static final int COMMA = 8;
+    static final int SEMICOLON = 9;
+    static final int ASSIGN = 10;
+    static final int PLUS = 11;
+    static final int MINUS = 12;
+    static final int STAR = 13;
+    static final int SLASH = 14;
+    static final int NOT = 15;
+    static final int AND = 16;
+    static final int OR = 17;
+    static final int LESS = 18;
+    static final int LESS_EQUAL = 19;
+    static final int EQUAL = 20;
+    static final int NOT_EQUAL = 21;
+    static final int GREATER = 22;
+    static final int GREATER_EQUAL = 23;
+
+    private final char[] text;
+    private final int length;
+    private int position;
+    private int line = 1;
+    private int lineStart;
+    // the identifiers seen so far, open addressing on the hash of their characters
+    private String[] names = new String[1024];
+    private int nameCount;
+
+    // the current token
+    int kind;
+    int tokenLine;
+    int tokenColumn;
+    String value;
+    long number;
+
+    Lexer(String text) {
+        this.text = text.toCharArray();
+        this.length = this.text.length;
+        next();
+    }
+
+    void next() {
+        skipBlanks();
+        tokenLine = line;
+        tokenColumn = position - lineStart + 1;
+        value = null;
+        if (position == length) {
+            kind = EOF;
+            return;
+        }
+        char c = text[position];
+        if (isNameStart(c)) {
+            int start = position;
+            int hash = 0;
+            do {
+                hash = 31 * hash + text[position];
+                position++;
+            } while (position < length && isNamePart(text[position]));
+            kind = IDENTIFIER;
+            value = name(start, position, hash);
+            return;
+        }
+        if (c >= '0' && c <= '9') {
+            number = 0;
+            do {
+                number = number * 10 + (text[position] - '0');
+                if (number > Integer.MAX_VALUE + 1L)
+                    throw error("Integer literal out of range");
+                position++;
+            } while (position < length && text[position] >= '0' && text[position] <= '9');
+            kind = NUMBER;
+            return;
+        }
+        position++;
+        switch (c) {
+            case '"': readString(); return;
+            case '(': kind = LEFT_PAREN; return;
+            case ')': kind = RIGHT_PAREN; return;
+            case '{': kind = LEFT_BRACE; return;
+            case '}': kind = RIGHT_BRACE; return;
+            case ',': kind = COMMA; return;
+            case ';': kind = SEMICOLON; return;
+            case '+': kind = PLUS; return;
+            case '-': kind = MINUS; return;
+            case '*': kind = STAR; return;
+            case '/': kind = SLASH; return;
+            case '=': kind = follows('=') ? EQUAL : ASSIGN; return;
+            case '!': kind = follows('=') ? NOT_EQUAL : NOT; return;
+            case '<': kind = follows('=') ? LESS_EQUAL : LESS; return;
+            case '>': kind = follows('=') ? GREATER_EQUAL : GREATER; return;
+            case '&':
+                if (follows('&')) {
+                    kind = AND;
+                    return;
+                }
+                break;
+            case '|':
+                if (follows('|')) {
+                    kind = OR;
+                    return;
+                }
+                break;
+        }
+        throw error("Unexpected character '" + c + "'");
+    }
+
+    private static boolean isNameStart(char c) {
+        if (c < 128)
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+        return Character.isLetter(c);
+    }
+
+    private static boolean isNamePart(char c) {
+        if (c < 128)
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+        return Character.isLetterOrDigit(c);
+    }
+
+    // the same hash as String.hashCode, so a name made here is found by its characters
+    private String name(int start, int end, int hash) {
+        int mask = names.length - 1;
+        int length = end - start;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            String name = names[slot];
+            if (name == null)
+                break;
+            if (name.hashCode() == hash && name.length() == length && matches(start, name))
+                return name;
+        }
+        String name = new String(text, start, end - start);
+        if (++nameCount * 2 > names.length) {
+            String[] old = names;
+            names = new String[old.length * 2];
+            for (String kept : old) {
+                if (kept != null)
+                    insert(kept);
+            }
+        }
+        insert(name);
+        return name;
+    }
+
+    private boolean matches(int start, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (text[start + i] != name.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private void insert(String name) {
+        int mask = names.length - 1;
+        int slot = name.hashCode() & mask;
+        while (names[slot] != null)
+            slot = (slot + 1) & mask;
+        names[slot] = name;
+    }
+
+    private boolean follows(char c) {
+        if (position < length && text[position] == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void readString() {
+        StringBuilder builder = null;
+        int start = position;
+        while (true) {
+            if (position == length || text[position] == '\n')
+                throw error("Unterminated string");
+            char c = text[position];
+            if (c == '"')
+                break;
+            if (c == '\\') {
+                // most strings have no escapes and are taken as they are
+                if (builder == null)
+                    builder = new StringBuilder();
+                builder.append(text, start, position - start);
+                if (position + 1 == length)
+                    throw error("Unterminated string");
+                char escaped = text[position + 1];
+                switch (escaped) {
+                    case 'n': builder.append('\n'); break;
+                    case 't': builder.append('\t'); break;
+                    case '"': builder.append('"'); break;
+                    case '\\': builder.append('\\'); break;
+                    default: throw error("Unknown escape \\" + escaped);
+                }
+                position += 2;
+                start = position;
+            } else {
+                position++;
+            }
+        }
+        value = builder == null ? new String(text, start, position - start) : builder.append(text, start, position - start).toString();
+        position++;
+        kind = STRING;
+    }
+
+    private void skipBlanks() {
+        while (position < length) {
+            char c = text[position];
+            if (c == '\n') {
+                position++;
+                line++;
+                lineStart = position;
+            } else if (c == ' ' || c == '\t' || c == '\r') {
+                position++;
+            } else if (c == '/' && position + 1 < length && text[position + 1] == '/') {
+                while (position < length && text[position] != '\n')
+                    position++;
+            } else if (c == '/' && position + 1 < length && text[position + 1] == '*') {
+                int end = position + 2;
+                while (end + 1 < length && !(text[end] == '*' && text[end + 1] == '/'))
+                    end++;
+                if (end + 1 >= length) {
+                    tokenLine = line;
+                    tokenColumn = position - lineStart + 1;
+                    throw error("Unterminated comment");
+                }
+                for (; position < end + 2; position++) {
+                    if (text[position] == '\n') {
+                        line++;
+                        lineStart = position + 1;
+                    }
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    boolean isKeyword(String keyword) {
+        return kind == IDENTIFIER && value.equals(keyword);
+    }
+
+    String describe() {
+        switch (kind) {
+            case EOF: return "end of program";
+            case IDENTIFIER: return "'" + value + "'";
+            case NUMBER: return "'" + number + "'";
+            case STRING: return "string \"" + value + "\"";
+            default: return "'" + SYMBOLS[kind] + "'";
+        }
+    }
+
+    private static final String[] SYMBOLS = {null, null, null, null, "(", ")", "{", "}", ",", ";", "=", "+", "-", "*", "/",
+            "!", "&&", "||", "<", "<=", "==", "!=", ">", ">="};
+
+    static String symbol(int kind) {
+        return SYMBOLS[kind];
+    }
+
+    ProgramSyntaxException error(String message) {
+        return new ProgramSyntaxException(message, tokenLine, tokenColumn);
+    }
+}
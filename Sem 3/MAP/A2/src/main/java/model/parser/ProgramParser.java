@@ -0,0 +1,455 @@
+package model.parser;
+
+import exception.ProgramSyntaxException;
+import model.expresion.ArithmeticExpression;
+import model.expresion.ComparisonExpression;
+import model.expresion.IExpression;
+import model.expresion.LogicExpression;
+import model.expresion.ValueExpression;
+import model.expresion.VariableExpression;
+import model.expresion.rHExpression;
+import model.programStateComponents.FileAccessMode;
+import model.statement.*;
+import model.type.BoolType;
+import model.type.IType;
+import model.type.IntType;
+import model.type.ReferenceType;
+import model.type.StringType;
+import model.values.BoolValue;
+import model.values.IntValue;
+import model.values.StringValue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+// Reads the text form of a program:
+//
+//     Integer v; Ref(Integer) a;            declarations, with the type names the types print
+//     v = 10; new(a, 22); wH(a, rH(a) + 1);
+//     print(v); nop;
+//     fork { ... }  while (v > 0) { ... }  if (v == 0) { ... } else { ... }
+//     ORF(f); ORF(f, mapped); RF(f, v); CRF(f); OWF(f); WF(f, v); CWF(f);
+//
+// Expressions take + - * /, comparisons, && || !, rH(...), integers, "strings" and true/false.
+// Nothing recurses on the nesting of the text: blocks and the statements waiting for a body are
+// frames on a stack and expressions are reduced with an operator stack, so a program is read in
+// one pass whatever its depth.
+public class ProgramParser {
+    private static final Set<String> KEYWORDS = Set.of("Integer", "Bool", "String", "Ref", "print", "new", "wH", "rH",
+            "fork", "if", "else", "while", "nop", "true", "false", "True", "False", "ORF", "RF", "CRF", "OWF", "WF", "CWF");
+
+    // frame kinds
+    private static final int PROGRAM = 0;
+    private static final int BLOCK = 1;
+    private static final int IF = 2;
+    private static final int ELSE = 3;
+    private static final int WHILE = 4;
+    private static final int FORK = 5;
+
+    // operators besides the binary and unary tokens
+    private static final int PAREN = 100;
+    private static final int RH = 101;
+    private static final int NEGATE = 102;
+
+    private static class Frame {
+        final int kind;
+        final IExpression condition;
+        final List<IStatement> statements;
+        final int line;
+        final int column;
+        IStatement thenStatement;
+
+        Frame(int kind, IExpression condition, int line, int column) {
+            this.kind = kind;
+            this.condition = condition;
+            this.statements = kind == PROGRAM || kind == BLOCK ? new ArrayList<>() : null;
+            this.line = line;
+            this.column = column;
+        }
+    }
+
+    private final Lexer lexer;
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+    private final ArrayList<IExpression> operands = new ArrayList<>();
+    private int[] operators = new int[16];
+    private int operatorCount;
+
+    private ProgramParser(String text) {
+        lexer = new Lexer(text);
+    }
+
+    public static IStatement parse(String text) {
+        return new ProgramParser(text).program();
+    }
+
+    public static IStatement parse(Path path) throws IOException {
+        return parse(Files.readString(path));
+    }
+
+    private IStatement program() {
+        frames.push(new Frame(PROGRAM, null, 1, 1));
+        while (true) {
+            int line = lexer.tokenLine;
+            int column = lexer.tokenColumn;
+            if (lexer.kind == Lexer.EOF) {
+                Frame frame = frames.peek();
+                if (frame.kind == PROGRAM)
+                    return sequence(frame.statements);
+                if (frame.kind == BLOCK)
+                    throw new ProgramSyntaxException("'{' is never closed", frame.line, frame.column);
+                throw lexer.error("Expected a statement but found end of program");
+            }
+            if (lexer.kind == Lexer.RIGHT_BRACE) {
+                if (frames.peek().kind != BLOCK)
+                    throw lexer.error("Unexpected '}'");
+                lexer.next();
+                complete(sequence(frames.pop().statements));
+            } else if (lexer.kind == Lexer.LEFT_BRACE) {
+                lexer.next();
+                frames.push(new Frame(BLOCK, null, line, column));
+            } else if (lexer.isKeyword("if") || lexer.isKeyword("while")) {
+                int kind = lexer.isKeyword("if") ? IF : WHILE;
+                lexer.next();
+                expect(Lexer.LEFT_PAREN);
+                IExpression condition = expression();
+                expect(Lexer.RIGHT_PAREN);
+                frames.push(new Frame(kind, condition, line, column));
+            } else if (lexer.isKeyword("fork")) {
+                lexer.next();
+                frames.push(new Frame(FORK, null, line, column));
+            } else {
+                complete(simpleStatement());
+            }
+        }
+    }
+
+    // hands a finished statement to the frames waiting for it, closing every one it completes
+    private void complete(IStatement statement) {
+        while (true) {
+            Frame frame = frames.peek();
+            switch (frame.kind) {
+                case PROGRAM:
+                case BLOCK:
+                    frame.statements.add(statement);
+                    return;
+                case IF:
+                    if (lexer.isKeyword("else")) {
+                        lexer.next();
+                        frames.pop();
+                        Frame elseFrame = new Frame(ELSE, frame.condition, frame.line, frame.column);
+                        elseFrame.thenStatement = statement;
+                        frames.push(elseFrame);
+                        return;
+                    }
+                    frames.pop();
+                    statement = new IfStatement(frame.condition, statement, new NopStatement());
+                    break;
+                case ELSE:
+                    frames.pop();
+                    statement = new IfStatement(frame.condition, frame.thenStatement, statement);
+                    break;
+                case WHILE:
+                    frames.pop();
+                    statement = new whileStatement(frame.condition, statement);
+                    break;
+                case FORK:
+                    frames.pop();
+                    statement = new ForkStatement(statement);
+                    break;
+            }
+        }
+    }
+
+    private static IStatement sequence(List<IStatement> statements) {
+        if (statements.isEmpty())
+            return new NopStatement();
+        if (statements.size() == 1)
+            return statements.get(0);
+        return new BlockStatement(statements);
+    }
+
+    private IStatement simpleStatement() {
+        if (lexer.kind != Lexer.IDENTIFIER)
+            throw lexer.error("Expected a statement but found " + lexer.describe());
+        IStatement statement;
+        switch (lexer.value) {
+            case "Integer":
+            case "Bool":
+            case "String":
+            case "Ref": {
+                IType type = type();
+                statement = new VariableDeclarationStatement(name(), type);
+                break;
+            }
+            case "print":
+                statement = new PrintStatement(arguments(1)[0]);
+                break;
+            case "new": {
+                lexer.next();
+                expect(Lexer.LEFT_PAREN);
+                String name = name();
+                if (lexer.kind == Lexer.COMMA) {
+                    lexer.next();
+                    statement = new newStatement(name, expression());
+                } else {
+                    statement = new newStatement(name);
+                }
+                expect(Lexer.RIGHT_PAREN);
+                break;
+            }
+            case "wH": {
+                IExpression[] arguments = arguments(2);
+                statement = new wHStatement(arguments[0], arguments[1]);
+                break;
+            }
+            case "ORF": {
+                lexer.next();
+                expect(Lexer.LEFT_PAREN);
+                IExpression file = expression();
+                FileAccessMode mode = FileAccessMode.BUFFERED;
+                if (lexer.kind == Lexer.COMMA) {
+                    lexer.next();
+                    if (lexer.isKeyword("mapped"))
+                        mode = FileAccessMode.MAPPED;
+                    else if (!lexer.isKeyword("buffered"))
+                        throw lexer.error("Expected mapped or buffered but found " + lexer.describe());
+                    lexer.next();
+                }
+                expect(Lexer.RIGHT_PAREN);
+                statement = new OpenReadFileStatement(file, mode);
+                break;
+            }
+            case "RF": {
+                lexer.next();
+                expect(Lexer.LEFT_PAREN);
+                String file = name();
+                expect(Lexer.COMMA);
+                String variable = name();
+                expect(Lexer.RIGHT_PAREN);
+                statement = new ReadFileStatement(new VariableExpression(file), variable);
+                break;
+            }
+            case "CRF":
+                statement = new CloseReadFileStatement(arguments(1)[0]);
+                break;
+            case "OWF":
+                statement = new OpenWriteFileStatement(arguments(1)[0]);
+                break;
+            case "WF": {
+                IExpression[] arguments = arguments(2);
+                statement = new WriteFileStatement(arguments[0], arguments[1]);
+                break;
+            }
+            case "CWF":
+                statement = new CloseWriteFileStatement(arguments(1)[0]);
+                break;
+            case "nop":
+                lexer.next();
+                statement = new NopStatement();
+                break;
+            default: {
+                String name = name();
+                expect(Lexer.ASSIGN);
+                statement = new AsignStatement(name, expression());
+            }
+        }
+        expect(Lexer.SEMICOLON);
+        return statement;
+    }
+
+    // skips the keyword and reads "(e1, ..., en)"
+    private IExpression[] arguments(int count) {
+        lexer.next();
+        expect(Lexer.LEFT_PAREN);
+        IExpression[] arguments = new IExpression[count];
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                expect(Lexer.COMMA);
+            arguments[i] = expression();
+        }
+        expect(Lexer.RIGHT_PAREN);
+        return arguments;
+    }
+
+    // Ref(Ref(Integer)) is read as two Refs, the base type and two closing parentheses
+    private IType type() {
+        int references = 0;
+        while (lexer.isKeyword("Ref")) {
+            lexer.next();
+            expect(Lexer.LEFT_PAREN);
+            references++;
+        }
+        IType type;
+        if (lexer.isKeyword("Integer"))
+            type = new IntType();
+        else if (lexer.isKeyword("Bool"))
+            type = new BoolType();
+        else if (lexer.isKeyword("String"))
+            type = new StringType();
+        else
+            throw lexer.error("Expected a type but found " + lexer.describe());
+        lexer.next();
+        for (; references > 0; references--) {
+            expect(Lexer.RIGHT_PAREN);
+            type = new ReferenceType(type);
+        }
+        return type;
+    }
+
+    private String name() {
+        if (lexer.kind != Lexer.IDENTIFIER || KEYWORDS.contains(lexer.value))
+            throw lexer.error("Expected a variable name but found " + lexer.describe());
+        String name = lexer.value;
+        lexer.next();
+        return name;
+    }
+
+    private void expect(int kind) {
+        if (lexer.kind != kind)
+            throw lexer.error("Expected '" + Lexer.symbol(kind) + "' but found " + lexer.describe());
+        lexer.next();
+    }
+
+    // operator precedence with an operand and an operator stack, it stops at the first token that
+    // cannot continue the expression
+    private IExpression expression() {
+        int operatorBase = operatorCount;
+        int open = 0;
+        boolean expectOperand = true;
+        while (true) {
+            if (expectOperand) {
+                switch (lexer.kind) {
+                    case Lexer.NUMBER:
+                        if (operatorCount > operatorBase && operators[operatorCount - 1] == NEGATE) {
+                            // a negative literal is folded into a value, the smallest int has no positive twin
+                            if (lexer.number > Integer.MAX_VALUE + 1L)
+                                throw lexer.error("Integer literal out of range");
+                            operatorCount--;
+                            operands.add(new ValueExpression(new IntValue((int) -lexer.number)));
+                        } else {
+                            if (lexer.number > Integer.MAX_VALUE)
+                                throw lexer.error("Integer literal out of range");
+                            operands.add(new ValueExpression(new IntValue((int) lexer.number)));
+                        }
+                        expectOperand = false;
+                        break;
+                    case Lexer.STRING:
+                        operands.add(new ValueExpression(new StringValue(lexer.value)));
+                        expectOperand = false;
+                        break;
+                    case Lexer.IDENTIFIER:
+                        if (lexer.isKeyword("rH")) {
+                            lexer.next();
+                            if (lexer.kind != Lexer.LEFT_PAREN)
+                                throw lexer.error("Expected '(' but found " + lexer.describe());
+                            pushOperator(RH);
+                            open++;
+                        } else if (lexer.isKeyword("true") || lexer.isKeyword("True")) {
+                            operands.add(new ValueExpression(new BoolValue(true)));
+                            expectOperand = false;
+                        } else if (lexer.isKeyword("false") || lexer.isKeyword("False")) {
+                            operands.add(new ValueExpression(new BoolValue(false)));
+                            expectOperand = false;
+                        } else if (KEYWORDS.contains(lexer.value)) {
+                            throw lexer.error("Expected an expression but found " + lexer.describe());
+                        } else {
+                            operands.add(new VariableExpression(lexer.value));
+                            expectOperand = false;
+                        }
+                        break;
+                    case Lexer.LEFT_PAREN:
+                        pushOperator(PAREN);
+                        open++;
+                        break;
+                    case Lexer.NOT:
+                        pushOperator(Lexer.NOT);
+                        break;
+                    case Lexer.MINUS:
+                        pushOperator(NEGATE);
+                        break;
+                    default:
+                        throw lexer.error("Expected an expression but found " + lexer.describe());
+                }
+                lexer.next();
+            } else if (precedence(lexer.kind) > 0 && lexer.kind != Lexer.NOT) {
+                int precedence = precedence(lexer.kind);
+                while (operatorCount > operatorBase && precedence(operators[operatorCount - 1]) >= precedence)
+                    reduce();
+                pushOperator(lexer.kind);
+                lexer.next();
+                expectOperand = true;
+            } else if (lexer.kind == Lexer.RIGHT_PAREN && open > 0) {
+                while (operators[operatorCount - 1] != PAREN && operators[operatorCount - 1] != RH)
+                    reduce();
+                if (operators[--operatorCount] == RH)
+                    operands.add(new rHExpression(operands.remove(operands.size() - 1)));
+                open--;
+                lexer.next();
+            } else {
+                break;
+            }
+        }
+        if (open > 0)
+            throw lexer.error("Expected ')' but found " + lexer.describe());
+        while (operatorCount > operatorBase)
+            reduce();
+        return operands.remove(operands.size() - 1);
+    }
+
+    private void pushOperator(int operator) {
+        if (operatorCount == operators.length)
+            operators = Arrays.copyOf(operators, operatorCount * 2);
+        operators[operatorCount++] = operator;
+    }
+
+    private static int precedence(int operator) {
+        switch (operator) {
+            case Lexer.OR: return 1;
+            case Lexer.AND: return 2;
+            case Lexer.LESS:
+            case Lexer.LESS_EQUAL:
+            case Lexer.EQUAL:
+            case Lexer.NOT_EQUAL:
+            case Lexer.GREATER:
+            case Lexer.GREATER_EQUAL: return 3;
+            case Lexer.PLUS:
+            case Lexer.MINUS: return 4;
+            case Lexer.STAR:
+            case Lexer.SLASH: return 5;
+            case Lexer.NOT:
+            case NEGATE: return 6;
+            default: return 0;
+        }
+    }
+
+    private void reduce() {
+        int operator = operators[--operatorCount];
+        IExpression right = operands.remove(operands.size() - 1);
+        if (operator == Lexer.NOT) {
+            operands.add(new LogicExpression(right, null, 3));
+            return;
+        }
+        if (operator == NEGATE) {
+            operands.add(new ArithmeticExpression(new ValueExpression(new IntValue(0)), right, 2));
+            return;
+        }
+        IExpression left = operands.remove(operands.size() - 1);
+        IExpression result;
+        switch (operator) {
+            case Lexer.PLUS: result = new ArithmeticExpression(left, right, 1); break;
+            case Lexer.MINUS: result = new ArithmeticExpression(left, right, 2); break;
+            case Lexer.STAR: result = new ArithmeticExpression(left, right, 3); break;
+            case Lexer.SLASH: result = new ArithmeticExpression(left, right, 4); break;
+            case Lexer.AND: result = new LogicExpression(left, right, 1); break;
+            case Lexer.OR: result = new LogicExpression(left, right, 2); break;
+            default: result = new ComparisonExpression(left, right, Lexer.symbol(operator));
+        }
+        operands.add(result);
+    }
+}
@@ -0,0 +1,41 @@
+package model.programStateComponents;
+
+public class AllocationBuffer {
+    int next;
+    int limit;
+    // what handed out the range, a range from a heap since restored or from another heap is not used
+    Object owner;
+
+    public AllocationBuffer() {
+        this.next = 0;
+        this.limit = 0;
+    }
+
+    public boolean isExhausted() {
+        return next >= limit;
+    }
+
+    public void refill(int start, int size) {
+        this.next = start;
+        this.limit = start + size;
+    }
+
+    void refill(Object owner, int start, int size) {
+        refill(start, size);
+        this.owner = owner;
+    }
+
+    void clear() {
+        this.next = 0;
+        this.limit = 0;
+        this.owner = null;
+    }
+
+    public int take() {
+        return next++;
+    }
+
+    public int remaining() {
+        return limit - next;
+    }
+}
@@ -3,36 +3,94 @@ package model.programStateComponents;
 import exception.AdtException;
 import exception.InvalidAddressException;
 import model.adts.ConcurentMyDictionary;
-import model.adts.MyDictionary;
 import model.adts.MyIDictionary;
 import model.values.IValue;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ConcurentHeapTable implements IHeap{
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+
+    private final int blockSize;
     private AtomicInteger nextFreeAddress;
     private MyIDictionary<Integer, IValue> heapTable;
+    private AtomicLong allocationCount;
+    // cells held now and the most held at once, kept next to the table so allocate can raise the peak
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger peakSize = new AtomicInteger();
+    // addresses released by deallocate, handed out again before any new address
+    private ConcurrentLinkedQueue<Integer> freeAddresses;
+    // replaced by restore, the ranges buffers took before it are not handed out anymore
+    private volatile Object generation = new Object();
+    private volatile StateListener listener;
 
-    public ConcurentHeapTable() {
+    public ConcurentHeapTable(int blockSize) {
+        if (blockSize <= 0)
+            throw new IllegalArgumentException("Block size must be positive");
+        this.blockSize = blockSize;
         nextFreeAddress = new AtomicInteger(1);
         heapTable = new ConcurentMyDictionary<Integer, IValue>();
+        allocationCount = new AtomicLong(0);
+        freeAddresses = new ConcurrentLinkedQueue<>();
+    }
+
+    public ConcurentHeapTable() {
+        this(DEFAULT_BLOCK_SIZE);
     }
+
     @Override
     public int allocate(IValue value) throws InvalidAddressException {
+        Integer address = this.freeAddresses.poll();
+        return store(address != null ? address : this.nextFreeAddress.getAndIncrement(), value);
+    }
+
+    @Override
+    public int allocate(IValue value, AllocationBuffer buffer) throws InvalidAddressException {
+        Integer address = this.freeAddresses.poll();
+        if (address != null)
+            return store(address, value);
+        Object generation = this.generation;
+        if (buffer.isExhausted() || buffer.owner != generation)
+            buffer.refill(generation, this.nextFreeAddress.getAndAdd(this.blockSize), this.blockSize);
+        return store(buffer.take(), value);
+    }
+
+    @Override
+    public void release(AllocationBuffer buffer) {
+        if (buffer.owner == this.generation) {
+            while (!buffer.isExhausted())
+                this.freeAddresses.offer(buffer.take());
+        }
+        buffer.clear();
+    }
+
+    private int store(int address, IValue value) throws InvalidAddressException {
         try {
-            this.heapTable.put(this.nextFreeAddress.get(), value);
-            this.nextFreeAddress.incrementAndGet();
-            return this.nextFreeAddress.get() - 1;
+            this.heapTable.put(address, value);
         } catch (AdtException e) {
-            throw new InvalidAddressException("Address "+Integer.toString(this.nextFreeAddress.get())+" not found in heap table or out of bounds");
+            throw new InvalidAddressException("Address "+Integer.toString(address)+" is already allocated");
         }
+        this.allocationCount.incrementAndGet();
+        int size = this.size.incrementAndGet();
+        if (size > this.peakSize.get())
+            this.peakSize.accumulateAndGet(size, Math::max);
+        this.written(address, value);
+        return address;
     }
 
     @Override
     public void deallocate(int address) throws InvalidAddressException {
         try{
-            this.heapTable.remove(address);
+            if (this.heapTable.toMap().remove(address) != null) {
+                this.size.decrementAndGet();
+                this.freeAddresses.offer(address);
+                StateListener listener = this.listener;
+                if (listener != null)
+                    listener.heapFreed(this, address);
+            }
         } catch (Exception e) {
             throw new InvalidAddressException("Address "+Integer.toString(address)+" not found in heap table or out of bounds");
         }
@@ -48,6 +106,13 @@ public class ConcurentHeapTable implements IHeap{
         } catch (AdtException e) {
             throw new InvalidAddressException("Address "+Integer.toString(address)+" not found in heap table or out of bounds");
         }
+        this.written(address, value);
+    }
+
+    private void written(int address, IValue value) {
+        StateListener listener = this.listener;
+        if (listener != null)
+            listener.heapWritten(this, address, value);
     }
 
     @Override
@@ -69,6 +134,52 @@ public class ConcurentHeapTable implements IHeap{
         return this.heapTable.toMap();
     }
 
+    @Override
+    public void restore(Map<Integer, IValue> contents) {
+        this.heapTable = new ConcurentMyDictionary<Integer, IValue>();
+        this.heapTable.toMap().putAll(contents);
+        int highest = contents.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+        // the addresses that were free below the highest one are handed out first, as before the checkpoint
+        ConcurrentLinkedQueue<Integer> free = new ConcurrentLinkedQueue<>();
+        for (int address = 1; address < highest; address++) {
+            if (!contents.containsKey(address))
+                free.offer(address);
+        }
+        this.freeAddresses = free;
+        this.nextFreeAddress = new AtomicInteger(highest + 1);
+        this.size.set(contents.size());
+        this.peakSize.set(contents.size());
+        this.generation = new Object();
+        StateListener listener = this.listener;
+        if (listener != null)
+            listener.heapRestored(this);
+    }
+
+    @Override
+    public int size() {
+        return this.size.get();
+    }
+
+    @Override
+    public long getAllocationCount() {
+        return this.allocationCount.get();
+    }
+
+    @Override
+    public int getPeakSize() {
+        return this.peakSize.get();
+    }
+
+    @Override
+    public synchronized void addListener(StateListener listener) {
+        this.listener = StateListeners.add(this.listener, listener);
+    }
+
+    @Override
+    public synchronized void removeListener(StateListener listener) {
+        this.listener = StateListeners.remove(this.listener, listener);
+    }
+
     @Override
     public String toString() {
         return this.heapTable.toString();
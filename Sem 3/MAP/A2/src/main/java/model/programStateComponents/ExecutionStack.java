@@ -1,11 +1,14 @@
 package model.programStateComponents;
 
+import exception.AdtException;
 import model.adts.MyStack;
 import model.statement.IStatement;
 
 import java.util.List;
 
 public class ExecutionStack extends MyStack<IStatement> implements IExecutionStack {
+    private volatile StateListener listener;
+
     public ExecutionStack() {
         super();
     }
@@ -21,6 +24,31 @@ public class ExecutionStack extends MyStack<IStatement> implements IExecutionSta
     public String toString() {
         return super.toString();
     }
+    @Override
+    public IStatement pop() throws AdtException {
+        IStatement statement = super.pop();
+        StateListener listener = this.listener;
+        if (listener != null)
+            listener.statementPopped(this);
+        return statement;
+    }
+
+    @Override
+    public void push(IStatement statement) {
+        super.push(statement);
+        StateListener listener = this.listener;
+        if (listener != null)
+            listener.statementPushed(this, statement);
+    }
+
+    public synchronized void addListener(StateListener listener) {
+        this.listener = StateListeners.add(this.listener, listener);
+    }
+
+    public synchronized void removeListener(StateListener listener) {
+        this.listener = StateListeners.remove(this.listener, listener);
+    }
+
     @Override
     public boolean isEmpty() {
         return super.isEmpty();
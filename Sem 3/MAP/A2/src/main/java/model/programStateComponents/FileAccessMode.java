@@ -0,0 +1,6 @@
+package model.programStateComponents;
+
+public enum FileAccessMode {
+    BUFFERED,
+    MAPPED
+}
@@ -0,0 +1,75 @@
+package model.programStateComponents;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// A read position in a shared file. A cursor is either owned by one program or shared by
+// a program and the forks that inherited it, so reads are synchronized on the cursor only.
+public class FileCursor {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final SharedFile file;
+    private long position;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    // file offset of the first byte in buffer
+    private long bufferStart = 0;
+
+    FileCursor(SharedFile file, long position) {
+        this.file = file;
+        this.position = position;
+        this.buffer.limit(0);
+    }
+
+    // null at the end of the file; \r is dropped so \r\n files read like \n files
+    public synchronized String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        boolean readAnything = false;
+        while (true) {
+            if (position < bufferStart || position >= bufferStart + buffer.limit()) {
+                buffer.clear();
+                int read = file.read(buffer, position);
+                buffer.flip();
+                bufferStart = position;
+                if (read <= 0)
+                    return readAnything ? line.toString(StandardCharsets.UTF_8) : null;
+            }
+            byte value = buffer.get((int) (position - bufferStart));
+            position++;
+            readAnything = true;
+            if (value == '\n')
+                return line.toString(StandardCharsets.UTF_8);
+            if (value != '\r')
+                line.write(value);
+        }
+    }
+
+    public synchronized long getPosition() {
+        return position;
+    }
+
+    // 0 at the end of the file or when the line is not an integer
+    public int readInt() throws IOException {
+        String line = readLine();
+        if (line == null)
+            return 0;
+        try {
+            return Integer.parseInt(line);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public FileAccessMode getMode() {
+        return FileAccessMode.BUFFERED;
+    }
+
+    synchronized FileCursor copy() {
+        return new FileCursor(file, position);
+    }
+
+    public SharedFile getFile() {
+        return file;
+    }
+}
@@ -1,60 +1,250 @@
 package model.programStateComponents;
 
-import model.adts.MyDictionary;
-import exception.AdtException;
+import exception.FileException;
 import model.values.IValue;
 import model.values.StringValue;
 
-import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The files one program has open. Each program gets its own table on fork, holding a reference
+// to every file it inherited, so closing a file only ends that program's handle. With private
+// cursors a fork reads on from where its parent was without moving the parent, otherwise parent
+// and fork consume lines from the same cursor. Files opened for writing are always shared, the
+// lines of parent and fork end up in the file in the order they were written.
+public class FileTable implements IFileTable {
+    private final ConcurrentHashMap<StringValue, FileCursor> handles = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<StringValue, SharedWriteFile> writeHandles = new ConcurrentHashMap<>();
+    // every file opened by this program or a relative, by path
+    private final ConcurrentHashMap<String, SharedFile> sharedFiles;
+    private final ConcurrentHashMap<String, SharedWriteFile> sharedWriteFiles;
+    private final boolean privateCursors;
+
+    private FileTable(ConcurrentHashMap<String, SharedFile> sharedFiles, ConcurrentHashMap<String, SharedWriteFile> sharedWriteFiles,
+                      boolean privateCursors) {
+        this.sharedFiles = sharedFiles;
+        this.sharedWriteFiles = sharedWriteFiles;
+        this.privateCursors = privateCursors;
+    }
+
+    public FileTable(boolean privateCursors) {
+        this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), privateCursors);
+    }
 
-public class FileTable extends MyDictionary<StringValue, BufferedReader> implements IFileTable {
     public FileTable() {
-        super();
+        this(false);
     }
 
-    public FileTable(MyDictionary<StringValue, BufferedReader> table) {
-        super();
+    public boolean isDefined(StringValue name) {
+        return handles.containsKey(name);
     }
 
-    @Override
-    public void put(StringValue key, BufferedReader value) throws AdtException {
-        super.put(key, value);
+    public FileCursor open(StringValue name) throws FileException {
+        return open(name, FileAccessMode.BUFFERED, 0);
     }
 
-    @Override
-    public void give(StringValue key, BufferedReader value) throws AdtException {
-        super.give(key, value);
+    public FileCursor open(StringValue name, FileAccessMode mode, long position) throws FileException {
+        if (handles.containsKey(name))
+            throw new FileException("File with that name already opened");
+        SharedFile file;
+        try {
+            file = sharedFiles.compute(name.getVal(), (path, existing) -> {
+                if (existing != null && existing.retain())
+                    return existing;
+                try {
+                    return SharedFile.open(path, sharedFiles);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw new FileException("Error opening file: " + e.getCause().getMessage());
+        }
+        FileCursor cursor;
+        try {
+            cursor = mode == FileAccessMode.MAPPED ? new MappedFileCursor(file, position) : new FileCursor(file, position);
+        } catch (IOException e) {
+            release(file);
+            throw new FileException("Error opening file: " + e.getMessage());
+        }
+        handles.put(name, cursor);
+        return cursor;
     }
 
-    @Override
-    public BufferedReader lookup(StringValue key) throws AdtException {
-        return super.lookup(key);
+    // adds a handle on a cursor that is already open in another table
+    public void attach(StringValue name, FileCursor cursor) throws FileException {
+        if (handles.containsKey(name))
+            throw new FileException("File with that name already opened");
+        if (!cursor.getFile().retain())
+            throw new FileException("File already closed");
+        handles.put(name, cursor);
     }
 
-    @Override
-    public boolean isDefined(StringValue id) {
-        return super.isDefined(id);
+    public FileCursor lookup(StringValue name) throws FileException {
+        FileCursor cursor = handles.get(name);
+        if (cursor == null)
+            throw new FileException("File not opened");
+        return cursor;
     }
 
-    @Override
-    public void remove(StringValue key) {
-        super.remove(key);
+    public String readLine(StringValue name) throws FileException {
+        try {
+            return lookup(name).readLine();
+        } catch (IOException e) {
+            throw new FileException("Error reading from file: " + e.getMessage());
+        }
+    }
+
+    public int readInt(StringValue name) throws FileException {
+        try {
+            return lookup(name).readInt();
+        } catch (IOException e) {
+            throw new FileException("Error reading from file: " + e.getMessage());
+        }
+    }
+
+    public void close(StringValue name) throws FileException {
+        FileCursor cursor = handles.remove(name);
+        if (cursor == null)
+            throw new FileException("File not opened");
+        release(cursor.getFile());
+    }
+
+    public boolean isOpenForWriting(StringValue name) {
+        return writeHandles.containsKey(name);
+    }
+
+    public SharedWriteFile openWrite(StringValue name) throws FileException {
+        return openWrite(name, 0);
+    }
+
+    // a file a relative already writes is shared, otherwise it is cut to length bytes
+    public SharedWriteFile openWrite(StringValue name, long length) throws FileException {
+        if (writeHandles.containsKey(name))
+            throw new FileException("File with that name already opened");
+        SharedWriteFile file;
+        try {
+            file = sharedWriteFiles.compute(name.getVal(), (path, existing) -> {
+                if (existing != null && existing.retain())
+                    return existing;
+                try {
+                    return SharedWriteFile.open(path, length, sharedWriteFiles);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw new FileException("Error opening file: " + e.getCause().getMessage());
+        }
+        writeHandles.put(name, file);
+        return file;
+    }
+
+    public void attachWrite(StringValue name, SharedWriteFile file) throws FileException {
+        if (writeHandles.containsKey(name))
+            throw new FileException("File with that name already opened");
+        if (!file.retain())
+            throw new FileException("File already closed");
+        writeHandles.put(name, file);
+    }
+
+    public SharedWriteFile lookupWrite(StringValue name) throws FileException {
+        SharedWriteFile file = writeHandles.get(name);
+        if (file == null)
+            throw new FileException("File not opened for writing");
+        return file;
+    }
+
+    public void writeLine(StringValue name, String line) throws FileException {
+        try {
+            lookupWrite(name).writeLine(line);
+        } catch (IOException e) {
+            throw new FileException("Error writing to file: " + e.getMessage());
+        }
+    }
+
+    public void closeWrite(StringValue name) throws FileException {
+        SharedWriteFile file = writeHandles.remove(name);
+        if (file == null)
+            throw new FileException("File not opened for writing");
+        release(file);
+    }
+
+    public void closeAll() throws FileException {
+        for (StringValue name : new ArrayList<>(handles.keySet())) {
+            FileCursor cursor = handles.remove(name);
+            if (cursor != null)
+                release(cursor.getFile());
+        }
+        for (StringValue name : new ArrayList<>(writeHandles.keySet())) {
+            SharedWriteFile file = writeHandles.remove(name);
+            if (file != null)
+                release(file);
+        }
+    }
+
+    private void release(SharedFile file) throws FileException {
+        try {
+            file.release();
+        } catch (IOException e) {
+            throw new FileException("Error closing file: " + e.getMessage());
+        }
+    }
+
+    private void release(SharedWriteFile file) throws FileException {
+        try {
+            file.release();
+        } catch (IOException e) {
+            throw new FileException("Error closing file: " + e.getMessage());
+        }
+    }
+
+    // the table a forked program starts with
+    public FileTable fork() throws FileException {
+        FileTable child = new FileTable(sharedFiles, sharedWriteFiles, privateCursors);
+        handles.forEach((name, cursor) -> child.attach(name, privateCursors ? cursor.copy() : cursor));
+        writeHandles.forEach(child::attachWrite);
+        return child;
+    }
+
+    // an empty table that opens files through the same shared files as this one
+    public FileTable sibling(boolean privateCursors) {
+        return new FileTable(sharedFiles, sharedWriteFiles, privateCursors);
+    }
+
+    public boolean hasPrivateCursors() {
+        return privateCursors;
+    }
+
+    public Map<StringValue, FileCursor> toMap() {
+        return new LinkedHashMap<>(handles);
+    }
+
+    public Map<StringValue, SharedWriteFile> toWriteMap() {
+        return new LinkedHashMap<>(writeHandles);
     }
 
     public String toString() {
-        String result = "";
-        for(StringValue key : dict.keySet()) {
-            result =result+key.toString() +"\n";
+        StringBuilder result = new StringBuilder();
+        for(StringValue key : handles.keySet()) {
+            result.append(key.toString()).append("\n");
+        }
+        for(StringValue key : writeHandles.keySet()) {
+            result.append(key.toString()).append(" (write)\n");
         }
-        return result;
+        return result.toString();
     }
 
     @Override
     public List<IValue> getFileList() {
-        return new ArrayList<>(super.getKeys());
+        List<IValue> files = new ArrayList<>(handles.keySet());
+        files.addAll(writeHandles.keySet());
+        return files;
     }
 
 }
@@ -11,6 +11,9 @@ import java.util.Map;
 public class HeapTable implements IHeap {
     MyIDictionary<Integer, IValue> heapTable;
     Integer nextFreeAddress;
+    long allocationCount;
+    int peakSize;
+    volatile StateListener listener;
     public HeapTable() {
         this.heapTable = new MyDictionary<Integer,IValue>();
         this.nextFreeAddress = 1;
@@ -21,6 +24,10 @@ public class HeapTable implements IHeap {
         try {
             this.heapTable.put(this.nextFreeAddress, value);
             this.nextFreeAddress++;
+            this.allocationCount++;
+            if (this.heapTable.toMap().size() > this.peakSize)
+                this.peakSize = this.heapTable.toMap().size();
+            this.written(this.nextFreeAddress - 1, value);
             return this.nextFreeAddress - 1;
         } catch (AdtException e) {
             throw new InvalidAddressException("Address "+Integer.toString(this.nextFreeAddress)+" not found in heap table or out of bounds");
@@ -31,6 +38,9 @@ public class HeapTable implements IHeap {
     public void deallocate(int address) throws InvalidAddressException {
         try{
             this.heapTable.remove(address);
+            StateListener listener = this.listener;
+            if (listener != null)
+                listener.heapFreed(this, address);
         } catch (Exception e) {
             throw new InvalidAddressException("Address "+Integer.toString(address)+" not found in heap table or out of bounds");
         }
@@ -46,6 +56,13 @@ public class HeapTable implements IHeap {
         } catch (AdtException e) {
             throw new InvalidAddressException("Address "+Integer.toString(address)+" not found in heap table or out of bounds");
         }
+        this.written(address, value);
+    }
+
+    private void written(int address, IValue value) {
+        StateListener listener = this.listener;
+        if (listener != null)
+            listener.heapWritten(this, address, value);
     }
 
     @Override
@@ -67,6 +84,42 @@ public class HeapTable implements IHeap {
         return this.heapTable.toMap();
     }
 
+    @Override
+    public void restore(Map<Integer, IValue> contents) {
+        this.heapTable = new MyDictionary<Integer,IValue>();
+        this.heapTable.toMap().putAll(contents);
+        this.nextFreeAddress = contents.keySet().stream().mapToInt(Integer::intValue).max().orElse(0) + 1;
+        this.peakSize = contents.size();
+        StateListener listener = this.listener;
+        if (listener != null)
+            listener.heapRestored(this);
+    }
+
+    @Override
+    public int size() {
+        return this.heapTable.toMap().size();
+    }
+
+    @Override
+    public long getAllocationCount() {
+        return this.allocationCount;
+    }
+
+    @Override
+    public int getPeakSize() {
+        return this.peakSize;
+    }
+
+    @Override
+    public synchronized void addListener(StateListener listener) {
+        this.listener = StateListeners.add(this.listener, listener);
+    }
+
+    @Override
+    public synchronized void removeListener(StateListener listener) {
+        this.listener = StateListeners.remove(this.listener, listener);
+    }
+
     @Override
     public String toString() {
         return this.heapTable.toString();
@@ -3,20 +3,63 @@ package model.programStateComponents;
 import exception.AdtException;
 import exception.InvalidAddressException;
 import model.values.IValue;
+import model.values.IntValue;
 
 import java.util.Map;
 
 public interface IHeap {
     int allocate(IValue value) throws AdtException;
 
+    default int allocate(IValue value, AllocationBuffer buffer) throws AdtException {
+        return allocate(value);
+    }
+
+    // the addresses left in the buffer of a finished program go back to the heap
+    default void release(AllocationBuffer buffer) {}
+
     void deallocate(int address) throws InvalidAddressException;
 
     void write(int address, IValue value) throws InvalidAddressException;
 
     IValue read(int address) throws InvalidAddressException;
 
+    default int readInt(int address) throws InvalidAddressException {
+        IValue value = read(address);
+        if (!(value instanceof IntValue))
+            throw new InvalidAddressException("Address "+Integer.toString(address)+" does not hold an integer");
+        return ((IntValue) value).getVal();
+    }
+
+    default void writeInt(int address, int value) throws InvalidAddressException {
+        write(address, new IntValue(value));
+    }
+
+    // true when the heap keeps ints unboxed, writing one through writeInt then boxes nothing
+    default boolean supportsPrimitiveInts() {
+        return false;
+    }
+
     boolean contains(int address);
 
     Map<Integer, IValue> toMap();
 
+    default int[] addresses() {
+        return toMap().keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    int size();
+
+    // replaces the whole content, later allocations go past the highest restored address
+    void restore(Map<Integer, IValue> contents);
+
+    long getAllocationCount();
+
+    // the most cells the heap held at once, raised by every allocation, restore starts it over
+    int getPeakSize();
+
+    // told about every allocation, write and free
+    void addListener(StateListener listener);
+
+    void removeListener(StateListener listener);
+
 }
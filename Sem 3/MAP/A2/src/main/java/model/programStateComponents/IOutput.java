@@ -5,7 +5,10 @@ import model.values.IValue;
 import java.util.List;
 
 public interface IOutput {
+    void add(IValue value);
+
     List<IValue> getOutputAsList();
 
+    long size();
 
 }
@@ -0,0 +1,108 @@
+package model.programStateComponents;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Reads a file through a window of it mapped into memory, the window moves forward a region
+// at a time. readInt parses the digits straight out of the mapping without building a String.
+public class MappedFileCursor extends FileCursor {
+    public static final long DEFAULT_REGION_SIZE = 64L << 20;
+
+    private final long regionSize;
+    private final long size;
+    private long position;
+    private MappedByteBuffer region;
+    private long regionStart = 0;
+    private long regionEnd = 0;
+
+    private MappedFileCursor(SharedFile file, long position, long regionSize, long size) {
+        super(file, position);
+        this.regionSize = regionSize;
+        this.size = size;
+        this.position = position;
+    }
+
+    MappedFileCursor(SharedFile file, long position) throws IOException {
+        this(file, position, DEFAULT_REGION_SIZE, file.size());
+    }
+
+    private byte byteAt(long offset) throws IOException {
+        if (offset < regionStart || offset >= regionEnd) {
+            regionStart = offset;
+            regionEnd = Math.min(size, offset + regionSize);
+            region = getFile().map(regionStart, regionEnd - regionStart);
+        }
+        return region.get((int) (offset - regionStart));
+    }
+
+    @Override
+    public synchronized String readLine() throws IOException {
+        if (position >= size)
+            return null;
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (position < size) {
+            byte value = byteAt(position++);
+            if (value == '\n')
+                break;
+            if (value != '\r')
+                line.write(value);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    // same result as Integer.parseInt on the line read by readLine, 0 where that would throw
+    @Override
+    public synchronized int readInt() throws IOException {
+        if (position >= size)
+            return 0;
+        boolean valid = true;
+        boolean negative = false;
+        boolean signAllowed = true;
+        boolean digits = false;
+        long value = 0;
+        while (position < size) {
+            byte current = byteAt(position++);
+            if (current == '\n')
+                break;
+            if (current == '\r' || !valid)
+                continue;
+            if (signAllowed && (current == '-' || current == '+')) {
+                negative = current == '-';
+                signAllowed = false;
+                continue;
+            }
+            signAllowed = false;
+            if (current < '0' || current > '9') {
+                valid = false;
+                continue;
+            }
+            digits = true;
+            value = value * 10 + (current - '0');
+            if (value > 1L + Integer.MAX_VALUE)
+                valid = false;
+        }
+        if (!valid || !digits)
+            return 0;
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE)
+            return 0;
+        return (int) value;
+    }
+
+    @Override
+    public synchronized long getPosition() {
+        return position;
+    }
+
+    @Override
+    public FileAccessMode getMode() {
+        return FileAccessMode.MAPPED;
+    }
+
+    @Override
+    synchronized FileCursor copy() {
+        return new MappedFileCursor(getFile(), position, regionSize, size);
+    }
+}
@@ -1,26 +1,222 @@
 package model.programStateComponents;
 
 
-import model.adts.MyList;
 import model.values.IValue;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Forked programs append to the same output without locking. Values get their sequence number,
+// which is the order they were enqueued in, when a drain moves them to the sink and to the
+// bounded tail kept for display. Anything older than the tail is only in the sink.
+public class Output implements IOutput {
+    public static final int DEFAULT_TAIL_CAPACITY = 4096;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final ConcurrentLinkedQueue<IValue> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger(0);
+    private final AtomicLong appended = new AtomicLong(0);
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final int tailCapacity;
+    private final int batchSize;
+    // guarded by drainLock
+    private final ArrayDeque<IValue> tail = new ArrayDeque<>();
+    private long drained = 0;
+    private OutputSink sink;
+    // a batch the sink failed to take, handed to it again before anything newer
+    private List<IValue> unwritten;
+    private long unwrittenSequence;
+    private volatile StateListener listener;
+
+    public Output(int tailCapacity, int batchSize) {
+        if (tailCapacity <= 0 || batchSize <= 0)
+            throw new IllegalArgumentException("Invalid output parameters");
+        this.tailCapacity = tailCapacity;
+        this.batchSize = batchSize;
+    }
 
-public class Output extends MyList<IValue> implements IOutput {
     public Output() {
-        super();
+        this(DEFAULT_TAIL_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    @Override
+    public void add(IValue el) {
+        pending.offer(el);
+        appended.incrementAndGet();
+        StateListener listener = this.listener;
+        if (listener != null)
+            listener.outputAppended(this, el);
+        // producers only help draining when nobody else is, so they never wait on each other
+        if (pendingCount.incrementAndGet() >= batchSize && drainLock.tryLock()) {
+            try {
+                drainLocked();
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    public void drain() {
+        drainLock.lock();
+        try {
+            drainLocked();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private void drainLocked() {
+        writeUnwritten();
+        // bounded so that a drain can not be kept busy forever by concurrent producers
+        int count = pendingCount.get();
+        while (count > 0) {
+            List<IValue> batch = new ArrayList<>(Math.min(count, batchSize));
+            IValue value;
+            while (batch.size() < batchSize && batch.size() < count && (value = pending.poll()) != null)
+                batch.add(value);
+            if (batch.isEmpty())
+                return;
+            pendingCount.addAndGet(-batch.size());
+            // the batch is in the tail before the sink sees it, so a sink that throws loses nothing
+            for (IValue drainedValue : batch) {
+                if (tail.size() == tailCapacity)
+                    tail.pollFirst();
+                tail.addLast(drainedValue);
+            }
+            if (sink != null) {
+                unwritten = batch;
+                unwrittenSequence = drained;
+            }
+            drained += batch.size();
+            count -= batch.size();
+            writeUnwritten();
+        }
+    }
+
+    private void writeUnwritten() {
+        if (unwritten == null || sink == null)
+            return;
+        sink.write(unwrittenSequence, unwritten);
+        unwritten = null;
+    }
+
+    public void flush() {
+        drainLock.lock();
+        try {
+            drainLocked();
+            if (sink != null)
+                sink.flush();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    public void setSink(OutputSink sink) {
+        drainLock.lock();
+        try {
+            drainLocked();
+            if (this.sink != null)
+                this.sink.flush();
+            this.sink = sink;
+        } finally {
+            drainLock.unlock();
+        }
     }
 
-    public Output(MyList<IValue> list) {
-        super();
+    public synchronized void addListener(StateListener listener) {
+        this.listener = StateListeners.add(this.listener, listener);
     }
 
+    public synchronized void removeListener(StateListener listener) {
+        this.listener = StateListeners.remove(this.listener, listener);
+    }
+
+    public int getTailCapacity() {
+        return tailCapacity;
+    }
+
+    public OutputSink getSink() {
+        return sink;
+    }
+
+    // number of values ever printed, including the ones no longer in the tail
+    @Override
+    public long size() {
+        return appended.get();
+    }
+
+    // sequence number of the oldest value still in the tail
+    public long getFirstRetainedSequence() {
+        drainLock.lock();
+        try {
+            drainLocked();
+            return drained - tail.size();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // the retained values with a sequence number of at least sequence
+    public List<IValue> getSince(long sequence) {
+        drainLock.lock();
+        try {
+            drainLocked();
+            int count = (int) Math.max(0, Math.min(tail.size(), drained - sequence));
+            List<IValue> values = new ArrayList<>(count);
+            Iterator<IValue> newestFirst = tail.descendingIterator();
+            for (int i = 0; i < count; i++)
+                values.add(newestFirst.next());
+            Collections.reverse(values);
+            return values;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    // used when restoring, firstSequence is the sequence number of values.get(0)
+    public void restore(long firstSequence, List<IValue> values) {
+        drainLock.lock();
+        try {
+            pending.clear();
+            pendingCount.set(0);
+            unwritten = null;
+            tail.clear();
+            for (IValue value : values) {
+                if (tail.size() == tailCapacity)
+                    tail.pollFirst();
+                tail.addLast(value);
+            }
+            drained = firstSequence + values.size();
+            appended.set(drained);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
     public String toString() {
-        return super.toString();
+        StringBuilder outStr = new StringBuilder();
+        for (IValue el : getOutputAsList()) {
+            outStr.append(el.toString()).append("|");
+        }
+        return outStr.toString();
     }
 
     @Override
     public List<IValue> getOutputAsList() {
-        return super.getList();
+        drainLock.lock();
+        try {
+            drainLocked();
+            return new ArrayList<>(tail);
+        } finally {
+            drainLock.unlock();
+        }
     }
 }
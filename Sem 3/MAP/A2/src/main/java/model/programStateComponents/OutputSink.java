@@ -0,0 +1,14 @@
+package model.programStateComponents;
+
+import model.values.IValue;
+
+import java.util.List;
+
+// Receives printed values in order, in batches, from a single thread at a time.
+public interface OutputSink {
+    void write(long firstSequence, List<IValue> batch);
+
+    void flush();
+
+    void close();
+}
@@ -0,0 +1,370 @@
+package model.programStateComponents;
+
+import exception.InvalidAddressException;
+import model.type.IType;
+import model.values.BoolValue;
+import model.values.IValue;
+import model.values.IntValue;
+import model.values.ReferenceValue;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cells live in dense arrays indexed by address, IValue objects are only built when a cell is read.
+// The arrays come in pages that never move once made, addresses are handed out like in
+// ConcurentHeapTable without a lock, and a cell is only locked with the few others sharing its
+// stripe, so forked programs working on different cells do not wait for each other.
+public class PrimitiveHeapTable implements IHeap {
+    private static final byte FREE = 0;
+    private static final byte INT = 1;
+    private static final byte BOOL = 2;
+    private static final byte REFERENCE = 3;
+    private static final byte OBJECT = 4;
+
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int STRIPES = 64;
+
+    private static class Page {
+        final byte[] tags = new byte[PAGE_SIZE];
+        final int[] payloads = new int[PAGE_SIZE];
+        // location type for reference cells, the value itself for any other non primitive cell
+        final Object[] objects = new Object[PAGE_SIZE];
+    }
+
+    private final int blockSize;
+    // a page is only added under the lock of the table, readers that miss it look again under it
+    private volatile Page[] pages;
+    private final Object[] stripes = new Object[STRIPES];
+    private AtomicInteger nextFreeAddress;
+    // addresses released by deallocate, handed out again before any new address
+    private ConcurrentLinkedQueue<Integer> freeAddresses;
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger peakSize = new AtomicInteger();
+    private final AtomicLong allocationCount = new AtomicLong();
+    // replaced by restore, the ranges buffers took before it are not handed out anymore
+    private volatile Object generation = new Object();
+    private volatile StateListener listener;
+
+    public PrimitiveHeapTable(int initialCapacity) {
+        this.blockSize = ConcurentHeapTable.DEFAULT_BLOCK_SIZE;
+        this.pages = new Page[Math.max((initialCapacity + PAGE_SIZE - 1) >>> PAGE_BITS, 1)];
+        for (int i = 0; i < STRIPES; i++)
+            this.stripes[i] = new Object();
+        this.nextFreeAddress = new AtomicInteger(1);
+        this.freeAddresses = new ConcurrentLinkedQueue<>();
+    }
+
+    public PrimitiveHeapTable() {
+        this(1024);
+    }
+
+    @Override
+    public int allocate(IValue value) throws InvalidAddressException {
+        Integer address = this.freeAddresses.poll();
+        return store(address != null ? address : this.nextFreeAddress.getAndIncrement(), value);
+    }
+
+    @Override
+    public int allocate(IValue value, AllocationBuffer buffer) throws InvalidAddressException {
+        Integer address = this.freeAddresses.poll();
+        if (address != null)
+            return store(address, value);
+        Object generation = this.generation;
+        if (buffer.isExhausted() || buffer.owner != generation)
+            buffer.refill(generation, this.nextFreeAddress.getAndAdd(this.blockSize), this.blockSize);
+        return store(buffer.take(), value);
+    }
+
+    @Override
+    public void release(AllocationBuffer buffer) {
+        if (buffer.owner == this.generation) {
+            while (!buffer.isExhausted())
+                this.freeAddresses.offer(buffer.take());
+        }
+        buffer.clear();
+    }
+
+    private int store(int address, IValue value) throws InvalidAddressException {
+        Page page = page(address);
+        int cell = address & (PAGE_SIZE - 1);
+        synchronized (stripe(address)) {
+            if (page.tags[cell] != FREE)
+                throw new InvalidAddressException("Address "+Integer.toString(address)+" is already allocated");
+            set(page, cell, value);
+        }
+        int size = this.size.incrementAndGet();
+        if (size > this.peakSize.get())
+            this.peakSize.accumulateAndGet(size, Math::max);
+        this.allocationCount.incrementAndGet();
+        written(address, value);
+        return address;
+    }
+
+    @Override
+    public void deallocate(int address) throws InvalidAddressException {
+        Page page = existingPage(address);
+        if (page == null)
+            return;
+        int cell = address & (PAGE_SIZE - 1);
+        synchronized (stripe(address)) {
+            if (page.tags[cell] == FREE)
+                return;
+            page.tags[cell] = FREE;
+            page.payloads[cell] = 0;
+            page.objects[cell] = null;
+        }
+        this.size.decrementAndGet();
+        this.freeAddresses.offer(address);
+        StateListener listener = this.listener;
+        if (listener != null)
+            listener.heapFreed(this, address);
+    }
+
+    @Override
+    public void write(int address, IValue value) throws InvalidAddressException {
+        Page page = existingPage(address);
+        int cell = address & (PAGE_SIZE - 1);
+        synchronized (stripe(address)) {
+            if (page == null || page.tags[cell] == FREE)
+                throw new InvalidAddressException("Address "+Integer.toString(address)+" out of bounds");
+            set(page, cell, value);
+        }
+        written(address, value);
+    }
+
+    @Override
+    public IValue read(int address) throws InvalidAddressException {
+        Page page = existingPage(address);
+        int cell = address & (PAGE_SIZE - 1);
+        synchronized (stripe(address)) {
+            if (page == null || page.tags[cell] == FREE)
+                throw new InvalidAddressException("Address "+Integer.toString(address)+" not found in heap table or out of bounds");
+            return materialize(page, cell);
+        }
+    }
+
+    @Override
+    public int readInt(int address) throws InvalidAddressException {
+        Page page = existingPage(address);
+        int cell = address & (PAGE_SIZE - 1);
+        synchronized (stripe(address)) {
+            if (page == null || page.tags[cell] == FREE)
+                throw new InvalidAddressException("Address "+Integer.toString(address)+" not found in heap table or out of bounds");
+            if (page.tags[cell] != INT)
+                throw new InvalidAddressException("Address "+Integer.toString(address)+" does not hold an integer");
+            return page.payloads[cell];
+        }
+    }
+
+    @Override
+    public void writeInt(int address, int value) throws InvalidAddressException {
+        Page page = existingPage(address);
+        int cell = address & (PAGE_SIZE - 1);
+        synchronized (stripe(address)) {
+            if (page == null || page.tags[cell] == FREE)
+                throw new InvalidAddressException("Address "+Integer.toString(address)+" out of bounds");
+            page.tags[cell] = INT;
+            page.payloads[cell] = value;
+            page.objects[cell] = null;
+        }
+        // the value is only boxed for a listener
+        if (listener != null)
+            written(address, new IntValue(value));
+    }
+
+    @Override
+    public boolean supportsPrimitiveInts() {
+        return true;
+    }
+
+    @Override
+    public boolean contains(int address) {
+        Page page = existingPage(address);
+        if (page == null)
+            return false;
+        synchronized (stripe(address)) {
+            return page.tags[address & (PAGE_SIZE - 1)] != FREE;
+        }
+    }
+
+    // the cells of all the pages in address order, each read under its stripe
+    @Override
+    public Map<Integer, IValue> toMap() {
+        Map<Integer, IValue> map = new TreeMap<>();
+        int end = this.nextFreeAddress.get();
+        for (int address = 1; address < end; address++) {
+            Page page = existingPage(address);
+            if (page == null) {
+                address |= PAGE_SIZE - 1;
+                continue;
+            }
+            int cell = address & (PAGE_SIZE - 1);
+            synchronized (stripe(address)) {
+                if (page.tags[cell] != FREE)
+                    map.put(address, materialize(page, cell));
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public int[] addresses() {
+        int[] addresses = new int[16];
+        int count = 0;
+        int end = this.nextFreeAddress.get();
+        for (int address = 1; address < end; address++) {
+            Page page = existingPage(address);
+            if (page == null) {
+                address |= PAGE_SIZE - 1;
+                continue;
+            }
+            boolean allocated;
+            synchronized (stripe(address)) {
+                allocated = page.tags[address & (PAGE_SIZE - 1)] != FREE;
+            }
+            if (allocated) {
+                if (count == addresses.length)
+                    addresses = Arrays.copyOf(addresses, count * 2);
+                addresses[count++] = address;
+            }
+        }
+        return Arrays.copyOf(addresses, count);
+    }
+
+    // only called while no program runs on the heap
+    @Override
+    public synchronized void restore(Map<Integer, IValue> contents) {
+        int highest = contents.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+        this.pages = new Page[Math.max((highest >>> PAGE_BITS) + 1, 1)];
+        contents.forEach((address, value) -> set(page(address), address & (PAGE_SIZE - 1), value));
+        // the addresses that were free below the highest one are handed out first, as before the checkpoint
+        ConcurrentLinkedQueue<Integer> free = new ConcurrentLinkedQueue<>();
+        for (int address = 1; address < highest; address++) {
+            if (!contents.containsKey(address))
+                free.offer(address);
+        }
+        this.freeAddresses = free;
+        this.nextFreeAddress = new AtomicInteger(highest + 1);
+        this.size.set(contents.size());
+        this.peakSize.set(contents.size());
+        this.generation = new Object();
+        StateListener listener = this.listener;
+        if (listener != null)
+            listener.heapRestored(this);
+    }
+
+    @Override
+    public int size() {
+        return this.size.get();
+    }
+
+    @Override
+    public long getAllocationCount() {
+        return this.allocationCount.get();
+    }
+
+    @Override
+    public int getPeakSize() {
+        return this.peakSize.get();
+    }
+
+    @Override
+    public synchronized void addListener(StateListener listener) {
+        this.listener = StateListeners.add(this.listener, listener);
+    }
+
+    @Override
+    public synchronized void removeListener(StateListener listener) {
+        this.listener = StateListeners.remove(this.listener, listener);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder outS = new StringBuilder();
+        toMap().forEach((address, value) -> outS.append(address).append(" --> ").append(value.toString()).append("|"));
+        return outS.toString();
+    }
+
+    private void written(int address, IValue value) {
+        StateListener listener = this.listener;
+        if (listener != null)
+            listener.heapWritten(this, address, value);
+    }
+
+    private Object stripe(int address) {
+        return stripes[address & (STRIPES - 1)];
+    }
+
+    // null when nothing was ever stored on the page of the address
+    private Page existingPage(int address) {
+        if (address <= 0)
+            return null;
+        Page[] pages = this.pages;
+        int index = address >>> PAGE_BITS;
+        Page page = index < pages.length ? pages[index] : null;
+        if (page == null && index < pages.length)
+            page = lockedPage(index, false);
+        return page;
+    }
+
+    private Page page(int address) throws InvalidAddressException {
+        if (address <= 0)
+            throw new InvalidAddressException("Address "+Integer.toString(address)+" out of bounds");
+        Page[] pages = this.pages;
+        int index = address >>> PAGE_BITS;
+        Page page = index < pages.length ? pages[index] : null;
+        return page != null ? page : lockedPage(index, true);
+    }
+
+    private synchronized Page lockedPage(int index, boolean create) {
+        Page[] pages = this.pages;
+        if (index < pages.length && pages[index] != null)
+            return pages[index];
+        if (!create)
+            return null;
+        if (index >= pages.length)
+            pages = Arrays.copyOf(pages, Math.max(index + 1, pages.length * 2));
+        pages[index] = new Page();
+        // written again so that readers of the field see the new page
+        this.pages = pages;
+        return pages[index];
+    }
+
+    private static void set(Page page, int cell, IValue value) {
+        if (value instanceof IntValue) {
+            page.tags[cell] = INT;
+            page.payloads[cell] = ((IntValue) value).getVal();
+            page.objects[cell] = null;
+        } else if (value instanceof BoolValue) {
+            page.tags[cell] = BOOL;
+            page.payloads[cell] = ((BoolValue) value).getVal() ? 1 : 0;
+            page.objects[cell] = null;
+        } else if (value instanceof ReferenceValue) {
+            page.tags[cell] = REFERENCE;
+            page.payloads[cell] = ((ReferenceValue) value).getAddress();
+            page.objects[cell] = ((ReferenceValue) value).getLocationType();
+        } else {
+            page.tags[cell] = OBJECT;
+            page.payloads[cell] = 0;
+            page.objects[cell] = value;
+        }
+    }
+
+    private static IValue materialize(Page page, int cell) {
+        switch (page.tags[cell]) {
+            case INT:
+                return new IntValue(page.payloads[cell]);
+            case BOOL:
+                return new BoolValue(page.payloads[cell] != 0);
+            case REFERENCE:
+                return new ReferenceValue(page.payloads[cell], (IType) page.objects[cell]);
+            default:
+                return (IValue) page.objects[cell];
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package model.programStateComponents;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A file opened once for every program of a run. Reads are positional, so any number of
+// cursors can read it at the same time. Every handle holds a reference and the channel is
+// closed when the last one is released.
+public class SharedFile {
+    private final String path;
+    private final FileChannel channel;
+    private final ConcurrentHashMap<String, SharedFile> registry;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private SharedFile(String path, FileChannel channel, ConcurrentHashMap<String, SharedFile> registry) {
+        this.path = path;
+        this.channel = channel;
+        this.registry = registry;
+    }
+
+    static SharedFile open(String path, ConcurrentHashMap<String, SharedFile> registry) throws IOException {
+        return new SharedFile(path, FileChannel.open(Paths.get(path), StandardOpenOption.READ), registry);
+    }
+
+    // fails once the last reference is gone, the caller then has to open the file again
+    boolean retain() {
+        int count;
+        do {
+            count = references.get();
+            if (count == 0)
+                return false;
+        } while (!references.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    void release() throws IOException {
+        if (references.decrementAndGet() == 0) {
+            registry.remove(path, this);
+            channel.close();
+        }
+    }
+
+    int read(ByteBuffer buffer, long position) throws IOException {
+        return channel.read(buffer, position);
+    }
+
+    MappedByteBuffer map(long position, long length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getReferences() {
+        return references.get();
+    }
+}
@@ -0,0 +1,134 @@
+package model.programStateComponents;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// A file opened for writing by the programs of a run. Writers only queue their lines, whoever
+// fills a batch commits the lines of every thread with one write while the others keep going.
+// Like SharedFile every handle holds a reference, the last release flushes and closes it.
+public class SharedWriteFile {
+    static final int BATCH_BYTES = 1 << 16;
+
+    private final String path;
+    private final FileChannel channel;
+    private final ConcurrentHashMap<String, SharedWriteFile> registry;
+    private final AtomicInteger references = new AtomicInteger(1);
+    private final ConcurrentLinkedQueue<byte[]> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingBytes = new AtomicInteger();
+    private final ReentrantLock commitLock = new ReentrantLock();
+    // guarded by commitLock
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_BYTES);
+    private long committed;
+
+    private SharedWriteFile(String path, FileChannel channel, long length, ConcurrentHashMap<String, SharedWriteFile> registry) {
+        this.path = path;
+        this.channel = channel;
+        this.committed = length;
+        this.registry = registry;
+    }
+
+    // keeps the first length bytes of the file and writes after them
+    static SharedWriteFile open(String path, long length, ConcurrentHashMap<String, SharedWriteFile> registry) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            channel.truncate(length);
+            return new SharedWriteFile(path, channel, Math.min(length, channel.size()), registry);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    boolean retain() {
+        int count;
+        do {
+            count = references.get();
+            if (count == 0)
+                return false;
+        } while (!references.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    void release() throws IOException {
+        if (references.decrementAndGet() == 0) {
+            registry.remove(path, this);
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    void writeLine(String line) throws IOException {
+        byte[] record = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        pending.add(record);
+        if (pendingBytes.addAndGet(record.length) >= BATCH_BYTES)
+            commit(false);
+    }
+
+    // writes everything queued so far, waiting for a commit that is already running
+    public void flush() throws IOException {
+        commit(true);
+    }
+
+    public long getCommittedLength() {
+        commitLock.lock();
+        try {
+            return committed;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    // a thread that finds a commit running leaves its lines to it, unless it has to wait for them
+    private void commit(boolean wait) throws IOException {
+        do {
+            if (wait)
+                commitLock.lock();
+            else if (!commitLock.tryLock())
+                return;
+            try {
+                byte[] record;
+                while ((record = pending.poll()) != null) {
+                    pendingBytes.addAndGet(-record.length);
+                    int offset = 0;
+                    while (offset < record.length) {
+                        if (!batch.hasRemaining())
+                            writeBatch();
+                        int length = Math.min(batch.remaining(), record.length - offset);
+                        batch.put(record, offset, length);
+                        offset += length;
+                    }
+                }
+                writeBatch();
+            } finally {
+                commitLock.unlock();
+            }
+            // a full batch queued while this one was written would otherwise wait for the next writer
+        } while (!wait && pendingBytes.get() >= BATCH_BYTES);
+    }
+
+    private void writeBatch() throws IOException {
+        batch.flip();
+        while (batch.hasRemaining())
+            committed += channel.write(batch, committed);
+        batch.clear();
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getReferences() {
+        return references.get();
+    }
+}
@@ -0,0 +1,36 @@
+package model.programStateComponents;
+
+import model.ProgramState;
+import model.statement.IStatement;
+import model.values.IValue;
+
+// Told about every change to the components it is attached to, right after it is made and on the
+// thread that made it. Forked programs change a shared heap or output concurrently, so the
+// methods can be called from several threads at once.
+public interface StateListener {
+    default void heapWritten(IHeap heap, int address, IValue value) {}
+
+    default void heapFreed(IHeap heap, int address) {}
+
+    // the whole content was replaced
+    default void heapRestored(IHeap heap) {}
+
+    default void symbolWritten(SymbolTable table, String name, IValue value) {}
+
+    default void symbolRemoved(SymbolTable table, String name) {}
+
+    default void outputAppended(IOutput output, IValue value) {}
+
+    default void statementPushed(ExecutionStack stack, IStatement statement) {}
+
+    default void statementPopped(ExecutionStack stack) {}
+
+    // a fork or a new run joined the program list
+    default void programStarted(ProgramState program) {}
+
+    // the program completed or its run failed
+    default void programFinished(ProgramState program) {}
+
+    // the program list was replaced as a whole
+    default void programsReset() {}
+}
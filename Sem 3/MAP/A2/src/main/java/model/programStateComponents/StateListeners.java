@@ -0,0 +1,114 @@
+package model.programStateComponents;
+
+import model.ProgramState;
+import model.statement.IStatement;
+import model.values.IValue;
+
+import java.util.Arrays;
+
+// Several listeners on one component, the GUI follows the program it shows while checkpoints and
+// traces follow every program. A component keeps a single listener field, add and remove give the
+// listener to keep there: nothing, the one listener or one of these passing every call on.
+public final class StateListeners implements StateListener {
+    private final StateListener[] listeners;
+
+    private StateListeners(StateListener[] listeners) {
+        this.listeners = listeners;
+    }
+
+    public static StateListener add(StateListener current, StateListener added) {
+        if (current == null)
+            return added;
+        if (added == null)
+            return current;
+        StateListener[] listeners = current instanceof StateListeners ? ((StateListeners) current).listeners : new StateListener[]{current};
+        StateListener[] grown = Arrays.copyOf(listeners, listeners.length + 1);
+        grown[listeners.length] = added;
+        return new StateListeners(grown);
+    }
+
+    public static StateListener remove(StateListener current, StateListener removed) {
+        if (current == removed)
+            return null;
+        if (!(current instanceof StateListeners))
+            return current;
+        StateListener[] listeners = ((StateListeners) current).listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == removed) {
+                if (listeners.length == 2)
+                    return listeners[1 - i];
+                StateListener[] shrunk = new StateListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, shrunk, 0, i);
+                System.arraycopy(listeners, i + 1, shrunk, i, listeners.length - i - 1);
+                return new StateListeners(shrunk);
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public void heapWritten(IHeap heap, int address, IValue value) {
+        for (StateListener listener : listeners)
+            listener.heapWritten(heap, address, value);
+    }
+
+    @Override
+    public void heapFreed(IHeap heap, int address) {
+        for (StateListener listener : listeners)
+            listener.heapFreed(heap, address);
+    }
+
+    @Override
+    public void heapRestored(IHeap heap) {
+        for (StateListener listener : listeners)
+            listener.heapRestored(heap);
+    }
+
+    @Override
+    public void symbolWritten(SymbolTable table, String name, IValue value) {
+        for (StateListener listener : listeners)
+            listener.symbolWritten(table, name, value);
+    }
+
+    @Override
+    public void symbolRemoved(SymbolTable table, String name) {
+        for (StateListener listener : listeners)
+            listener.symbolRemoved(table, name);
+    }
+
+    @Override
+    public void outputAppended(IOutput output, IValue value) {
+        for (StateListener listener : listeners)
+            listener.outputAppended(output, value);
+    }
+
+    @Override
+    public void statementPushed(ExecutionStack stack, IStatement statement) {
+        for (StateListener listener : listeners)
+            listener.statementPushed(stack, statement);
+    }
+
+    @Override
+    public void statementPopped(ExecutionStack stack) {
+        for (StateListener listener : listeners)
+            listener.statementPopped(stack);
+    }
+
+    @Override
+    public void programStarted(ProgramState program) {
+        for (StateListener listener : listeners)
+            listener.programStarted(program);
+    }
+
+    @Override
+    public void programFinished(ProgramState program) {
+        for (StateListener listener : listeners)
+            listener.programFinished(program);
+    }
+
+    @Override
+    public void programsReset() {
+        for (StateListener listener : listeners)
+            listener.programsReset();
+    }
+}
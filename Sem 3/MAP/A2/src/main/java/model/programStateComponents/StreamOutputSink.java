@@ -0,0 +1,67 @@
+package model.programStateComponents;
+
+import exception.FileException;
+import model.values.IValue;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+
+// One printed value per line, to a file or to stdout
+public class StreamOutputSink implements OutputSink {
+    private final Writer writer;
+    private final boolean closeable;
+
+    private StreamOutputSink(Writer writer, boolean closeable) {
+        this.writer = new BufferedWriter(writer, 1 << 16);
+        this.closeable = closeable;
+    }
+
+    public static StreamOutputSink toFile(String path, boolean append) throws FileException {
+        try {
+            return new StreamOutputSink(new FileWriter(path, append), true);
+        } catch (IOException e) {
+            throw new FileException("Error opening output file: " + e.getMessage());
+        }
+    }
+
+    public static StreamOutputSink toStdout() {
+        return new StreamOutputSink(new OutputStreamWriter(System.out), false);
+    }
+
+    @Override
+    public void write(long firstSequence, List<IValue> batch) throws FileException {
+        try {
+            for (IValue value : batch) {
+                writer.write(value.toString());
+                writer.write(System.lineSeparator());
+            }
+        } catch (IOException e) {
+            throw new FileException("Error writing output: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void flush() throws FileException {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new FileException("Error writing output: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws FileException {
+        try {
+            if (closeable)
+                writer.close();
+            else
+                writer.flush();
+        } catch (IOException e) {
+            throw new FileException("Error closing output: " + e.getMessage());
+        }
+    }
+}
@@ -1,61 +1,198 @@
 package model.programStateComponents;
 
 import model.adts.MyDictionary;
+import model.adts.PersistentDictionary;
+import model.adts.SlotTable;
 import exception.AdtException;
 import model.values.IValue;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+public class SymbolTable extends PersistentDictionary<String, IValue> implements ISymbolTable {
+    // the slots of the program, a name it gives a slot lives in the array instead of the map
+    private SlotTable slots = SlotTable.EMPTY;
+    private IValue[] slotValues = new IValue[0];
+    // set once a copy shares the slot array, the first write after that clones it
+    private boolean slotsShared;
+    // not carried over to copies, a fork starts without one
+    private volatile StateListener listener;
 
-public class SymbolTable extends MyDictionary<String, IValue> implements ISymbolTable {
     @Override
     public void put(String key, IValue value) throws AdtException {
+        int slot = slots.slotOf(key);
+        if (slot >= 0) {
+            declareSlot(slot, value);
+            return;
+        }
         super.put(key, value);
+        written(key, value);
     }
 
     @Override
     public void give(String key, IValue value) throws AdtException {
+        int slot = slots.slotOf(key);
+        if (slot >= 0) {
+            writeSlot(slot, value);
+            return;
+        }
         super.give(key, value);
+        written(key, value);
     }
 
     @Override
     public IValue lookup(String key) throws AdtException {
+        int slot = slots.slotOf(key);
+        if (slot >= 0)
+            return lookupSlot(slot);
         return super.lookup(key);
     }
 
     @Override
     public boolean isDefined(String id) {
+        int slot = slots.slotOf(id);
+        if (slot >= 0)
+            return slotValues[slot] != null;
         return super.isDefined(id);
     }
 
     @Override
     public void remove(String key) {
-        super.remove(key);
+        int slot = slots.slotOf(key);
+        if (slot >= 0) {
+            ownSlots();
+            slotValues[slot] = null;
+        } else {
+            super.remove(key);
+        }
+        StateListener listener = this.listener;
+        if (listener != null)
+            listener.symbolRemoved(this, key);
+    }
+
+    // null for a variable not declared yet
+    public IValue readSlot(int slot) {
+        return slotValues[slot];
+    }
+
+    public IValue lookupSlot(int slot) throws AdtException {
+        IValue value = slotValues[slot];
+        if (value == null)
+            throw new AdtException("Key not found in dictionary");
+        return value;
+    }
+
+    public void declareSlot(int slot, IValue value) throws AdtException {
+        if (slotValues[slot] != null)
+            throw new AdtException("Key already exists in dictionary");
+        ownSlots();
+        slotValues[slot] = value;
+        written(slots.getName(slot), value);
+    }
+
+    public void writeSlot(int slot, IValue value) throws AdtException {
+        if (slotValues[slot] == null)
+            throw new AdtException("Key not found in dictionary");
+        ownSlots();
+        slotValues[slot] = value;
+        written(slots.getName(slot), value);
+    }
+
+    private void written(String name, IValue value) {
+        StateListener listener = this.listener;
+        if (listener != null)
+            listener.symbolWritten(this, name, value);
+    }
+
+    public synchronized void addListener(StateListener listener) {
+        this.listener = StateListeners.add(this.listener, listener);
+    }
+
+    public synchronized void removeListener(StateListener listener) {
+        this.listener = StateListeners.remove(this.listener, listener);
+    }
+
+    private void ownSlots() {
+        if (slotsShared) {
+            slotValues = slotValues.clone();
+            slotsShared = false;
+        }
+    }
+
+    public SlotTable getSlots() {
+        return slots;
+    }
+
+    // the table of a program is given before any of its variables is declared
+    public void setSlots(SlotTable slots) {
+        if (slots == this.slots)
+            return;
+        if (size() != 0 || Arrays.stream(slotValues).anyMatch(Objects::nonNull))
+            throw new IllegalStateException("The slots of a symbol table holding variables cannot change");
+        this.slots = slots;
+        this.slotValues = new IValue[slots.getSlotCount()];
+        this.slotsShared = false;
+    }
+
+    public int getSlotCount() {
+        return slotValues.length;
+    }
+
+    // only the variables that were not resolved to a slot
+    public Map<String, IValue> toNamedMap() {
+        return super.toMap();
     }
 
     public SymbolTable() {
         super();
     }
 
+    public SymbolTable(SlotTable slots) {
+        this();
+        setSlots(slots);
+    }
+
     public SymbolTable(MyDictionary<String, IValue> table) {
-        super();
+        this();
+    }
+
+    private SymbolTable(SymbolTable other) {
+        super(other);
     }
 
 
     public String toString() {
-        return super.toString();
+        StringBuilder outS = new StringBuilder();
+        forEach((key, value) -> outS.append(key).append(" --> ").append(value.toString()).append("|"));
+        return outS.toString();
     }
 
 
     public SymbolTable copy() {
-        SymbolTable newTable = new SymbolTable();
-        for (String key : super.dict.keySet()){
-            newTable.dict.put(key, super.dict.get(key));
-        }
+        SymbolTable newTable = new SymbolTable(this);
+        newTable.slots = slots;
+        newTable.slotValues = slotValues;
+        newTable.slotsShared = true;
+        this.slotsShared = true;
         return newTable;
     }
 
+    @Override
+    public void forEach(BiConsumer<? super String, ? super IValue> action) {
+        super.forEach(action);
+        for (int i = 0; i < slotValues.length; i++) {
+            if (slotValues[i] != null)
+                action.accept(slots.getName(i), slotValues[i]);
+        }
+    }
+
     public Map<String, IValue> toMap(){
-        return super.toMap();
+        Map<String, IValue> map = new LinkedHashMap<>();
+        forEach(map::put);
+        return map;
     }
 }
@@ -8,20 +8,37 @@ import model.expresion.IExpression;
 import model.programStateComponents.SymbolTable;
 import model.type.IType;
 import model.values.IValue;
+import model.values.ValueCollector;
 
 public class AsignStatement implements IStatement {
     String id;
     IExpression expression;
+    final int slot;
 
     public AsignStatement(String id, IExpression expression) {
+        this(id, expression, -1);
+    }
+
+    private AsignStatement(String id, IExpression expression, int slot) {
         this.id = id;
         this.expression = expression;
+        this.slot = slot;
     }
 
     @Override
     public ProgramState execute(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
         MyIStack<IStatement> stack = state.getExecutionStack();
         SymbolTable symbolTable = state.getSymbolTable();
+        if (slot >= 0) {
+            IValue current = symbolTable.readSlot(slot);
+            if (current == null)
+                throw new VariableNotDefinedException("The used variable " + id + " was not declared before");
+            IValue value = expression.evaluate(state);
+            if (!value.getType().equals(current.getType()))
+                throw new ExpressionException("Declared type of variable " + id + " and type of the assigned expression do not match");
+            symbolTable.writeSlot(slot, value);
+            return null;
+        }
         if (symbolTable.isDefined(id)) {
             IValue value = expression.evaluate(state);
             IType type = symbolTable.lookup(id).getType();
@@ -35,6 +52,22 @@ public class AsignStatement implements IStatement {
         return null;
     }
 
+    @Override
+    public IStatement resolve(SlotResolver resolver) {
+        return new AsignStatement(id, resolver.expression(expression), resolver.slotOf(id));
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.name(id);
+        encoder.expression(expression);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        expression.collectValues(collector);
+    }
+
     @Override
     public String toString() {
         return id + " = " + expression.toString();
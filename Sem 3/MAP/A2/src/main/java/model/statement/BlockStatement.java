@@ -0,0 +1,176 @@
+package model.statement;
+
+import exception.AdtException;
+import exception.ExecutionException;
+import exception.ExpressionException;
+import exception.TypeNotMatchException;
+import model.ProgramState;
+import model.adts.MyDictionary;
+import model.bytecode.BytecodeCompiler;
+import model.type.IType;
+import model.values.ValueCollector;
+
+import java.util.List;
+
+// Statements run one after the other, kept in an array instead of a chain of compounds. Running the
+// block runs its first statement in the same step and leaves a continuation for the rest on the
+// stack, which runs the next one and leaves the one after it. A statement costs one pop and one
+// push, and the block is walked with loops, so its length never shows on the Java stack.
+public class BlockStatement implements IStatement {
+    final IStatement[] statements;
+    // one continuation per position, made the first time the block gets there. Forks share the
+    // block, two threads making the same one only waste an object.
+    private Continuation[] continuations;
+
+    public BlockStatement(IStatement... statements) {
+        this.statements = statements.clone();
+    }
+
+    public BlockStatement(List<IStatement> statements) {
+        this.statements = statements.toArray(new IStatement[0]);
+    }
+
+    public int size() {
+        return statements.length;
+    }
+
+    public IStatement get(int index) {
+        return statements[index];
+    }
+
+    @Override
+    public ProgramState execute(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
+        return executeFrom(0, state);
+    }
+
+    ProgramState executeFrom(int index, ProgramState state) throws ExpressionException, AdtException, ExecutionException {
+        if (index >= statements.length)
+            return null;
+        // the rest goes under whatever the statement pushes
+        if (index + 1 < statements.length)
+            state.getExecutionStack().push(continuation(index + 1));
+        return statements[index].execute(state);
+    }
+
+    public Continuation continuation(int index) {
+        Continuation[] continuations = this.continuations;
+        if (continuations == null) {
+            continuations = new Continuation[statements.length];
+            this.continuations = continuations;
+        }
+        Continuation continuation = continuations[index];
+        if (continuation == null) {
+            continuation = new Continuation(this, index);
+            continuations[index] = continuation;
+        }
+        return continuation;
+    }
+
+    @Override
+    public MyDictionary<String, IType> typecheck(MyDictionary<String, IType> typeEnv) throws TypeNotMatchException {
+        return typecheckFrom(0, typeEnv);
+    }
+
+    MyDictionary<String, IType> typecheckFrom(int index, MyDictionary<String, IType> typeEnv) throws TypeNotMatchException {
+        for (int i = index; i < statements.length; i++)
+            typeEnv = statements[i].typecheck(typeEnv);
+        return typeEnv;
+    }
+
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        compileFrom(0, compiler);
+    }
+
+    void compileFrom(int index, BytecodeCompiler compiler) {
+        for (int i = index; i < statements.length; i++)
+            statements[i].compile(compiler);
+    }
+
+    @Override
+    public IStatement resolve(SlotResolver resolver) {
+        IStatement[] resolved = new IStatement[statements.length];
+        for (int i = 0; i < statements.length; i++)
+            resolved[i] = resolver.statement(statements[i]);
+        return new BlockStatement(resolved);
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.number(statements.length);
+        for (IStatement statement : statements)
+            encoder.statement(statement);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        for (IStatement statement : statements)
+            collector.statement(statement);
+    }
+
+    @Override
+    public String toString() {
+        return toStringFrom(0);
+    }
+
+    String toStringFrom(int index) {
+        if (index >= statements.length)
+            return "nop";
+        StringBuilder builder = new StringBuilder();
+        for (int i = index; i < statements.length; i++) {
+            if (i > index)
+                builder.append(" , ");
+            builder.append(statements[i]);
+        }
+        return builder.toString();
+    }
+
+    // what is left of a block from an index on
+    public static class Continuation implements IStatement {
+        final BlockStatement block;
+        final int index;
+
+        Continuation(BlockStatement block, int index) {
+            this.block = block;
+            this.index = index;
+        }
+
+        @Override
+        public ProgramState execute(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
+            return block.executeFrom(index, state);
+        }
+
+        @Override
+        public MyDictionary<String, IType> typecheck(MyDictionary<String, IType> typeEnv) throws TypeNotMatchException {
+            return block.typecheckFrom(index, typeEnv);
+        }
+
+        @Override
+        public void compile(BytecodeCompiler compiler) {
+            block.compileFrom(index, compiler);
+        }
+
+        // a restored stack holds continuations, they go on in the copy of their block
+        @Override
+        public IStatement resolve(SlotResolver resolver) {
+            return ((BlockStatement) resolver.statement(block)).continuation(index);
+        }
+
+        @Override
+        public void encode(NodeEncoder encoder) {
+            encoder.statement(block);
+            encoder.number(index);
+        }
+
+        // the values of the whole block, they are collected once for all its continuations
+        @Override
+        public void collectValues(ValueCollector collector) {
+            collector.statement(block);
+        }
+
+        @Override
+        public String toString() {
+            return block.toStringFrom(index);
+        }
+    }
+}
@@ -8,8 +8,8 @@ import model.type.IType;
 import model.type.StringType;
 import model.values.IValue;
 import model.values.StringValue;
+import model.values.ValueCollector;
 
-import java.io.BufferedReader;
 
 public class CloseReadFileStatement implements IStatement{
     IExpression expression;
@@ -27,16 +27,25 @@ public class CloseReadFileStatement implements IStatement{
         StringValue stringValue = (StringValue) value;
         if(!state.getFileTable().isDefined(stringValue))
             throw new FileException("File not opened");
-        BufferedReader bufferedReader = state.getFileTable().lookup(stringValue);
-        try {
-            bufferedReader.close();
-        }catch (Exception e){
-            throw new FileException("Error closing file: " + e.getMessage());
-        }
-        state.getFileTable().remove(stringValue);
+        state.getFileTable().close(stringValue);
         return null;
     }
 
+    @Override
+    public IStatement resolve(SlotResolver resolver) {
+        return new CloseReadFileStatement(resolver.expression(expression));
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.expression(expression);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        expression.collectValues(collector);
+    }
+
     @Override
     public String toString() {
         return "CRF[" +expression +']';
@@ -3,11 +3,18 @@ package model.statement;
 import exception.TypeNotMatchException;
 import model.ProgramState;
 import model.adts.MyDictionary;
+import model.bytecode.BytecodeCompiler;
 import model.adts.MyIStack;
 import exception.AdtException;
 import exception.ExpressionException;
 import model.type.IType;
+import model.values.ValueCollector;
 
+import java.util.ArrayList;
+import java.util.List;
+
+// Hand-built programs nest compounds to the right, the methods below follow that chain with a loop
+// so a long one does not recurse once per statement.
 public class CompoundStatement implements IStatement {
     IStatement first;
     IStatement second;
@@ -19,7 +26,13 @@ public class CompoundStatement implements IStatement {
 
     @Override
     public MyDictionary<String, IType> typecheck(MyDictionary<String, IType>  typeEnv) throws TypeNotMatchException {
-        return second.typecheck(first.typecheck(typeEnv));
+        IStatement current = this;
+        while (current instanceof CompoundStatement) {
+            CompoundStatement compound = (CompoundStatement) current;
+            typeEnv = compound.first.typecheck(typeEnv);
+            current = compound.second;
+        }
+        return current.typecheck(typeEnv);
     }
 
     @Override
@@ -30,8 +43,58 @@ public class CompoundStatement implements IStatement {
         return null;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        IStatement current = this;
+        while (current instanceof CompoundStatement) {
+            CompoundStatement compound = (CompoundStatement) current;
+            compound.first.compile(compiler);
+            current = compound.second;
+        }
+        current.compile(compiler);
+    }
+
+    @Override
+    public IStatement resolve(SlotResolver resolver) {
+        List<IStatement> firsts = new ArrayList<>();
+        IStatement current = this;
+        while (current instanceof CompoundStatement) {
+            CompoundStatement compound = (CompoundStatement) current;
+            firsts.add(resolver.statement(compound.first));
+            current = compound.second;
+        }
+        IStatement resolved = resolver.statement(current);
+        for (int i = firsts.size() - 1; i >= 0; i--)
+            resolved = new CompoundStatement(firsts.get(i), resolved);
+        return resolved;
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.statement(first);
+        encoder.statement(second);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        IStatement current = this;
+        while (current instanceof CompoundStatement) {
+            CompoundStatement compound = (CompoundStatement) current;
+            collector.statement(compound.first);
+            current = compound.second;
+        }
+        collector.statement(current);
+    }
+
     @Override
     public String toString() {
-        return first.toString() + " , " + second.toString();
+        StringBuilder builder = new StringBuilder();
+        IStatement current = this;
+        while (current instanceof CompoundStatement) {
+            CompoundStatement compound = (CompoundStatement) current;
+            builder.append(compound.first).append(" , ");
+            current = compound.second;
+        }
+        return builder.append(current).toString();
     }
 }
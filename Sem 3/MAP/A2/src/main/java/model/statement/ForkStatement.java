@@ -6,8 +6,10 @@ import exception.AdtException;
 import exception.ExecutionException;
 import exception.ExpressionException;
 import model.adts.MyDictionary;
+import model.bytecode.BytecodeCompiler;
 import model.programStateComponents.ExecutionStack;
 import model.type.IType;
+import model.values.ValueCollector;
 
 public class ForkStatement implements IStatement{
     IStatement innerStatement;
@@ -18,7 +20,10 @@ public class ForkStatement implements IStatement{
 
     @Override
     public ProgramState execute(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
-        return new ProgramState(new ExecutionStack(),state.getSymbolTable().copy(),state.getOutput(),state.getFileTable(), state.getHeapTable(), innerStatement);
+        ProgramState child = new ProgramState(new ExecutionStack(),state.getSymbolTable().copy(),state.getOutput(),state.getFileTable().fork(), state.getHeapTable(), innerStatement);
+        child.setSlots(state.getSlots());
+        child.setRunId(state.getRunId());
+        return child;
     }
 
     @Override
@@ -27,6 +32,26 @@ public class ForkStatement implements IStatement{
         return typeEnv;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        compiler.emitFork(innerStatement);
+    }
+
+    @Override
+    public IStatement resolve(SlotResolver resolver) {
+        return new ForkStatement(resolver.statement(innerStatement));
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.statement(innerStatement);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        collector.statement(innerStatement);
+    }
+
     @Override
     public String toString() {
         return "fork(" + innerStatement.toString() + ")";
@@ -6,7 +6,9 @@ import exception.AdtException;
 import exception.ExecutionException;
 import exception.ExpressionException;
 import model.adts.MyDictionary;
+import model.bytecode.BytecodeCompiler;
 import model.type.IType;
+import model.values.ValueCollector;
 
 
 public interface IStatement {
@@ -14,5 +16,21 @@ public interface IStatement {
 
     MyDictionary<String, IType> typecheck(MyDictionary<String, IType> typeEnv) throws TypeNotMatchException;
 
+    default void compile(BytecodeCompiler compiler) {
+        compiler.emitStatement(this);
+    }
+
+    // every part the statement is made of, see NodeEncoder
+    void encode(NodeEncoder encoder);
+
+    default void collectValues(ValueCollector collector) {
+    }
+
+    // the statement with its variables bound to slots, see SlotResolver. Nodes with no variables
+    // and no parts are used as they are.
+    default IStatement resolve(SlotResolver resolver) {
+        return this;
+    }
+
     String toString();
 }
\ No newline at end of file
@@ -6,11 +6,13 @@ import exception.AdtException;
 import exception.ExecutionException;
 import exception.ExpressionException;
 import model.adts.MyDictionary;
+import model.bytecode.BytecodeCompiler;
 import model.expresion.IExpression;
 import model.type.BoolType;
 import model.type.IType;
 import model.values.BoolValue;
 import model.values.IValue;
+import model.values.ValueCollector;
 
 public class IfStatement implements IStatement {
     IStatement thenS;
@@ -36,6 +38,30 @@ public class IfStatement implements IStatement {
         return null;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        compiler.emitIf(exp, thenS, elseS);
+    }
+
+    @Override
+    public IStatement resolve(SlotResolver resolver) {
+        return new IfStatement(resolver.expression(exp), resolver.statement(thenS), resolver.statement(elseS));
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.expression(exp);
+        encoder.statement(thenS);
+        encoder.statement(elseS);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        exp.collectValues(collector);
+        collector.statement(thenS);
+        collector.statement(elseS);
+    }
+
     @Override
     public String toString() {
         return "if (" + exp + ") then (" + thenS + ")" + (!elseS.equals(new NopStatement()) ? "" : " else (" + elseS + ")");
@@ -0,0 +1,21 @@
+package model.statement;
+
+import model.expresion.IExpression;
+import model.type.IType;
+import model.values.IValue;
+
+// Takes the parts of a statement or expression in the order its constructor takes them, so a program
+// can be written down and made again without holding on to its nodes.
+public interface NodeEncoder {
+    void statement(IStatement statement);
+
+    void expression(IExpression expression);
+
+    void name(String name);
+
+    void number(int number);
+
+    void type(IType type);
+
+    void value(IValue value);
+}
@@ -5,6 +5,8 @@ import model.ProgramState;
 import exception.AdtException;
 import exception.ExpressionException;
 import model.adts.MyDictionary;
+import model.bytecode.BytecodeCompiler;
+import model.bytecode.NopInstruction;
 import model.type.IType;
 
 public class NopStatement implements IStatement {
@@ -14,6 +16,15 @@ public class NopStatement implements IStatement {
         return null;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        compiler.emit(new NopInstruction());
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+    }
+
     public String toString() {
         return "nop";
     }
@@ -4,20 +4,25 @@ import exception.*;
 import model.ProgramState;
 import model.adts.MyDictionary;
 import model.expresion.IExpression;
+import model.programStateComponents.FileAccessMode;
 import model.type.IType;
 import model.type.StringType;
 import model.values.IValue;
 import model.values.StringValue;
+import model.values.ValueCollector;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
 
 public class OpenReadFileStatement implements IStatement{
     IExpression expression;
+    FileAccessMode mode;
 
-    public OpenReadFileStatement(IExpression varName) {
+    public OpenReadFileStatement(IExpression varName, FileAccessMode mode) {
         this.expression = varName;
+        this.mode = mode;
+    }
+
+    public OpenReadFileStatement(IExpression varName) {
+        this(varName, FileAccessMode.BUFFERED);
     }
     @Override
     public ProgramState execute(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
@@ -30,21 +35,31 @@ public class OpenReadFileStatement implements IStatement{
         if(state.getFileTable().isDefined( stringValue)){
             throw new FileException("File with that name already opened");
         }
-        BufferedReader bufferedReader;
-
 
-        try {
-            bufferedReader = new BufferedReader(new FileReader(stringValue.getVal()));
-        }catch (IOException e) {
-            throw new FileException("Error opening file: " + e.getMessage());
-        }
-
-        state.getFileTable().put(stringValue, bufferedReader);
+        state.getFileTable().open(stringValue, mode, 0);
         return null;
      }
 
+    @Override
+    public IStatement resolve(SlotResolver resolver) {
+        return new OpenReadFileStatement(resolver.expression(expression), mode);
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.expression(expression);
+        encoder.number(mode.ordinal());
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        expression.collectValues(collector);
+    }
+
     @Override
     public String toString() {
+        if (mode == FileAccessMode.MAPPED)
+            return "ORF["+ expression + ", mapped]";
         return "ORF["+ expression + ']';
     }
 
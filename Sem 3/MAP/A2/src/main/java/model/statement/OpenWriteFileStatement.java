@@ -0,0 +1,68 @@
+package model.statement;
+
+import exception.*;
+import model.ProgramState;
+import model.adts.MyDictionary;
+import model.expresion.IExpression;
+import model.type.IType;
+import model.type.StringType;
+import model.values.IValue;
+import model.values.StringValue;
+import model.values.ValueCollector;
+
+
+public class OpenWriteFileStatement implements IStatement{
+    IExpression expression;
+
+    public OpenWriteFileStatement(IExpression expression) {
+        this.expression = expression;
+    }
+
+    @Override
+    public ProgramState execute(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
+        IValue value = expression.evaluate(state);
+        if(!value.getType().equals(new StringType())){
+            throw new FileException("File name must be a string");
+        }
+        StringValue stringValue = (StringValue) value;
+        if(state.getFileTable().isOpenForWriting(stringValue)){
+            throw new FileException("File with that name already opened");
+        }
+        state.getFileTable().openWrite(stringValue);
+        return null;
+    }
+
+    @Override
+    public IStatement resolve(SlotResolver resolver) {
+        return new OpenWriteFileStatement(resolver.expression(expression));
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.expression(expression);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        expression.collectValues(collector);
+    }
+
+    @Override
+    public String toString() {
+        return "OWF["+ expression + ']';
+    }
+
+    @Override
+    public MyDictionary<String, IType> typecheck(MyDictionary<String, IType>  typeEnv) throws TypeNotMatchException {
+        IType type;
+        try {
+            type = expression.typeCheck(typeEnv);
+        } catch (AdtException e) {
+            throw new TypeNotMatchException("OpenWriteFileStatement: " + e.getMessage());
+        }
+        if(!type.equals(new StringType())){
+            throw new TypeNotMatchException("OpenWriteFileStatement: Expression must be a string");
+        }
+        return typeEnv;
+    }
+}
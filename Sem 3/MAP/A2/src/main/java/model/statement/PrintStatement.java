@@ -8,6 +8,7 @@ import exception.ExpressionException;
 import model.adts.MyDictionary;
 import model.expresion.IExpression;
 import model.type.IType;
+import model.values.ValueCollector;
 
 public class PrintStatement implements IStatement{
     IExpression expression;
@@ -16,6 +17,21 @@ public class PrintStatement implements IStatement{
         this.expression = expression;
     }
 
+    @Override
+    public IStatement resolve(SlotResolver resolver) {
+        return new PrintStatement(resolver.expression(expression));
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.expression(expression);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        expression.collectValues(collector);
+    }
+
     @Override
     public String toString() {
         return "print["+expression.toString()+"]";
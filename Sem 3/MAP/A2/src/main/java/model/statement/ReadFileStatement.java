@@ -5,27 +5,35 @@ import exception.*;
 import model.adts.MyDictionary;
 import model.expresion.IExpression;
 import model.expresion.VariableExpression;
+import model.programStateComponents.SymbolTable;
 import model.type.IType;
 import model.type.IntType;
 import model.type.StringType;
 import model.values.IValue;
 import model.values.IntValue;
 import model.values.StringValue;
+import model.values.ValueCollector;
 
-import java.io.BufferedReader;
 
 public class ReadFileStatement implements IStatement{
     IExpression expression;
     String varName;
+    final int slot;
 
     public ReadFileStatement(VariableExpression exp, String var) {
+        this(exp, var, -1);
+    }
+
+    private ReadFileStatement(IExpression exp, String var, int slot) {
         this.expression = exp;
         this.varName = var;
+        this.slot = slot;
     }
 
     @Override
     public ProgramState execute(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
-        if(!state.getSymbolTable().isDefined(varName))
+        SymbolTable symbolTable = state.getSymbolTable();
+        if(slot >= 0 ? symbolTable.readSlot(slot) == null : !symbolTable.isDefined(varName))
             throw new VariableNotDefinedException("Variable \""+ varName+"\" not defined");
 
         IValue value = expression.evaluate(state);
@@ -35,27 +43,30 @@ public class ReadFileStatement implements IStatement{
         if(!state.getFileTable().isDefined(stringValue))
             throw new FileException("File not opened");
 
-        BufferedReader bufferedReader = state.getFileTable().lookup(stringValue);
-        String line;
-        try {
-            line = bufferedReader.readLine();
-        }catch (Exception e){
-            throw new FileException("Error reading from file: " + e.getMessage());
-        }
-        if(line == null)
-            state.getSymbolTable().give(varName, new IntValue(0));
-        else{
-            try{
-                Integer number = Integer.parseInt(line);
-                state.getSymbolTable().give(varName, new IntValue(number));
-            }
-            catch (NumberFormatException e){
-                state.getSymbolTable().give(varName, new IntValue(0));
-            }
-        }
+        IntValue result = new IntValue(state.getFileTable().readInt(stringValue));
+        if(slot >= 0)
+            symbolTable.writeSlot(slot, result);
+        else
+            symbolTable.give(varName, result);
         return null;
     }
 
+    @Override
+    public IStatement resolve(SlotResolver resolver) {
+        return new ReadFileStatement(resolver.expression(expression), varName, resolver.slotOf(varName));
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.expression(expression);
+        encoder.name(varName);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        expression.collectValues(collector);
+    }
+
     @Override
     public String toString() {
         return "RF[" + expression.toString() + ','+ varName + ']';
@@ -0,0 +1,51 @@
+package model.statement;
+
+import model.adts.SlotTable;
+import model.expresion.IExpression;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Binds the variables of a type checked program to the slots its SlotTable gave them, once, when
+// the program is loaded. The nodes are copied with the slot of every name they use, so a tree
+// shared by several programs is never changed and runs without looking a name up. A node met twice
+// is copied once.
+public class SlotResolver {
+    private final SlotTable slots;
+    private final Map<Object, Object> resolved = new IdentityHashMap<>();
+
+    public SlotResolver(SlotTable slots) {
+        this.slots = slots;
+    }
+
+    public static IStatement resolve(IStatement program, SlotTable slots) {
+        return new SlotResolver(slots).statement(program);
+    }
+
+    // -1 for a name the program never declared, it is looked up by name
+    public int slotOf(String name) {
+        return slots.slotOf(name);
+    }
+
+    public IStatement statement(IStatement statement) {
+        if (statement == null)
+            return null;
+        IStatement known = (IStatement) resolved.get(statement);
+        if (known == null) {
+            known = statement.resolve(this);
+            resolved.put(statement, known);
+        }
+        return known;
+    }
+
+    public IExpression expression(IExpression expression) {
+        if (expression == null)
+            return null;
+        IExpression known = (IExpression) resolved.get(expression);
+        if (known == null) {
+            known = expression.resolve(this);
+            resolved.put(expression, known);
+        }
+        return known;
+    }
+}
@@ -7,20 +7,35 @@ import model.adts.MyIDictionary;
 import exception.AdtException;
 import exception.ExpressionException;
 import model.type.IType;
+import model.programStateComponents.SymbolTable;
 import model.values.IValue;
 
 public class VariableDeclarationStatement implements IStatement{
 
     String name;
     IType type;
+    final int slot;
 
     public VariableDeclarationStatement(String name, IType type) {
+        this(name, type, -1);
+    }
+
+    private VariableDeclarationStatement(String name, IType type, int slot) {
         this.name = name;
         this.type = type;
+        this.slot = slot;
     }
 
     @Override
     public ProgramState execute(ProgramState state) throws ExpressionException, AdtException {
+        if (slot >= 0) {
+            SymbolTable symbolTable = state.getSymbolTable();
+            if (symbolTable.readSlot(slot) != null) {
+                throw new ExpressionException("Variable " + name + " is already declared");
+            }
+            symbolTable.declareSlot(slot, type.defaultValue());
+            return null;
+        }
         MyIDictionary<String, IValue> symbolTable = state.getSymbolTable();
         if (symbolTable.isDefined(name)) {
             throw new ExpressionException("Variable " + name + " is already declared");
@@ -29,6 +44,17 @@ public class VariableDeclarationStatement implements IStatement{
         return null;
     }
 
+    @Override
+    public IStatement resolve(SlotResolver resolver) {
+        return new VariableDeclarationStatement(name, type, resolver.slotOf(name));
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.name(name);
+        encoder.type(type);
+    }
+
     @Override
     public String toString() {
         return type.toString() + " " + name;
@@ -0,0 +1,73 @@
+package model.statement;
+
+import exception.*;
+import model.ProgramState;
+import model.adts.MyDictionary;
+import model.expresion.IExpression;
+import model.type.IType;
+import model.type.StringType;
+import model.values.IValue;
+import model.values.StringValue;
+import model.values.ValueCollector;
+
+
+// appends the value as one line, strings are written without their quotes
+public class WriteFileStatement implements IStatement{
+    IExpression fileExpression;
+    IExpression expression;
+
+    public WriteFileStatement(IExpression fileExpression, IExpression expression) {
+        this.fileExpression = fileExpression;
+        this.expression = expression;
+    }
+
+    @Override
+    public ProgramState execute(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
+        IValue file = fileExpression.evaluate(state);
+        if(!file.getType().equals(new StringType()))
+            throw new ExpressionException("Expression evaluation must be a string");
+        StringValue stringValue = (StringValue) file;
+        if(!state.getFileTable().isOpenForWriting(stringValue))
+            throw new FileException("File not opened for writing");
+        IValue value = expression.evaluate(state);
+        String line = value instanceof StringValue ? ((StringValue) value).getVal() : value.toString();
+        state.getFileTable().writeLine(stringValue, line);
+        return null;
+    }
+
+    @Override
+    public IStatement resolve(SlotResolver resolver) {
+        return new WriteFileStatement(resolver.expression(fileExpression), resolver.expression(expression));
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.expression(fileExpression);
+        encoder.expression(expression);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        fileExpression.collectValues(collector);
+        expression.collectValues(collector);
+    }
+
+    @Override
+    public String toString() {
+        return "WF[" + fileExpression + ',' + expression + ']';
+    }
+
+    @Override
+    public MyDictionary<String, IType> typecheck(MyDictionary<String, IType>  typeEnv) throws TypeNotMatchException {
+        IType type;
+        try {
+            type = fileExpression.typeCheck(typeEnv);
+            expression.typeCheck(typeEnv);
+        } catch (AdtException e) {
+            throw new TypeNotMatchException("WriteFile statement: " + e.getMessage());
+        }
+        if(!type.equals(new StringType()))
+            throw new TypeNotMatchException("WriteFile statement: Expression must be a string");
+        return typeEnv;
+    }
+}
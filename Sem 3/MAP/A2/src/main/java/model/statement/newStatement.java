@@ -8,19 +8,21 @@ import exception.ExpressionException;
 import model.adts.MyDictionary;
 import model.expresion.IExpression;
 import model.expresion.ValueExpression;
+import model.programStateComponents.SymbolTable;
 import model.type.IType;
 import model.type.ReferenceType;
 import model.values.IValue;
 import model.values.IntValue;
 import model.values.ReferenceValue;
+import model.values.ValueCollector;
 
 public class newStatement implements IStatement{
     String name;
     IExpression expression;
+    final int slot;
 
     public newStatement(String name) {
-        this.name = name;
-        expression = new ValueExpression(new IntValue());
+        this(name, new ValueExpression(new IntValue()));
     }
 
     @Override
@@ -47,21 +49,47 @@ public class newStatement implements IStatement{
     }
 
     public newStatement(String name, IExpression expression) {
+        this(name, expression, -1);
+    }
+
+    private newStatement(String name, IExpression expression, int slot) {
         this.name = name;
         this.expression = expression;
+        this.slot = slot;
     }
 
     @Override
     public ProgramState execute(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
         IValue value = expression.evaluate(state);
         //if reeference variable internal type is not the same as  as the value type
-        IType itype = state.getSymbolTable().lookup(name).getType();
+        SymbolTable symbolTable = state.getSymbolTable();
+        IType itype = slot >= 0 ? symbolTable.lookupSlot(slot).getType() : symbolTable.lookup(name).getType();
         if(itype instanceof ReferenceType && !((ReferenceType)itype).getInner().equals(value.getType()))
             throw new ExecutionException("Type mismatch in new statement between reference type and value type");
-        state.getSymbolTable().give(name,new ReferenceValue(state.getHeapTable().allocate(value), value.getType()));
+        ReferenceValue reference = new ReferenceValue(state.getHeapTable().allocate(value, state.getAllocationBuffer()), value.getType());
+        if(slot >= 0)
+            symbolTable.writeSlot(slot, reference);
+        else
+            symbolTable.give(name, reference);
         return null;
     }
 
+    @Override
+    public IStatement resolve(SlotResolver resolver) {
+        return new newStatement(name, resolver.expression(expression), resolver.slotOf(name));
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.name(name);
+        encoder.expression(expression);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        expression.collectValues(collector);
+    }
+
     @Override
     public String toString() {
         return "new(" + name + "," + expression.toString() + ")";
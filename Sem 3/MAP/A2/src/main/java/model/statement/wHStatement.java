@@ -7,10 +7,14 @@ import exception.ExecutionException;
 import exception.ExpressionException;
 import model.adts.MyDictionary;
 import model.expresion.IExpression;
+import model.programStateComponents.IHeap;
 import model.type.IType;
+import model.type.IntType;
 import model.type.ReferenceType;
 import model.values.IValue;
+import model.values.IntValue;
 import model.values.ReferenceValue;
+import model.values.ValueCollector;
 
 public class wHStatement implements IStatement{
     IExpression adress;
@@ -44,17 +48,42 @@ public class wHStatement implements IStatement{
     @Override
     public ProgramState execute(ProgramState state) throws ExpressionException, AdtException, ExecutionException {
         IValue value = adress.evaluate(state);
-        IValue value2 = expression.evaluate(state);
         if(!(value.getType() instanceof ReferenceType)){
             throw new ExecutionException("Heap should only be accessed through references");
         }
-        if(!value2.getType().equals( ((ReferenceType)value.getType()).getInner()) ){
+        IType inner = ((ReferenceType)value.getType()).getInner();
+        int address = ((ReferenceValue)value).getAddress();
+        IHeap heap = state.getHeapTable();
+        // a heap keeping ints unboxed takes the int as it is worked out, no IntValue is made for it
+        if(heap.supportsPrimitiveInts() && inner instanceof IntType){
+            heap.writeInt(address, expression.evaluateInt(state));
+            return null;
+        }
+        IValue value2 = expression.evaluate(state);
+        if(!value2.getType().equals(inner)){
             throw new ExecutionException("Type mismatch");
         }
-        state.getHeapTable().write(((ReferenceValue)value).getAddress(), value2);
+        heap.write(address, value2);
         return null;
     }
 
+    @Override
+    public IStatement resolve(SlotResolver resolver) {
+        return new wHStatement(resolver.expression(adress), resolver.expression(expression));
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.expression(adress);
+        encoder.expression(expression);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        adress.collectValues(collector);
+        expression.collectValues(collector);
+    }
+
     @Override
     public String toString() {
         return "wH(" + adress.toString() + "," + expression.toString() + ")";
@@ -6,11 +6,13 @@ import exception.AdtException;
 import exception.ExecutionException;
 import exception.ExpressionException;
 import model.adts.MyDictionary;
+import model.bytecode.BytecodeCompiler;
 import model.expresion.IExpression;
 import model.type.BoolType;
 import model.type.IType;
 import model.values.BoolValue;
 import model.values.IValue;
+import model.values.ValueCollector;
 
 public class whileStatement implements IStatement{
     IExpression expression;
@@ -50,6 +52,28 @@ public class whileStatement implements IStatement{
         return null;
     }
 
+    @Override
+    public void compile(BytecodeCompiler compiler) {
+        compiler.emitWhile(expression, statement);
+    }
+
+    @Override
+    public IStatement resolve(SlotResolver resolver) {
+        return new whileStatement(resolver.expression(expression), resolver.statement(statement));
+    }
+
+    @Override
+    public void encode(NodeEncoder encoder) {
+        encoder.expression(expression);
+        encoder.statement(statement);
+    }
+
+    @Override
+    public void collectValues(ValueCollector collector) {
+        expression.collectValues(collector);
+        collector.statement(statement);
+    }
+
     @Override
     public String toString() {
         return "while(" + expression.toString() + "){" + statement.toString() + "}";
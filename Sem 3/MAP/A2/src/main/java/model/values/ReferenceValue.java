@@ -15,6 +15,10 @@ public class ReferenceValue implements IValue {
     public int getAddress() {
         return address;
     }
+    public IType getLocationType() {
+        return locationType;
+    }
+
     @Override
     public IType getType() {
         return new ReferenceType(locationType);
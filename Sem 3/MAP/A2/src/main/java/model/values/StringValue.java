@@ -36,4 +36,9 @@ public class StringValue implements IValue {
         }
         return false;
     }
+
+    @Override
+    public int hashCode() {
+        return val.hashCode();
+    }
 }
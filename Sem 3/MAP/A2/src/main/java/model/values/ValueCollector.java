@@ -0,0 +1,9 @@
+package model.values;
+
+import model.statement.IStatement;
+
+public interface ValueCollector {
+    void value(IValue value);
+
+    void statement(IStatement statement);
+}
@@ -0,0 +1,183 @@
+package repository;
+
+import exception.LogFileException;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Hands log records to a single long-lived writer thread through a bounded queue.
+// The file is opened once and flushed after every batch instead of after every record.
+// Records are turned into text on the writer thread, in the order they were submitted.
+public class AsyncLogWriter implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final int DEFAULT_SAMPLE_RATE = 16;
+    private static final int MAX_BATCH = 256;
+
+    private final String logFilePath;
+    private final LogOverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final ArrayBlockingQueue<Supplier<String>> queue;
+    private final BufferedWriter writer;
+    private final Thread writerThread;
+    private final Thread shutdownHook;
+
+    private final AtomicLong submitted = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong overflowCounter = new AtomicLong(0);
+    private final Object progress = new Object();
+    private long written = 0;
+    private volatile boolean closed = false;
+    private volatile IOException failure;
+
+    public AsyncLogWriter(String logFilePath, int capacity, LogOverflowPolicy overflowPolicy, int sampleRate) throws LogFileException {
+        if (capacity <= 0 || sampleRate <= 0)
+            throw new IllegalArgumentException("Invalid log writer parameters");
+        this.logFilePath = logFilePath;
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = sampleRate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        try {
+            this.writer = new BufferedWriter(new FileWriter(logFilePath, true));
+        } catch (IOException e) {
+            throw new LogFileException("Could not open file:" + e.getMessage());
+        }
+        this.writerThread = new Thread(this::writeLoop, "log-writer-" + logFilePath);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        this.shutdownHook = new Thread(this::close);
+        Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+    }
+
+    public AsyncLogWriter(String logFilePath, LogOverflowPolicy overflowPolicy) throws LogFileException {
+        this(logFilePath, DEFAULT_CAPACITY, overflowPolicy, DEFAULT_SAMPLE_RATE);
+    }
+
+    // lets the caller skip rendering a record that would be thrown away anyway
+    public boolean willAccept() {
+        if (overflowPolicy == LogOverflowPolicy.BLOCK || queue.remainingCapacity() > 0)
+            return true;
+        if (overflowPolicy == LogOverflowPolicy.SAMPLE && overflowCounter.incrementAndGet() % sampleRate == 0)
+            return true;
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    // false when the record was dropped
+    public boolean submit(Supplier<String> record) throws LogFileException {
+        if (failure != null)
+            throw new LogFileException("Could not write log file " + logFilePath + ":" + failure.getMessage());
+        if (closed)
+            throw new LogFileException("Log file " + logFilePath + " is closed");
+        submitted.incrementAndGet();
+        boolean queued;
+        // a sampled record is let through willAccept but still not waited for
+        if (overflowPolicy != LogOverflowPolicy.BLOCK) {
+            queued = queue.offer(record);
+        } else {
+            try {
+                queue.put(record);
+                queued = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+        }
+        if (!queued) {
+            dropped.incrementAndGet();
+            recordWritten(1);
+        }
+        return queued;
+    }
+
+    // blocks until every record submitted before the call is on disk
+    public void flush() throws LogFileException {
+        long target = submitted.get();
+        synchronized (progress) {
+            while (written < target && failure == null && writerThread.isAlive()) {
+                try {
+                    progress.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        if (failure != null)
+            throw new LogFileException("Could not write log file " + logFilePath + ":" + failure.getMessage());
+    }
+
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        try {
+            flush();
+        } catch (LogFileException ignored) {
+        }
+        closed = true;
+        writerThread.interrupt();
+        try {
+            writerThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ignored) {
+            // already shutting down, the hook is what called us
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public LogOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    private void writeLoop() {
+        List<Supplier<String>> batch = new ArrayList<>(MAX_BATCH);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Supplier<String> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+            } catch (InterruptedException e) {
+                if (queue.isEmpty())
+                    break;
+            }
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+            try {
+                for (Supplier<String> record : batch)
+                    writer.write(record.get());
+                writer.flush();
+            } catch (IOException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = new IOException(e.getMessage(), e);
+            }
+            recordWritten(batch.size());
+            batch.clear();
+        }
+    }
+
+    private void recordWritten(int count) {
+        synchronized (progress) {
+            written += count;
+            progress.notifyAll();
+        }
+    }
+}
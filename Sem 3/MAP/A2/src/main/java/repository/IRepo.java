@@ -17,4 +17,10 @@ public interface IRepo {
 
     void clear();
 
+    void setTraceFilePath(String traceFilePath);
+
+    void flushLog();
+
+    void closeLog();
+
 }
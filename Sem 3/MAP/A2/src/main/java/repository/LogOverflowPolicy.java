@@ -0,0 +1,7 @@
+package repository;
+
+public enum LogOverflowPolicy {
+    BLOCK,
+    DROP,
+    SAMPLE
+}
@@ -3,21 +3,26 @@ package repository;
 import model.ProgramState;
 import exception.AdtException;
 import exception.LogFileException;
-import model.programStateComponents.FileTable;
 import model.programStateComponents.HeapTable;
 import model.programStateComponents.IHeap;
+import repository.trace.TraceWriter;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class MultiThreadRepo implements IRepo {
 
-    private String logFilePath;
+    private volatile String logFilePath;
     private List<ProgramState> programStates;
+    private LogOverflowPolicy logOverflowPolicy = LogOverflowPolicy.BLOCK;
+    private AsyncLogWriter logWriter;
+    private volatile TraceWriter traceWriter;
+    // the heaps as the text log last showed them
+    private final Map<IHeap, ProgramStateRecord.HeapLog> heapLogs = new IdentityHashMap<>();
 
     public MultiThreadRepo(ProgramState currentProgram, String logFilePath) {
         programStates = new ArrayList<>();
@@ -31,53 +36,83 @@ public class MultiThreadRepo implements IRepo {
 
     }
 
-    public void setLogFilePath(String logFilePath) {
+    // null turns the text log off
+    public synchronized void setLogFilePath(String logFilePath) {
+        this.closeLogWriter();
         this.logFilePath = logFilePath;
     }
+
+    public synchronized void setLogOverflowPolicy(LogOverflowPolicy logOverflowPolicy) {
+        this.closeLogWriter();
+        this.logOverflowPolicy = logOverflowPolicy;
+    }
+
+    // null turns the binary trace off
     @Override
-    public String getLogFilePath() {
-        return logFilePath;
+    public synchronized void setTraceFilePath(String traceFilePath) throws LogFileException {
+        if (this.traceWriter != null)
+            this.traceWriter.close();
+        this.traceWriter = traceFilePath == null ? null : new TraceWriter(traceFilePath);
     }
 
+    public LogOverflowPolicy getLogOverflowPolicy() {
+        return logOverflowPolicy;
+    }
+
+    private synchronized AsyncLogWriter getLogWriter() throws LogFileException {
+        if (this.logWriter == null)
+            this.logWriter = new AsyncLogWriter(this.logFilePath, this.logOverflowPolicy);
+        return this.logWriter;
+    }
 
     @Override
-    public void logProgramStateExecution(ProgramState currentProgram) throws LogFileException {
-        PrintWriter logFile;
-        try {
-            logFile = new PrintWriter(new BufferedWriter(new FileWriter(logFilePath, true)));
-        }
-        catch(IOException e){
-            throw new LogFileException("Could not open file:"+e.getMessage());
-        }
+    public synchronized void flushLog() throws LogFileException {
+        if (this.logWriter != null)
+            this.logWriter.flush();
+        if (this.traceWriter != null)
+            this.traceWriter.flush();
+    }
 
-        logFile.println("Program ID: " + currentProgram.getId());
-        logFile.println("Execution Stack:");
-        String executionStackString = currentProgram.getExecutionStack().toString();
-        executionStackString=executionStackString.replace("|", "\n");
-        logFile.println(executionStackString);
+    @Override
+    public synchronized void closeLog() {
+        this.closeLogWriter();
+        if (this.traceWriter != null) {
+            this.traceWriter.close();
+            this.traceWriter = null;
+        }
+    }
 
-        logFile.println("SymTable:");
-        String symbolTableString = currentProgram.getSymbolTable().toString();
-        symbolTableString=symbolTableString.replace("|", "\n");
-        logFile.println(symbolTableString);
+    private synchronized void closeLogWriter() {
+        if (this.logWriter != null) {
+            this.logWriter.close();
+            this.logWriter = null;
+        }
+        this.heapLogs.values().forEach(ProgramStateRecord.HeapLog::detach);
+        this.heapLogs.clear();
+    }
 
-        logFile.println("Out:");
-        String outString = currentProgram.getOutput().toString();
-        outString=outString.replace("|", "\n");
-        logFile.println(outString);
+    @Override
+    public String getLogFilePath() {
+        return logFilePath;
+    }
 
-        logFile.println("FileTable:");
-        FileTable fileTable = (FileTable) currentProgram.getFileTable();
-        String fileTableString = fileTable.toString();
-        logFile.println(fileTableString);
 
-        logFile.println("Heap:");
-        IHeap heap = currentProgram.getHeapTable();
-        outString = heap.toString();
-        outString=outString.replace("|", "\n");
-        logFile.println(outString);
-        logFile.println("--------------------------------------");
-        logFile.close();
+    @Override
+    public void logProgramStateExecution(ProgramState currentProgram) throws LogFileException {
+        TraceWriter trace = this.traceWriter;
+        if (trace != null)
+            trace.record(currentProgram);
+        if (this.logFilePath == null)
+            return;
+        AsyncLogWriter writer = getLogWriter();
+        if (!writer.willAccept())
+            return;
+        ProgramStateRecord.HeapLog heapLog;
+        synchronized (this) {
+            heapLog = this.heapLogs.computeIfAbsent(currentProgram.getHeapTable(), ProgramStateRecord.HeapLog::new);
+        }
+        if (!writer.submit(ProgramStateRecord.capture(currentProgram, heapLog)))
+            heapLog.lost();
     }
 
     @Override
@@ -88,6 +123,10 @@ public class MultiThreadRepo implements IRepo {
     @Override
     public void setProgramList(List<ProgramState> programList) {
         this.programStates = programList;
+        TraceWriter trace = this.traceWriter;
+        if (trace != null)
+            trace.retain(programList);
+        this.retainHeapLogs();
     }
 
     @Override
@@ -98,6 +137,22 @@ public class MultiThreadRepo implements IRepo {
     @Override
     public void clear() {
         programStates.clear();
+        TraceWriter trace = this.traceWriter;
+        if (trace != null)
+            trace.retain(programStates);
+        this.retainHeapLogs();
+    }
+
+    // heaps no longer used by any program stop being followed
+    private synchronized void retainHeapLogs() {
+        Set<IHeap> used = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.programStates.forEach(state -> used.add(state.getHeapTable()));
+        this.heapLogs.entrySet().removeIf(entry -> {
+            if (used.contains(entry.getKey()))
+                return false;
+            entry.getValue().detach();
+            return true;
+        });
     }
 
 
@@ -0,0 +1,142 @@
+package repository;
+
+import exception.InterpreterException;
+import model.Hardcoded;
+import model.parser.ProgramParser;
+import model.statement.IStatement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+// The programs there are to choose from. Listing them only looks at names, a program written in
+// the text format is read and parsed the first time it is asked for and kept after that.
+public class ProgramCatalog {
+    public static final String EXTENSION = ".prg";
+    public static final String RESOURCE_DIRECTORY = "/programs/";
+    // the bundled programs, resources cannot be listed once they are packed
+    public static final String RESOURCE_INDEX = "index.txt";
+    public static final String DEFAULT_DIRECTORY = "programs";
+
+    private interface Source {
+        String read() throws IOException;
+    }
+
+    public static class Entry {
+        private final String name;
+        private final Source source;
+        private IStatement program;
+
+        private Entry(String name, Source source, IStatement program) {
+            this.name = name;
+            this.source = source;
+            this.program = program;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public synchronized boolean isLoaded() {
+            return program != null;
+        }
+
+        // throws a ProgramSyntaxException for a program that does not parse, it is tried again next time
+        public synchronized IStatement getProgram() {
+            if (program == null) {
+                String text;
+                try {
+                    text = source.read();
+                } catch (IOException e) {
+                    throw new InterpreterException("Cannot read program " + name + ": " + e.getMessage());
+                }
+                program = ProgramParser.parse(text);
+            }
+            return program;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return program == null ? name : name + ": " + program;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    // the hardcoded programs, the bundled ones and those in the programs directory, if there is one
+    public static ProgramCatalog standard() throws IOException {
+        ProgramCatalog catalog = new ProgramCatalog();
+        for (int i = 0; i < Hardcoded.hardcodedPrograms.size(); i++)
+            catalog.addProgram("hardcoded-" + i, Hardcoded.hardcodedPrograms.get(i));
+        catalog.addResources();
+        Path directory = Paths.get(DEFAULT_DIRECTORY);
+        if (Files.isDirectory(directory))
+            catalog.addDirectory(directory);
+        return catalog;
+    }
+
+    public void addProgram(String name, IStatement program) {
+        entries.add(new Entry(name, null, program));
+    }
+
+    public void addFile(Path file) {
+        entries.add(new Entry(nameOf(file.getFileName().toString()), () -> Files.readString(file), null));
+    }
+
+    // every program file of the directory, in name order
+    public void addDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> Files.isRegularFile(file) && isProgramFile(file))
+                    .sorted()
+                    .forEach(this::addFile);
+        }
+    }
+
+    public void addResources() throws IOException {
+        try (InputStream index = ProgramCatalog.class.getResourceAsStream(RESOURCE_DIRECTORY + RESOURCE_INDEX)) {
+            if (index == null)
+                return;
+            for (String line : new String(index.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                String file = line.trim();
+                if (file.isEmpty() || file.startsWith("#"))
+                    continue;
+                entries.add(new Entry(nameOf(file), () -> readResource(file), null));
+            }
+        }
+    }
+
+    private static String readResource(String file) throws IOException {
+        try (InputStream input = ProgramCatalog.class.getResourceAsStream(RESOURCE_DIRECTORY + file)) {
+            if (input == null)
+                throw new IOException("No bundled program " + file);
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    public static boolean isProgramFile(Path file) {
+        return file.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    private static String nameOf(String fileName) {
+        return fileName.endsWith(EXTENSION) ? fileName.substring(0, fileName.length() - EXTENSION.length()) : fileName;
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Entry get(int index) {
+        return entries.get(index);
+    }
+}
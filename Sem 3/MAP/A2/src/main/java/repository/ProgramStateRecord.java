@@ -0,0 +1,152 @@
+package repository;
+
+import model.ProgramState;
+import model.programStateComponents.FileTable;
+import model.programStateComponents.IHeap;
+import model.programStateComponents.StateListener;
+import model.programStateComponents.SymbolTable;
+import model.statement.IStatement;
+import model.values.IValue;
+import model.values.StringValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+// One entry of the text log, taken at a safepoint and turned into text on the log writer thread.
+// Only references are copied here: statements and values never change, the symbol table copy is
+// persistent and the heap comes as the cells changed since the last entry showing it.
+final class ProgramStateRecord implements Supplier<String> {
+    private final int programId;
+    private final IStatement[] stack;
+    private final SymbolTable symbols;
+    private final List<IValue> output;
+    private final List<StringValue> readFiles;
+    private final List<StringValue> writeFiles;
+    private final HeapLog heapLog;
+    private final Map<Integer, IValue> written;
+    private final int[] freed;
+    private final boolean whole;
+
+    private ProgramStateRecord(ProgramState state, HeapLog heapLog, Map<Integer, IValue> written, int[] freed, boolean whole) {
+        this.programId = state.getId();
+        this.stack = state.getExecutionStack().toList().toArray(new IStatement[0]);
+        this.symbols = state.getSymbolTable().copy();
+        this.output = state.getOutput().getOutputAsList();
+        FileTable fileTable = (FileTable) state.getFileTable();
+        this.readFiles = new ArrayList<>(fileTable.toMap().keySet());
+        this.writeFiles = new ArrayList<>(fileTable.toWriteMap().keySet());
+        this.heapLog = heapLog;
+        this.written = written;
+        this.freed = freed;
+        this.whole = whole;
+    }
+
+    static ProgramStateRecord capture(ProgramState state, HeapLog heapLog) {
+        return heapLog.take(state);
+    }
+
+    @Override
+    public String get() {
+        String newLine = System.lineSeparator();
+        StringBuilder logRecord = new StringBuilder();
+
+        logRecord.append("Program ID: ").append(programId).append(newLine);
+        logRecord.append("Execution Stack:").append(newLine);
+        StringBuilder executionStack = new StringBuilder();
+        for (IStatement statement : stack)
+            executionStack.append(statement.toString()).append("|");
+        logRecord.append(executionStack.toString().replace("|", "\n")).append(newLine);
+
+        logRecord.append("SymTable:").append(newLine);
+        logRecord.append(symbols.toString().replace("|", "\n")).append(newLine);
+
+        logRecord.append("Out:").append(newLine);
+        StringBuilder out = new StringBuilder();
+        for (IValue value : output)
+            out.append(value.toString()).append("|");
+        logRecord.append(out.toString().replace("|", "\n")).append(newLine);
+
+        logRecord.append("FileTable:").append(newLine);
+        for (StringValue file : readFiles)
+            logRecord.append(file.toString()).append("\n");
+        for (StringValue file : writeFiles)
+            logRecord.append(file.toString()).append(" (write)\n");
+        logRecord.append(newLine);
+
+        logRecord.append("Heap:").append(newLine);
+        StringBuilder heap = new StringBuilder();
+        heapLog.apply(written, freed, whole).forEach((address, value) ->
+                heap.append(address).append(" --> ").append(value.toString()).append("|"));
+        logRecord.append(heap.toString().replace("|", "\n")).append(newLine);
+        logRecord.append("--------------------------------------").append(newLine);
+        return logRecord.toString();
+    }
+
+    // The heap as the log last showed it. The heap reports its changes as they happen, an entry
+    // takes those made since the entry before, and the writer thread applies them in order.
+    static final class HeapLog implements StateListener {
+        private final IHeap heap;
+        private final Map<Integer, IValue> written = new HashMap<>();
+        private final List<Integer> freed = new ArrayList<>();
+        // the next entry copies the whole heap, the first one and after an entry was lost
+        private boolean whole = true;
+        // only used by the writer thread
+        private final Map<Integer, IValue> shown = new TreeMap<>();
+
+        HeapLog(IHeap heap) {
+            this.heap = heap;
+            heap.addListener(this);
+        }
+
+        void detach() {
+            heap.removeListener(this);
+        }
+
+        private synchronized ProgramStateRecord take(ProgramState state) {
+            ProgramStateRecord record;
+            if (whole)
+                record = new ProgramStateRecord(state, this, new HashMap<>(heap.toMap()), new int[0], true);
+            else
+                record = new ProgramStateRecord(state, this, new HashMap<>(written),
+                        freed.stream().mapToInt(Integer::intValue).toArray(), false);
+            written.clear();
+            freed.clear();
+            whole = false;
+            return record;
+        }
+
+        // an entry the queue did not take had changes the later ones do not repeat
+        synchronized void lost() {
+            whole = true;
+        }
+
+        private Map<Integer, IValue> apply(Map<Integer, IValue> cells, int[] freedCells, boolean replace) {
+            if (replace)
+                shown.clear();
+            for (int address : freedCells)
+                shown.remove(address);
+            shown.putAll(cells);
+            return shown;
+        }
+
+        @Override
+        public synchronized void heapWritten(IHeap heap, int address, IValue value) {
+            written.put(address, value);
+        }
+
+        @Override
+        public synchronized void heapFreed(IHeap heap, int address) {
+            written.remove(address);
+            freed.add(address);
+        }
+
+        @Override
+        public synchronized void heapRestored(IHeap heap) {
+            whole = true;
+        }
+    }
+}
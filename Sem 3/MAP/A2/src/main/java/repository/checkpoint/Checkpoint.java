@@ -0,0 +1,613 @@
+package repository.checkpoint;
+
+import exception.AdtException;
+import exception.CheckpointException;
+import exception.FileException;
+import model.ProgramState;
+import model.adts.SlotTable;
+import model.bytecode.BytecodeCompiler;
+import model.bytecode.VirtualMachine;
+import model.programStateComponents.ExecutionStack;
+import model.programStateComponents.FileAccessMode;
+import model.programStateComponents.FileCursor;
+import model.programStateComponents.FileTable;
+import model.programStateComponents.IHeap;
+import model.programStateComponents.Output;
+import model.programStateComponents.SharedWriteFile;
+import model.programStateComponents.SymbolTable;
+import model.statement.IStatement;
+import model.statement.SlotResolver;
+import model.values.IValue;
+import model.values.StringValue;
+import repository.trace.TraceCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+// Everything needed to resume a set of programs. capture only copies the mutable parts
+// so that it can run at a safepoint, encoding and writing can then happen on another thread.
+// Heaps, outputs and file tables shared between forked programs stay shared after a restore.
+// A file holds a full record followed by the records a CheckpointSeries appends, each with the
+// heap cells that changed since the one before. Reading replays them and keeps the last state.
+public class Checkpoint {
+    static final int MAGIC = 0x434B5054;
+    static final int VERSION = 9;
+    static final byte FULL = 1;
+    static final byte DELTA = 2;
+
+    boolean full = true;
+    int nextProgramId;
+    int nextRunId;
+    // by their number in the file, a delta record only has the heaps that changed
+    List<HeapImage> heaps = new ArrayList<>();
+    // only the retained tail of every output, older values already went to its sink
+    List<List<IValue>> outputs = new ArrayList<>();
+    List<Long> outputStarts = new ArrayList<>();
+    List<FileTableImage> fileTables = new ArrayList<>();
+    // file cursors by identity, a cursor shared by several programs is restored shared
+    List<Long> cursorPositions = new ArrayList<>();
+    List<FileAccessMode> cursorModes = new ArrayList<>();
+    // files open for writing by identity, with what had been written of them
+    List<Long> writeFileLengths = new ArrayList<>();
+    // the slot tables of the programs by identity, a run and its forks share one
+    List<SlotTable> slotTables = new ArrayList<>();
+    List<ProgramImage> programs = new ArrayList<>();
+    // the heaps by number once every record of the file is read
+    Map<Integer, Map<Integer, IValue>> heapContents;
+
+    static class HeapImage {
+        final int number;
+        final boolean full;
+        // the whole content, or the cells written since the record before
+        final Map<Integer, IValue> cells;
+        final List<Integer> freed = new ArrayList<>();
+
+        HeapImage(int number, boolean full, Map<Integer, IValue> cells) {
+            this.number = number;
+            this.full = full;
+            this.cells = cells;
+        }
+
+        static HeapImage of(IHeap heap, int number) {
+            return new HeapImage(number, true, new HashMap<>(heap.toMap()));
+        }
+    }
+
+    static class FileTableImage {
+        int runId;
+        boolean privateCursors;
+        // file name to cursor index
+        Map<String, Integer> handles = new LinkedHashMap<>();
+        // file name to write file index
+        Map<String, Integer> writeHandles = new LinkedHashMap<>();
+    }
+
+    static class ProgramImage {
+        int id;
+        int runId;
+        int heap;
+        int output;
+        int fileTable;
+        int slots;
+        SymbolTable symbolTable;
+        IStatement originalProgram;
+        // bottom of the stack first, null when the program runs on the virtual machine. Its code
+        // is compiled again from the program on restore, the compiler always gives the same code.
+        IStatement[] executionStack;
+        int pc;
+    }
+
+    private Checkpoint() {}
+
+    public static Checkpoint capture(List<ProgramState> programStates) {
+        return capture(programStates, null, true);
+    }
+
+    // the heaps of a series come from it, numbered the same in every record of its file
+    static Checkpoint capture(List<ProgramState> programStates, CheckpointSeries series, boolean full) {
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.full = full;
+        checkpoint.nextProgramId = ProgramState.getNextID();
+        checkpoint.nextRunId = ProgramState.getNextRunID();
+        Map<Object, Integer> heapIndex = new IdentityHashMap<>();
+        Map<Object, Integer> outputIndex = new IdentityHashMap<>();
+        Map<Object, Integer> fileTableIndex = new IdentityHashMap<>();
+        Map<FileCursor, Integer> cursorIndex = new IdentityHashMap<>();
+        Map<SharedWriteFile, Integer> writeFileIndex = new IdentityHashMap<>();
+        Map<SlotTable, Integer> slotTableIndex = new IdentityHashMap<>();
+        for (ProgramState state : programStates) {
+            ProgramImage image = new ProgramImage();
+            image.id = state.getId();
+            image.runId = state.getRunId();
+            image.heap = heapIndex.computeIfAbsent(state.getHeapTable(), heap -> {
+                HeapImage heapImage = series == null ? HeapImage.of(state.getHeapTable(), checkpoint.heaps.size()) : series.capture(state.getHeapTable());
+                checkpoint.heaps.add(heapImage);
+                return heapImage.number;
+            });
+            image.output = outputIndex.computeIfAbsent(state.getOutput(), output -> {
+                checkpoint.outputStarts.add(state.getOutput().getFirstRetainedSequence());
+                checkpoint.outputs.add(state.getOutput().getOutputAsList());
+                return checkpoint.outputs.size() - 1;
+            });
+            image.fileTable = fileTableIndex.computeIfAbsent(state.getFileTable(), fileTable -> {
+                FileTableImage files = checkpoint.captureFiles(state.getFileTable(), cursorIndex, writeFileIndex);
+                files.runId = state.getRunId();
+                checkpoint.fileTables.add(files);
+                return checkpoint.fileTables.size() - 1;
+            });
+            image.slots = slotTableIndex.computeIfAbsent(state.getSlots(), slots -> {
+                checkpoint.slotTables.add(slots);
+                return checkpoint.slotTables.size() - 1;
+            });
+            image.symbolTable = state.getSymbolTable().copy();
+            // statements are never changed once made, the writing thread can read them later
+            image.originalProgram = state.getOriginalProgram();
+            VirtualMachine virtualMachine = state.getVirtualMachine();
+            if (virtualMachine == null)
+                image.executionStack = state.getExecutionStack().toList().toArray(new IStatement[0]);
+            else
+                image.pc = virtualMachine.getPc();
+            checkpoint.programs.add(image);
+        }
+        return checkpoint;
+    }
+
+    private FileTableImage captureFiles(FileTable fileTable, Map<FileCursor, Integer> cursorIndex,
+                                        Map<SharedWriteFile, Integer> writeFileIndex) {
+        FileTableImage image = new FileTableImage();
+        image.privateCursors = fileTable.hasPrivateCursors();
+        fileTable.toMap().forEach((name, cursor) ->
+                image.handles.put(name.getVal(), cursorIndex.computeIfAbsent(cursor, newCursor -> {
+                    cursorPositions.add(newCursor.getPosition());
+                    cursorModes.add(newCursor.getMode());
+                    return cursorPositions.size() - 1;
+                })));
+        // queued lines are written out so that the file matches the recorded length
+        fileTable.toWriteMap().forEach((name, file) ->
+                image.writeHandles.put(name.getVal(), writeFileIndex.computeIfAbsent(file, newFile -> {
+                    try {
+                        newFile.flush();
+                    } catch (IOException e) {
+                        throw new CheckpointException("Could not flush " + newFile.getPath() + ": " + e.getMessage());
+                    }
+                    writeFileLengths.add(newFile.getCommittedLength());
+                    return writeFileLengths.size() - 1;
+                })));
+        return image;
+    }
+
+    public int getProgramCount() {
+        return programs.size();
+    }
+
+    // written next to the target first, so a crash while writing leaves the previous checkpoint intact
+    public void write(String path) throws CheckpointException {
+        try {
+            writeFile(path, encode(new ProgramCodec.Writer()));
+        } catch (IOException e) {
+            throw new CheckpointException("Could not write checkpoint:" + e.getMessage());
+        }
+    }
+
+    static void writeFile(String path, byte[] record) throws IOException {
+        Path target = Paths.get(path);
+        Path temporary = Paths.get(path + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary.toFile()), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeRecord(out, record);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static void appendFile(String path, byte[] record) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path, true), 1 << 16))) {
+            writeRecord(out, record);
+        }
+    }
+
+    // the length and a checksum around every record, a record cut off by a crash is seen as one
+    private static void writeRecord(DataOutputStream out, byte[] record) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        out.writeInt(record.length);
+        out.write(record);
+        out.writeInt((int) crc.getValue());
+    }
+
+    // nodes numbers the statements, in a series it goes on from the records before
+    byte[] encode(ProgramCodec.Writer nodes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(full ? FULL : DELTA);
+        TraceCodec.writeVarInt(out, nextProgramId);
+        TraceCodec.writeVarInt(out, nextRunId);
+
+        // the new nodes go before the programs that use them
+        int[] programNodes = new int[programs.size()];
+        int[][] stackNodes = new int[programs.size()][];
+        for (int i = 0; i < programs.size(); i++) {
+            ProgramImage image = programs.get(i);
+            programNodes[i] = nodes.add(image.originalProgram);
+            if (image.executionStack != null) {
+                stackNodes[i] = new int[image.executionStack.length];
+                for (int j = 0; j < image.executionStack.length; j++)
+                    stackNodes[i][j] = nodes.add(image.executionStack[j]);
+            }
+        }
+        nodes.flush(out);
+
+        TraceCodec.writeVarInt(out, heaps.size());
+        for (HeapImage heap : heaps) {
+            TraceCodec.writeVarInt(out, heap.number);
+            out.writeBoolean(heap.full);
+            TraceCodec.writeVarInt(out, heap.cells.size());
+            for (Map.Entry<Integer, IValue> cell : heap.cells.entrySet()) {
+                TraceCodec.writeVarInt(out, cell.getKey());
+                TraceCodec.writeValue(out, cell.getValue());
+            }
+            TraceCodec.writeVarInt(out, heap.freed.size());
+            for (int address : heap.freed)
+                TraceCodec.writeVarInt(out, address);
+        }
+        TraceCodec.writeVarInt(out, outputs.size());
+        for (int i = 0; i < outputs.size(); i++) {
+            List<IValue> output = outputs.get(i);
+            out.writeLong(outputStarts.get(i));
+            TraceCodec.writeVarInt(out, output.size());
+            for (IValue value : output)
+                TraceCodec.writeValue(out, value);
+        }
+        TraceCodec.writeVarInt(out, cursorPositions.size());
+        for (int i = 0; i < cursorPositions.size(); i++) {
+            out.writeLong(cursorPositions.get(i));
+            out.writeByte(cursorModes.get(i).ordinal());
+        }
+        TraceCodec.writeVarInt(out, writeFileLengths.size());
+        for (long length : writeFileLengths)
+            out.writeLong(length);
+        TraceCodec.writeVarInt(out, fileTables.size());
+        for (FileTableImage fileTable : fileTables) {
+            TraceCodec.writeVarInt(out, fileTable.runId);
+            out.writeBoolean(fileTable.privateCursors);
+            TraceCodec.writeVarInt(out, fileTable.handles.size());
+            for (Map.Entry<String, Integer> handle : fileTable.handles.entrySet()) {
+                TraceCodec.writeString(out, handle.getKey());
+                TraceCodec.writeVarInt(out, handle.getValue());
+            }
+            TraceCodec.writeVarInt(out, fileTable.writeHandles.size());
+            for (Map.Entry<String, Integer> handle : fileTable.writeHandles.entrySet()) {
+                TraceCodec.writeString(out, handle.getKey());
+                TraceCodec.writeVarInt(out, handle.getValue());
+            }
+        }
+        TraceCodec.writeVarInt(out, slotTables.size());
+        for (SlotTable slots : slotTables) {
+            TraceCodec.writeVarInt(out, slots.getSlotCount());
+            for (int slot = 0; slot < slots.getSlotCount(); slot++)
+                TraceCodec.writeString(out, slots.getName(slot));
+        }
+        TraceCodec.writeVarInt(out, programs.size());
+        for (int i = 0; i < programs.size(); i++) {
+            ProgramImage image = programs.get(i);
+            TraceCodec.writeVarInt(out, image.id);
+            TraceCodec.writeVarInt(out, image.runId);
+            TraceCodec.writeVarInt(out, image.heap);
+            TraceCodec.writeVarInt(out, image.output);
+            TraceCodec.writeVarInt(out, image.fileTable);
+            TraceCodec.writeVarInt(out, image.slots);
+            TraceCodec.writeVarInt(out, programNodes[i]);
+            out.writeBoolean(image.executionStack == null);
+            if (image.executionStack == null) {
+                TraceCodec.writeVarInt(out, image.pc);
+            } else {
+                TraceCodec.writeVarInt(out, stackNodes[i].length);
+                for (int node : stackNodes[i])
+                    TraceCodec.writeVarInt(out, node);
+            }
+            Map<String, IValue> named = image.symbolTable.toNamedMap();
+            TraceCodec.writeVarInt(out, named.size());
+            for (Map.Entry<String, IValue> entry : named.entrySet()) {
+                TraceCodec.writeString(out, entry.getKey());
+                TraceCodec.writeValue(out, entry.getValue());
+            }
+            // the names of the slots are in the slot table of the program
+            TraceCodec.writeVarInt(out, image.symbolTable.getSlotCount());
+            for (int slot = 0; slot < image.symbolTable.getSlotCount(); slot++) {
+                IValue value = image.symbolTable.readSlot(slot);
+                out.writeBoolean(value != null);
+                if (value != null)
+                    TraceCodec.writeValue(out, value);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static Checkpoint read(String path) throws CheckpointException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path), 1 << 16))) {
+            return read(in);
+        } catch (IOException | ClassCastException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new CheckpointException("Could not read checkpoint:" + e.getMessage());
+        }
+    }
+
+    private static Checkpoint read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC)
+            throw new CheckpointException("Not a checkpoint file");
+        int version = in.readInt();
+        if (version != VERSION)
+            throw new CheckpointException("Unsupported checkpoint version " + version);
+        ProgramCodec.Reader nodes = new ProgramCodec.Reader();
+        Map<Integer, Map<Integer, IValue>> heapContents = new HashMap<>();
+        Checkpoint last = null;
+        byte[] record;
+        while ((record = readRecord(in)) != null) {
+            Checkpoint checkpoint = read(new DataInputStream(new ByteArrayInputStream(record)), nodes);
+            if (last == null && !checkpoint.full)
+                throw new CheckpointException("Corrupt checkpoint: it does not start with a full record");
+            if (checkpoint.full)
+                heapContents.clear();
+            for (HeapImage heap : checkpoint.heaps) {
+                if (heap.full) {
+                    heapContents.put(heap.number, heap.cells);
+                } else {
+                    Map<Integer, IValue> contents = heapContents.computeIfAbsent(heap.number, number -> new HashMap<>());
+                    contents.putAll(heap.cells);
+                    for (int address : heap.freed)
+                        contents.remove(address);
+                }
+            }
+            last = checkpoint;
+        }
+        if (last == null)
+            throw new CheckpointException("Corrupt checkpoint: no complete record");
+        last.heapContents = heapContents;
+        return last;
+    }
+
+    // null at the end of the file, or at a record cut off or damaged by a crash while appending it
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length < 0)
+                return null;
+            byte[] record = new byte[length];
+            in.readFully(record);
+            int checksum = in.readInt();
+            CRC32 crc = new CRC32();
+            crc.update(record);
+            return (int) crc.getValue() == checksum ? record : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static Checkpoint read(DataInputStream in, ProgramCodec.Reader nodes) throws IOException {
+        Checkpoint checkpoint = new Checkpoint();
+        byte kind = in.readByte();
+        if (kind != FULL && kind != DELTA)
+            throw new CheckpointException("Corrupt checkpoint record");
+        checkpoint.full = kind == FULL;
+        checkpoint.nextProgramId = TraceCodec.readVarInt(in);
+        checkpoint.nextRunId = TraceCodec.readVarInt(in);
+        // a full record numbers its nodes from the start
+        if (checkpoint.full)
+            nodes.clear();
+        nodes.read(in);
+
+        int heapCount = TraceCodec.readVarInt(in);
+        for (int i = 0; i < heapCount; i++) {
+            int number = TraceCodec.readVarInt(in);
+            boolean full = in.readBoolean();
+            int cells = TraceCodec.readVarInt(in);
+            HeapImage heap = new HeapImage(number, full, new HashMap<>());
+            for (int j = 0; j < cells; j++) {
+                int address = TraceCodec.readVarInt(in);
+                heap.cells.put(address, TraceCodec.readValue(in));
+            }
+            int freed = TraceCodec.readVarInt(in);
+            for (int j = 0; j < freed; j++)
+                heap.freed.add(TraceCodec.readVarInt(in));
+            checkpoint.heaps.add(heap);
+        }
+        int outputCount = TraceCodec.readVarInt(in);
+        for (int i = 0; i < outputCount; i++) {
+            checkpoint.outputStarts.add(in.readLong());
+            int values = TraceCodec.readVarInt(in);
+            List<IValue> output = new ArrayList<>();
+            for (int j = 0; j < values; j++)
+                output.add(TraceCodec.readValue(in));
+            checkpoint.outputs.add(output);
+        }
+        int cursorCount = TraceCodec.readVarInt(in);
+        for (int i = 0; i < cursorCount; i++) {
+            checkpoint.cursorPositions.add(in.readLong());
+            int mode = in.readUnsignedByte();
+            if (mode >= FileAccessMode.values().length)
+                throw new CheckpointException("Corrupt file cursor in checkpoint");
+            checkpoint.cursorModes.add(FileAccessMode.values()[mode]);
+        }
+        int writeFileCount = TraceCodec.readVarInt(in);
+        for (int i = 0; i < writeFileCount; i++)
+            checkpoint.writeFileLengths.add(in.readLong());
+        int fileTableCount = TraceCodec.readVarInt(in);
+        for (int i = 0; i < fileTableCount; i++) {
+            FileTableImage fileTable = new FileTableImage();
+            fileTable.runId = TraceCodec.readVarInt(in);
+            fileTable.privateCursors = in.readBoolean();
+            int handleCount = TraceCodec.readVarInt(in);
+            for (int j = 0; j < handleCount; j++) {
+                String name = TraceCodec.readString(in);
+                int cursor = TraceCodec.readVarInt(in);
+                if (cursor >= cursorCount)
+                    throw new CheckpointException("Corrupt file table in checkpoint");
+                fileTable.handles.put(name, cursor);
+            }
+            int writeHandleCount = TraceCodec.readVarInt(in);
+            for (int j = 0; j < writeHandleCount; j++) {
+                String name = TraceCodec.readString(in);
+                int file = TraceCodec.readVarInt(in);
+                if (file >= writeFileCount)
+                    throw new CheckpointException("Corrupt file table in checkpoint");
+                fileTable.writeHandles.put(name, file);
+            }
+            checkpoint.fileTables.add(fileTable);
+        }
+        int slotTableCount = TraceCodec.readVarInt(in);
+        for (int i = 0; i < slotTableCount; i++) {
+            String[] names = new String[TraceCodec.readVarInt(in)];
+            for (int slot = 0; slot < names.length; slot++)
+                names[slot] = TraceCodec.readString(in);
+            checkpoint.slotTables.add(SlotTable.of(names));
+        }
+        int programCount = TraceCodec.readVarInt(in);
+        for (int i = 0; i < programCount; i++) {
+            ProgramImage image = new ProgramImage();
+            image.id = TraceCodec.readVarInt(in);
+            image.runId = TraceCodec.readVarInt(in);
+            image.heap = TraceCodec.readVarInt(in);
+            image.output = TraceCodec.readVarInt(in);
+            image.fileTable = TraceCodec.readVarInt(in);
+            image.slots = TraceCodec.readVarInt(in);
+            if (image.output >= outputCount || image.fileTable >= fileTableCount || image.slots >= slotTableCount)
+                throw new CheckpointException("Corrupt program in checkpoint");
+            image.originalProgram = nodes.statement(TraceCodec.readVarInt(in));
+            if (in.readBoolean()) {
+                image.pc = TraceCodec.readVarInt(in);
+            } else {
+                image.executionStack = new IStatement[TraceCodec.readVarInt(in)];
+                for (int j = 0; j < image.executionStack.length; j++)
+                    image.executionStack[j] = nodes.statement(TraceCodec.readVarInt(in));
+            }
+            image.symbolTable = new SymbolTable(checkpoint.slotTables.get(image.slots));
+            try {
+                int named = TraceCodec.readVarInt(in);
+                for (int j = 0; j < named; j++) {
+                    String name = TraceCodec.readString(in);
+                    image.symbolTable.put(name, TraceCodec.readValue(in));
+                }
+                int slots = TraceCodec.readVarInt(in);
+                if (slots != image.symbolTable.getSlotCount())
+                    throw new CheckpointException("Corrupt symbol table in checkpoint");
+                for (int slot = 0; slot < slots; slot++) {
+                    if (in.readBoolean())
+                        image.symbolTable.declareSlot(slot, TraceCodec.readValue(in));
+                }
+            } catch (AdtException e) {
+                throw new CheckpointException("Corrupt symbol table in checkpoint: " + e.getMessage());
+            }
+            checkpoint.programs.add(image);
+        }
+        return checkpoint;
+    }
+
+    // new heaps come from heapFactory so a restored run can use a different heap implementation
+    public List<ProgramState> restore(Supplier<IHeap> heapFactory) throws CheckpointException {
+        if (heapContents == null)
+            throw new CheckpointException("Only a checkpoint that was read can be restored");
+        Map<Integer, IHeap> restoredHeaps = new HashMap<>();
+        for (ProgramImage image : programs) {
+            restoredHeaps.computeIfAbsent(image.heap, number -> {
+                IHeap heap = heapFactory.get();
+                heap.restore(heapContents.getOrDefault(number, Map.of()));
+                return heap;
+            });
+        }
+        List<Output> restoredOutputs = new ArrayList<>();
+        for (int i = 0; i < outputs.size(); i++) {
+            Output output = new Output();
+            output.restore(outputStarts.get(i), outputs.get(i));
+            restoredOutputs.add(output);
+        }
+        List<FileTable> restoredFileTables = new ArrayList<>();
+        FileCursor[] restoredCursors = new FileCursor[cursorPositions.size()];
+        SharedWriteFile[] restoredWriteFiles = new SharedWriteFile[writeFileLengths.size()];
+        Map<Integer, FileTable> firstFileTables = new HashMap<>();
+        for (FileTableImage image : fileTables) {
+            // the restored tables of a run share their files, like the tables of forked programs do
+            FileTable first = firstFileTables.get(image.runId);
+            FileTable fileTable = first == null ? new FileTable(image.privateCursors) : first.sibling(image.privateCursors);
+            if (first == null)
+                firstFileTables.put(image.runId, fileTable);
+            for (Map.Entry<String, Integer> handle : image.handles.entrySet()) {
+                StringValue name = new StringValue(handle.getKey());
+                int cursor = handle.getValue();
+                try {
+                    if (restoredCursors[cursor] == null)
+                        restoredCursors[cursor] = fileTable.open(name, cursorModes.get(cursor), cursorPositions.get(cursor));
+                    else
+                        fileTable.attach(name, restoredCursors[cursor]);
+                } catch (FileException e) {
+                    throw new CheckpointException("Could not reopen file " + handle.getKey() + ": " + e.getMessage());
+                }
+            }
+            // lines written after the checkpoint are cut off, the restored programs write them again
+            for (Map.Entry<String, Integer> handle : image.writeHandles.entrySet()) {
+                StringValue name = new StringValue(handle.getKey());
+                int file = handle.getValue();
+                try {
+                    if (restoredWriteFiles[file] == null)
+                        restoredWriteFiles[file] = fileTable.openWrite(name, writeFileLengths.get(file));
+                    else
+                        fileTable.attachWrite(name, restoredWriteFiles[file]);
+                } catch (FileException e) {
+                    throw new CheckpointException("Could not reopen file " + handle.getKey() + ": " + e.getMessage());
+                }
+            }
+            restoredFileTables.add(fileTable);
+        }
+
+        List<ProgramState> programStates = new ArrayList<>();
+        int nextId = nextProgramId;
+        // the programs are read with their variables by name and bound to their slots again, one
+        // resolver per slot table keeps the nodes a run and its forks share shared
+        Map<Integer, SlotResolver> resolvers = new HashMap<>();
+        for (ProgramImage image : programs) {
+            SlotResolver resolver = resolvers.computeIfAbsent(image.slots, slots -> new SlotResolver(slotTables.get(slots)));
+            IStatement originalProgram = resolver.statement(image.originalProgram);
+            ExecutionStack executionStack = new ExecutionStack();
+            VirtualMachine virtualMachine = null;
+            if (image.executionStack == null) {
+                virtualMachine = new VirtualMachine(BytecodeCompiler.compile(originalProgram));
+                virtualMachine.jump(image.pc);
+            } else {
+                for (IStatement statement : image.executionStack)
+                    executionStack.push(resolver.statement(statement));
+            }
+            ProgramState state = new ProgramState(executionStack, image.symbolTable.copy(),
+                    restoredOutputs.get(image.output), restoredFileTables.get(image.fileTable),
+                    restoredHeaps.get(image.heap), originalProgram, virtualMachine);
+            state.setSlots(slotTables.get(image.slots));
+            state.setId(image.id);
+            state.setRunId(image.runId);
+            nextId = Math.max(nextId, image.id + 1);
+            programStates.add(state);
+        }
+        synchronized (ProgramState.class) {
+            ProgramState.setNextID(Math.max(ProgramState.getNextID(), nextId));
+        }
+        ProgramState.setNextRunID(Math.max(ProgramState.getNextRunID(), nextRunId));
+        return programStates;
+    }
+}
@@ -0,0 +1,160 @@
+package repository.checkpoint;
+
+import exception.CheckpointException;
+import exception.InvalidAddressException;
+import model.ProgramState;
+import model.programStateComponents.IHeap;
+import model.programStateComponents.StateListener;
+import model.values.IValue;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// The periodic checkpoints of a run, kept in one file. The first record holds the whole state,
+// every later one only the heap cells written or freed since the record before, as the heaps
+// report them. Once the appended records outgrow the full one the file is written again whole.
+public class CheckpointSeries {
+    private final String path;
+    // the heaps followed since the last full record, with their number in the file
+    private final Map<IHeap, HeapChanges> heaps = new IdentityHashMap<>();
+    private int nextHeapNumber;
+    // only used by the thread writing the records
+    private ProgramCodec.Writer nodes = new ProgramCodec.Writer();
+    private long fullBytes;
+    private long appendedBytes;
+    private volatile boolean startOver = true;
+
+    public CheckpointSeries(String path) {
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    // only call this at a safepoint, the programs have to be between two steps
+    public synchronized Checkpoint capture(List<ProgramState> programStates) {
+        boolean full = startOver;
+        if (full) {
+            startOver = false;
+            heaps.forEach((heap, changes) -> heap.removeListener(changes));
+            heaps.clear();
+            nextHeapNumber = 0;
+        }
+        Checkpoint checkpoint = Checkpoint.capture(programStates, this, full);
+        // heaps no longer used by any program are not followed anymore
+        Set<IHeap> used = Collections.newSetFromMap(new IdentityHashMap<>());
+        programStates.forEach(state -> used.add(state.getHeapTable()));
+        heaps.entrySet().removeIf(entry -> {
+            if (used.contains(entry.getKey()))
+                return false;
+            entry.getKey().removeListener(entry.getValue());
+            return true;
+        });
+        return checkpoint;
+    }
+
+    // the heap in the record being captured, whole the first time it is seen
+    Checkpoint.HeapImage capture(IHeap heap) {
+        HeapChanges changes = heaps.get(heap);
+        if (changes == null) {
+            changes = new HeapChanges(nextHeapNumber++);
+            heap.addListener(changes);
+            heaps.put(heap, changes);
+            return Checkpoint.HeapImage.of(heap, changes.number);
+        }
+        return changes.take(heap);
+    }
+
+    // on the writing thread, a full record replaces the file and a delta is appended to it
+    public void write(Checkpoint checkpoint) throws CheckpointException {
+        try {
+            if (checkpoint.full) {
+                nodes = new ProgramCodec.Writer();
+                byte[] record = checkpoint.encode(nodes);
+                Checkpoint.writeFile(path, record);
+                fullBytes = record.length;
+                appendedBytes = 0;
+            } else {
+                byte[] record = checkpoint.encode(nodes);
+                Checkpoint.appendFile(path, record);
+                appendedBytes += record.length;
+                if (appendedBytes > fullBytes)
+                    startOver = true;
+            }
+        } catch (IOException | RuntimeException e) {
+            // the file may be missing the changes of this record, the next one starts it again
+            startOver = true;
+            if (e instanceof CheckpointException)
+                throw (CheckpointException) e;
+            throw new CheckpointException("Could not write checkpoint:" + e.getMessage());
+        }
+    }
+
+    // after the programs were replaced, the next record holds the whole state again
+    public void restart() {
+        startOver = true;
+    }
+
+    public synchronized void close() {
+        heaps.forEach((heap, changes) -> heap.removeListener(changes));
+        heaps.clear();
+    }
+
+    // the cells of one heap changed since the last record, told by the heap as it changes
+    private static class HeapChanges implements StateListener {
+        final int number;
+        private final BitSet written = new BitSet();
+        private final BitSet freed = new BitSet();
+        private boolean restored;
+
+        HeapChanges(int number) {
+            this.number = number;
+        }
+
+        @Override
+        public synchronized void heapWritten(IHeap heap, int address, IValue value) {
+            written.set(address);
+            freed.clear(address);
+        }
+
+        @Override
+        public synchronized void heapFreed(IHeap heap, int address) {
+            freed.set(address);
+            written.clear(address);
+        }
+
+        @Override
+        public synchronized void heapRestored(IHeap heap) {
+            restored = true;
+        }
+
+        // the values are read here, at the safepoint, the writing thread only gets the copy
+        synchronized Checkpoint.HeapImage take(IHeap heap) {
+            Checkpoint.HeapImage image;
+            if (restored) {
+                image = Checkpoint.HeapImage.of(heap, number);
+            } else {
+                image = new Checkpoint.HeapImage(number, false, new HashMap<>());
+                try {
+                    for (int address = written.nextSetBit(0); address >= 0; address = written.nextSetBit(address + 1))
+                        image.cells.put(address, heap.read(address));
+                } catch (InvalidAddressException e) {
+                    throw new CheckpointException("Heap changed while checkpointing: " + e.getMessage());
+                }
+                for (int address = freed.nextSetBit(0); address >= 0; address = freed.nextSetBit(address + 1))
+                    image.freed.add(address);
+            }
+            written.clear();
+            freed.clear();
+            restored = false;
+            return image;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package repository.checkpoint;
+
+import exception.CheckpointException;
+import model.ProgramState;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Encodes and writes checkpoints on a background thread, at most one at a time.
+public class CheckpointWriter implements AutoCloseable {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> pending;
+
+    // a periodic checkpoint is skipped rather than queued while the previous one is still being written
+    // and only then captured, so the changes it misses go into the next one. Call it at a safepoint.
+    public synchronized boolean offer(CheckpointSeries series, List<ProgramState> programStates) {
+        if (pending != null && !pending.isDone())
+            return false;
+        Checkpoint checkpoint = series.capture(programStates);
+        pending = executor.submit(() -> series.write(checkpoint));
+        return true;
+    }
+
+    public synchronized void submit(Checkpoint checkpoint, String path) {
+        pending = executor.submit(() -> checkpoint.write(path));
+    }
+
+    public void await() throws CheckpointException {
+        Future<?> current;
+        synchronized (this) {
+            current = pending;
+        }
+        if (current == null)
+            return;
+        try {
+            current.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CheckpointException("Interrupted while writing checkpoint");
+        } catch (ExecutionException e) {
+            throw new CheckpointException(e.getCause().getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,279 @@
+package repository.checkpoint;
+
+import exception.CheckpointException;
+import model.expresion.ArithmeticExpression;
+import model.expresion.ComparisonExpression;
+import model.expresion.IExpression;
+import model.expresion.LogicExpression;
+import model.expresion.ValueExpression;
+import model.expresion.VariableExpression;
+import model.expresion.rHExpression;
+import model.programStateComponents.FileAccessMode;
+import model.statement.AsignStatement;
+import model.statement.BlockStatement;
+import model.statement.CloseReadFileStatement;
+import model.statement.CloseWriteFileStatement;
+import model.statement.CompoundStatement;
+import model.statement.ForkStatement;
+import model.statement.IStatement;
+import model.statement.IfStatement;
+import model.statement.NodeEncoder;
+import model.statement.NopStatement;
+import model.statement.OpenReadFileStatement;
+import model.statement.OpenWriteFileStatement;
+import model.statement.PrintStatement;
+import model.statement.ReadFileStatement;
+import model.statement.VariableDeclarationStatement;
+import model.statement.WriteFileStatement;
+import model.statement.newStatement;
+import model.statement.wHStatement;
+import model.statement.whileStatement;
+import model.type.IType;
+import model.values.IValue;
+import repository.trace.TraceCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Programs in checkpoints, written as a table of their nodes. A node comes after the nodes it is
+// made of and names them by their place in the table, so the table is read front to back and every
+// node is made from nodes already made. A node shared by several parents is written once. The
+// numbers go on from one record of a file to the next, a record only adds the nodes that are new.
+final class ProgramCodec {
+    private static final List<Class<?>> KINDS = List.of(
+            NopStatement.class, CompoundStatement.class, BlockStatement.class, BlockStatement.Continuation.class,
+            AsignStatement.class, VariableDeclarationStatement.class, PrintStatement.class, IfStatement.class,
+            whileStatement.class, ForkStatement.class, newStatement.class, wHStatement.class,
+            OpenReadFileStatement.class, ReadFileStatement.class, CloseReadFileStatement.class,
+            OpenWriteFileStatement.class, WriteFileStatement.class, CloseWriteFileStatement.class,
+            ValueExpression.class, VariableExpression.class, ArithmeticExpression.class, LogicExpression.class,
+            ComparisonExpression.class, rHExpression.class);
+    private static final Map<Class<?>, Integer> KIND_INDEX = new IdentityHashMap<>();
+
+    static {
+        for (int i = 0; i < KINDS.size(); i++)
+            KIND_INDEX.put(KINDS.get(i), i);
+    }
+
+    private ProgramCodec() {}
+
+    private static final int STATEMENT = 0;
+    private static final int EXPRESSION = 1;
+    private static final int NAME = 2;
+    private static final int NUMBER = 3;
+    private static final int TYPE = 4;
+    private static final int VALUE = 5;
+
+    // the parts of one node, as its encode method gives them
+    private static class Parts implements NodeEncoder {
+        final List<Integer> kinds = new ArrayList<>();
+        final List<Object> parts = new ArrayList<>();
+
+        void clear() {
+            kinds.clear();
+            parts.clear();
+        }
+
+        private void add(int kind, Object part) {
+            kinds.add(kind);
+            parts.add(part);
+        }
+
+        @Override
+        public void statement(IStatement statement) {
+            add(STATEMENT, statement);
+        }
+
+        @Override
+        public void expression(IExpression expression) {
+            add(EXPRESSION, expression);
+        }
+
+        @Override
+        public void name(String name) {
+            add(NAME, name);
+        }
+
+        @Override
+        public void number(int number) {
+            add(NUMBER, number);
+        }
+
+        @Override
+        public void type(IType type) {
+            add(TYPE, type);
+        }
+
+        @Override
+        public void value(IValue value) {
+            add(VALUE, value);
+        }
+    }
+
+    // numbers the nodes, only used by the thread writing the checkpoints of a file
+    static class Writer {
+        private final Map<Object, Integer> ids = new IdentityHashMap<>();
+        // the nodes numbered since the last flush, in table order
+        private final List<Object> added = new ArrayList<>();
+        private final Parts parts = new Parts();
+
+        // the number of the node, the nodes it is made of are numbered first. Walks the program with
+        // its own stack, however deeply it nests.
+        int add(Object node) {
+            Integer known = ids.get(node);
+            if (known != null)
+                return known;
+            ArrayDeque<Object> pending = new ArrayDeque<>();
+            pending.push(node);
+            while (!pending.isEmpty()) {
+                Object current = pending.peek();
+                if (ids.containsKey(current)) {
+                    pending.pop();
+                    continue;
+                }
+                parts.clear();
+                encode(current, parts);
+                boolean ready = true;
+                for (int i = 0; i < parts.parts.size(); i++) {
+                    int kind = parts.kinds.get(i);
+                    Object part = parts.parts.get(i);
+                    if ((kind == STATEMENT || kind == EXPRESSION) && part != null && !ids.containsKey(part)) {
+                        pending.push(part);
+                        ready = false;
+                    }
+                }
+                if (ready) {
+                    pending.pop();
+                    ids.put(current, ids.size());
+                    added.add(current);
+                }
+            }
+            return ids.get(node);
+        }
+
+        // the nodes numbered since the last flush
+        void flush(DataOutput out) throws IOException {
+            TraceCodec.writeVarInt(out, added.size());
+            for (Object node : added) {
+                parts.clear();
+                encode(node, parts);
+                TraceCodec.writeVarInt(out, KIND_INDEX.get(node.getClass()));
+                for (int i = 0; i < parts.parts.size(); i++) {
+                    Object part = parts.parts.get(i);
+                    switch (parts.kinds.get(i)) {
+                        case STATEMENT:
+                        case EXPRESSION:
+                            TraceCodec.writeVarInt(out, part == null ? 0 : ids.get(part) + 1);
+                            break;
+                        case NAME: TraceCodec.writeString(out, (String) part); break;
+                        case NUMBER: TraceCodec.writeSignedVarInt(out, (Integer) part); break;
+                        case TYPE: TraceCodec.writeType(out, (IType) part); break;
+                        default: TraceCodec.writeValue(out, (IValue) part);
+                    }
+                }
+            }
+            added.clear();
+        }
+
+        private static void encode(Object node, Parts parts) {
+            if (!KIND_INDEX.containsKey(node.getClass()))
+                throw new CheckpointException("Cannot checkpoint a program containing " + node.getClass().getSimpleName());
+            if (node instanceof IStatement)
+                ((IStatement) node).encode(parts);
+            else
+                ((IExpression) node).encode(parts);
+        }
+    }
+
+    // makes the nodes again, the table grows with every record read
+    static class Reader {
+        private final List<Object> nodes = new ArrayList<>();
+        private DataInput in;
+
+        // a full record numbers its nodes from the start again
+        void clear() {
+            nodes.clear();
+        }
+
+        void read(DataInput in) throws IOException {
+            this.in = in;
+            int count = TraceCodec.readVarInt(in);
+            for (int i = 0; i < count; i++)
+                nodes.add(node(TraceCodec.readVarInt(in)));
+            this.in = null;
+        }
+
+        private Object node(int kind) throws IOException {
+            if (kind >= KINDS.size())
+                throw new CheckpointException("Corrupt program in checkpoint");
+            switch (kind) {
+                case 0: return new NopStatement();
+                case 1: return new CompoundStatement(statement(), statement());
+                case 2: {
+                    IStatement[] statements = new IStatement[TraceCodec.readSignedVarInt(in)];
+                    for (int i = 0; i < statements.length; i++)
+                        statements[i] = statement();
+                    return new BlockStatement(statements);
+                }
+                case 3: return ((BlockStatement) statement()).continuation(TraceCodec.readSignedVarInt(in));
+                case 4: return new AsignStatement(name(), expression());
+                case 5: return new VariableDeclarationStatement(name(), TraceCodec.readType(in));
+                case 6: return new PrintStatement(expression());
+                case 7: return new IfStatement(expression(), statement(), statement());
+                case 8: return new whileStatement(expression(), statement());
+                case 9: return new ForkStatement(statement());
+                case 10: return new newStatement(name(), expression());
+                case 11: return new wHStatement(expression(), expression());
+                case 12: return new OpenReadFileStatement(expression(), mode(TraceCodec.readSignedVarInt(in)));
+                case 13: return new ReadFileStatement((VariableExpression) expression(), name());
+                case 14: return new CloseReadFileStatement(expression());
+                case 15: return new OpenWriteFileStatement(expression());
+                case 16: return new WriteFileStatement(expression(), expression());
+                case 17: return new CloseWriteFileStatement(expression());
+                case 18: return new ValueExpression(TraceCodec.readValue(in));
+                case 19: return new VariableExpression(name());
+                case 20: return new ArithmeticExpression(expression(), expression(), TraceCodec.readSignedVarInt(in));
+                case 21: return new LogicExpression(expression(), expression(), TraceCodec.readSignedVarInt(in));
+                case 22: return new ComparisonExpression(expression(), expression(), name());
+                default: return new rHExpression(expression());
+            }
+        }
+
+        private String name() throws IOException {
+            return TraceCodec.readString(in);
+        }
+
+        private static FileAccessMode mode(int ordinal) {
+            if (ordinal < 0 || ordinal >= FileAccessMode.values().length)
+                throw new CheckpointException("Corrupt program in checkpoint");
+            return FileAccessMode.values()[ordinal];
+        }
+
+        private Object reference() throws IOException {
+            int id = TraceCodec.readVarInt(in);
+            if (id > nodes.size())
+                throw new CheckpointException("Corrupt program in checkpoint");
+            return id == 0 ? null : nodes.get(id - 1);
+        }
+
+        private IStatement statement() throws IOException {
+            return (IStatement) reference();
+        }
+
+        private IExpression expression() throws IOException {
+            return (IExpression) reference();
+        }
+
+        IStatement statement(int id) {
+            if (id < 0 || id >= nodes.size())
+                throw new CheckpointException("Corrupt program in checkpoint");
+            return (IStatement) nodes.get(id);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package repository.trace;
+
+import exception.LogFileException;
+import model.type.BoolType;
+import model.type.IType;
+import model.type.IntType;
+import model.type.ReferenceType;
+import model.type.StringType;
+import model.values.BoolValue;
+import model.values.IValue;
+import model.values.IntValue;
+import model.values.ReferenceValue;
+import model.values.StringValue;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Binary encoding shared by the trace writer and reader.
+public final class TraceCodec {
+    static final int MAGIC = 0x54524331;
+
+    static final byte RECORD_KEYFRAME = 1;
+    static final byte RECORD_DELTA = 2;
+
+    static final byte INDEX_STRING = 1;
+    static final byte INDEX_KEYFRAME = 2;
+
+    private static final byte INT = 0;
+    private static final byte BOOL = 1;
+    private static final byte STRING = 2;
+    private static final byte REFERENCE = 3;
+
+    private TraceCodec() {}
+
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+
+    public static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new LogFileException("Malformed trace: varint too long");
+    }
+
+    // zig-zag so that small negative integers stay small
+    public static void writeSignedVarInt(DataOutput out, int value) throws IOException {
+        writeVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    public static int readSignedVarInt(DataInput in) throws IOException {
+        int value = readVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeType(DataOutput out, IType type) throws IOException {
+        if (type instanceof IntType)
+            out.writeByte(INT);
+        else if (type instanceof BoolType)
+            out.writeByte(BOOL);
+        else if (type instanceof StringType)
+            out.writeByte(STRING);
+        else if (type instanceof ReferenceType) {
+            out.writeByte(REFERENCE);
+            writeType(out, ((ReferenceType) type).getInner());
+        } else
+            throw new LogFileException("Cannot trace type " + type);
+    }
+
+    public static IType readType(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case INT: return new IntType();
+            case BOOL: return new BoolType();
+            case STRING: return new StringType();
+            case REFERENCE: return new ReferenceType(readType(in));
+            default: throw new LogFileException("Malformed trace: unknown type tag " + tag);
+        }
+    }
+
+    public static void writeValue(DataOutput out, IValue value) throws IOException {
+        if (value instanceof IntValue) {
+            out.writeByte(INT);
+            writeSignedVarInt(out, ((IntValue) value).getVal());
+        } else if (value instanceof BoolValue) {
+            out.writeByte(BOOL);
+            out.writeBoolean(((BoolValue) value).getVal());
+        } else if (value instanceof StringValue) {
+            out.writeByte(STRING);
+            writeString(out, ((StringValue) value).getVal());
+        } else if (value instanceof ReferenceValue) {
+            out.writeByte(REFERENCE);
+            writeVarInt(out, ((ReferenceValue) value).getAddress());
+            writeType(out, ((ReferenceValue) value).getLocationType());
+        } else
+            throw new LogFileException("Cannot trace value " + value);
+    }
+
+    public static IValue readValue(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case INT: return new IntValue(readSignedVarInt(in));
+            case BOOL: return new BoolValue(in.readBoolean());
+            case STRING: return new StringValue(readString(in));
+            case REFERENCE: return new ReferenceValue(readVarInt(in), readType(in));
+            default: throw new LogFileException("Malformed trace: unknown value tag " + tag);
+        }
+    }
+}
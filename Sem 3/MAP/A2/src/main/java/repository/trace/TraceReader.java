@@ -0,0 +1,155 @@
+package repository.trace;
+
+import exception.LogFileException;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Rebuilds the state of a program at any recorded step by seeking to the closest
+// keyframe at or before it and replaying the deltas that follow.
+public class TraceReader implements AutoCloseable {
+    private final RandomAccessFile trace;
+    private final List<String> strings = new ArrayList<>();
+    private final Map<Integer, TreeMap<Integer, Long>> keyframes = new HashMap<>();
+
+    public TraceReader(String tracePath) throws LogFileException {
+        try {
+            readIndex(TraceWriter.indexPath(tracePath));
+            this.trace = new RandomAccessFile(tracePath, "r");
+            if (this.trace.readInt() != TraceCodec.MAGIC)
+                throw new LogFileException("Not a trace file: " + tracePath);
+        } catch (IOException e) {
+            throw new LogFileException("Could not open trace file:" + e.getMessage());
+        }
+    }
+
+    private void readIndex(String indexPath) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexPath)))) {
+            if (in.readInt() != TraceCodec.MAGIC)
+                throw new LogFileException("Not a trace index: " + indexPath);
+            while (true) {
+                byte kind;
+                try {
+                    kind = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (kind == TraceCodec.INDEX_STRING) {
+                    int id = TraceCodec.readVarInt(in);
+                    String text = TraceCodec.readString(in);
+                    while (strings.size() <= id)
+                        strings.add(null);
+                    strings.set(id, text);
+                } else if (kind == TraceCodec.INDEX_KEYFRAME) {
+                    int programId = TraceCodec.readVarInt(in);
+                    int step = TraceCodec.readVarInt(in);
+                    long offset = in.readLong();
+                    keyframes.computeIfAbsent(programId, id -> new TreeMap<>()).put(step, offset);
+                } else
+                    throw new LogFileException("Malformed trace index: unknown entry " + kind);
+            }
+        } catch (EOFException e) {
+            // a trace that was not closed may end in a partial entry, everything before it is usable
+        }
+    }
+
+    public Set<Integer> getProgramIds() {
+        return keyframes.keySet();
+    }
+
+    public synchronized TraceSnapshot stateAt(int programId, int step) throws LogFileException {
+        TreeMap<Integer, Long> programKeyframes = keyframes.get(programId);
+        Map.Entry<Integer, Long> keyframe = programKeyframes == null ? null : programKeyframes.floorEntry(step);
+        if (keyframe == null)
+            throw new LogFileException("Step " + step + " of program " + programId + " is not in the trace");
+        TraceSnapshot snapshot = new TraceSnapshot(programId);
+        try {
+            trace.seek(keyframe.getValue());
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(trace.getChannel()), 1 << 16));
+            while (true) {
+                byte kind = in.readByte();
+                int recordProgramId = TraceCodec.readVarInt(in);
+                int recordStep = TraceCodec.readVarInt(in);
+                int length = TraceCodec.readVarInt(in);
+                if (recordProgramId != programId) {
+                    in.skipNBytes(length);
+                    continue;
+                }
+                if (kind == TraceCodec.RECORD_KEYFRAME)
+                    snapshot.reset();
+                applyDelta(in, snapshot);
+                snapshot.step = recordStep;
+                if (recordStep == step)
+                    return snapshot.copy();
+            }
+        } catch (EOFException e) {
+            throw new LogFileException("Step " + step + " of program " + programId + " is not in the trace");
+        } catch (IOException e) {
+            throw new LogFileException("Could not read trace:" + e.getMessage());
+        }
+    }
+
+    private void applyDelta(DataInputStream in, TraceSnapshot snapshot) throws IOException {
+        List<String> stack = snapshot.executionStack;
+        int pops = TraceCodec.readVarInt(in);
+        stack.subList(stack.size() - pops, stack.size()).clear();
+        int pushes = TraceCodec.readVarInt(in);
+        for (int i = 0; i < pushes; i++)
+            stack.add(string(TraceCodec.readVarInt(in)));
+
+        int changedNames = TraceCodec.readVarInt(in);
+        for (int i = 0; i < changedNames; i++) {
+            String name = string(TraceCodec.readVarInt(in));
+            snapshot.symbolTable.put(name, TraceCodec.readValue(in));
+        }
+        int removedNames = TraceCodec.readVarInt(in);
+        for (int i = 0; i < removedNames; i++)
+            snapshot.symbolTable.remove(string(TraceCodec.readVarInt(in)));
+
+        int changedAddresses = TraceCodec.readVarInt(in);
+        for (int i = 0; i < changedAddresses; i++) {
+            int address = TraceCodec.readVarInt(in);
+            snapshot.heap.put(address, TraceCodec.readValue(in));
+        }
+        int removedAddresses = TraceCodec.readVarInt(in);
+        for (int i = 0; i < removedAddresses; i++)
+            snapshot.heap.remove(TraceCodec.readVarInt(in));
+
+        int appended = TraceCodec.readVarInt(in);
+        for (int i = 0; i < appended; i++)
+            snapshot.output.add(TraceCodec.readValue(in));
+
+        if (in.readBoolean()) {
+            snapshot.fileTable.clear();
+            int files = TraceCodec.readVarInt(in);
+            for (int i = 0; i < files; i++)
+                snapshot.fileTable.add(TraceCodec.readString(in));
+        }
+    }
+
+    private String string(int id) throws LogFileException {
+        if (id >= strings.size() || strings.get(id) == null)
+            throw new LogFileException("Malformed trace: unknown string " + id);
+        return strings.get(id);
+    }
+
+    @Override
+    public void close() throws LogFileException {
+        try {
+            trace.close();
+        } catch (IOException e) {
+            throw new LogFileException("Could not close trace:" + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package repository.trace;
+
+import model.values.IValue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// The view of one program at one recorded step, rebuilt from a trace.
+public class TraceSnapshot {
+    int programId;
+    int step;
+    List<String> executionStack = new ArrayList<>();
+    Map<String, IValue> symbolTable = new LinkedHashMap<>();
+    Map<Integer, IValue> heap = new TreeMap<>();
+    List<IValue> output = new ArrayList<>();
+    List<String> fileTable = new ArrayList<>();
+
+    TraceSnapshot(int programId) {
+        this.programId = programId;
+    }
+
+    TraceSnapshot copy() {
+        TraceSnapshot copy = new TraceSnapshot(programId);
+        copy.step = step;
+        copy.executionStack.addAll(executionStack);
+        copy.symbolTable.putAll(symbolTable);
+        copy.heap.putAll(heap);
+        copy.output.addAll(output);
+        copy.fileTable.addAll(fileTable);
+        return copy;
+    }
+
+    void reset() {
+        executionStack.clear();
+        symbolTable.clear();
+        heap.clear();
+        output.clear();
+        fileTable.clear();
+    }
+
+    public int getProgramId() {
+        return programId;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    // bottom of the stack first
+    public List<String> getExecutionStack() {
+        return executionStack;
+    }
+
+    public Map<String, IValue> getSymbolTable() {
+        return symbolTable;
+    }
+
+    public Map<Integer, IValue> getHeap() {
+        return heap;
+    }
+
+    public List<IValue> getOutput() {
+        return output;
+    }
+
+    public List<String> getFileTable() {
+        return fileTable;
+    }
+
+    @Override
+    public String toString() {
+        return "TraceSnapshot(id= " + programId + ", step= " + step + "){" +
+                "executionStack=" + executionStack +
+                "; symbolTable=" + symbolTable +
+                "; heap=" + heap +
+                "; output=" + output +
+                "; fileTable=" + fileTable +
+                '}';
+    }
+}
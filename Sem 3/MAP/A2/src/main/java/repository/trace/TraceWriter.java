@@ -0,0 +1,421 @@
+package repository.trace;
+
+import exception.LogFileException;
+import model.ProgramState;
+import model.bytecode.VirtualMachine;
+import model.programStateComponents.ExecutionStack;
+import model.programStateComponents.IHeap;
+import model.programStateComponents.Output;
+import model.programStateComponents.StateListener;
+import model.programStateComponents.SymbolTable;
+import model.statement.IStatement;
+import model.values.IValue;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Records every logged program state as a delta against the previous record of the same program.
+// The deltas are what the program's stack, symbol table and heap reported changing in between,
+// so a record costs what changed rather than the size of the state.
+// Every keyframeInterval records a full keyframe is written and its offset goes into the .idx sidecar,
+// together with the texts of interned statements and variable names.
+public class TraceWriter implements AutoCloseable {
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 64;
+
+    private final int keyframeInterval;
+    private final DataOutputStream trace;
+    private final DataOutputStream index;
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+    private final DataOutputStream record = new DataOutputStream(recordBuffer);
+    // interned statements and instructions by identity, held weakly so the ones no program runs
+    // anymore can be collected, their ids are dropped when they are
+    private final Map<EntryKey, Integer> entryIds = new HashMap<>();
+    private final ReferenceQueue<Object> collectedEntries = new ReferenceQueue<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final Map<Integer, ProgramTrace> programs = new HashMap<>();
+    private int nextStringId = 0;
+    private long position;
+    private boolean closed = false;
+
+    public TraceWriter(String tracePath, int keyframeInterval) throws LogFileException {
+        if (keyframeInterval <= 0)
+            throw new IllegalArgumentException("Invalid keyframe interval");
+        this.keyframeInterval = keyframeInterval;
+        try {
+            this.trace = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tracePath), 1 << 16));
+            this.index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexPath(tracePath))));
+            this.trace.writeInt(TraceCodec.MAGIC);
+            this.index.writeInt(TraceCodec.MAGIC);
+        } catch (IOException e) {
+            throw new LogFileException("Could not open trace file:" + e.getMessage());
+        }
+        this.position = 4;
+    }
+
+    public TraceWriter(String tracePath) throws LogFileException {
+        this(tracePath, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    public static String indexPath(String tracePath) {
+        return tracePath + ".idx";
+    }
+
+    public synchronized void record(ProgramState state) throws LogFileException {
+        if (closed)
+            throw new LogFileException("Trace is closed");
+        ProgramTrace program = programs.get(state.getId());
+        if (program == null) {
+            program = new ProgramTrace();
+            programs.put(state.getId(), program);
+        } else {
+            program.step++;
+        }
+        int step = program.step;
+        // a program seen for the first time, or whose parts were replaced, starts over with a keyframe
+        boolean keyframe = step % keyframeInterval == 0 || !program.follows(state);
+        try {
+            recordBuffer.reset();
+            if (keyframe)
+                writeKeyframe(program, state);
+            else
+                writeDelta(program, state);
+            if (keyframe) {
+                index.writeByte(TraceCodec.INDEX_KEYFRAME);
+                TraceCodec.writeVarInt(index, state.getId());
+                TraceCodec.writeVarInt(index, step);
+                index.writeLong(position);
+            }
+            trace.writeByte(keyframe ? TraceCodec.RECORD_KEYFRAME : TraceCodec.RECORD_DELTA);
+            TraceCodec.writeVarInt(trace, state.getId());
+            TraceCodec.writeVarInt(trace, step);
+            TraceCodec.writeVarInt(trace, recordBuffer.size());
+            recordBuffer.writeTo(trace);
+            // DataOutputStream.size() saturates at 2GB, so the offset is tracked separately
+            position += 1 + TraceCodec.varIntSize(state.getId()) + TraceCodec.varIntSize(step)
+                    + TraceCodec.varIntSize(recordBuffer.size()) + recordBuffer.size();
+        } catch (IOException e) {
+            throw new LogFileException("Could not write trace:" + e.getMessage());
+        }
+    }
+
+    // the programs that are no longer run stop being followed, their steps go on if they come back
+    public synchronized void retain(List<ProgramState> states) {
+        Set<Integer> running = new HashSet<>();
+        states.forEach(state -> running.add(state.getId()));
+        programs.forEach((id, program) -> {
+            if (!running.contains(id))
+                program.detach();
+        });
+    }
+
+    // the whole state, it is also where the reader starts when seeking
+    private void writeKeyframe(ProgramTrace program, ProgramState state) throws IOException {
+        program.attach(state);
+        if (state.getVirtualMachine() == null) {
+            List<IStatement> stack = state.getExecutionStack().toList();
+            TraceCodec.writeVarInt(record, 0);
+            TraceCodec.writeVarInt(record, stack.size());
+            for (IStatement statement : stack)
+                TraceCodec.writeVarInt(record, entryId(statement));
+            program.stackSize = stack.size();
+        } else {
+            writeInstruction(program, state.getVirtualMachine(), 0);
+        }
+
+        Map<String, IValue> symbols = state.getSymbolTable().toMap();
+        TraceCodec.writeVarInt(record, symbols.size());
+        for (Map.Entry<String, IValue> symbol : symbols.entrySet()) {
+            TraceCodec.writeVarInt(record, nameId(symbol.getKey()));
+            TraceCodec.writeValue(record, symbol.getValue());
+        }
+        TraceCodec.writeVarInt(record, 0);
+
+        Map<Integer, IValue> heap = state.getHeapTable().toMap();
+        TraceCodec.writeVarInt(record, heap.size());
+        for (Map.Entry<Integer, IValue> cell : heap.entrySet()) {
+            TraceCodec.writeVarInt(record, cell.getKey());
+            TraceCodec.writeValue(record, cell.getValue());
+        }
+        TraceCodec.writeVarInt(record, 0);
+
+        // a keyframe holds the retained tail of the output
+        Output output = state.getOutput();
+        List<IValue> retained = output.getOutputAsList();
+        TraceCodec.writeVarInt(record, retained.size());
+        for (IValue value : retained)
+            TraceCodec.writeValue(record, value);
+        program.outputCount = output.size();
+
+        program.files = files(state);
+        record.writeBoolean(!program.files.isEmpty());
+        if (!program.files.isEmpty())
+            writeFiles(program.files);
+    }
+
+    // only what the program's parts reported changing since its last record
+    private void writeDelta(ProgramTrace program, ProgramState state) throws IOException {
+        synchronized (program) {
+            if (state.getVirtualMachine() == null) {
+                List<IStatement> stack = state.getExecutionStack().toList();
+                int kept = Math.min(program.lowestDepth, stack.size());
+                TraceCodec.writeVarInt(record, program.stackSize - kept);
+                TraceCodec.writeVarInt(record, stack.size() - kept);
+                for (int i = kept; i < stack.size(); i++)
+                    TraceCodec.writeVarInt(record, entryId(stack.get(i)));
+                program.stackSize = stack.size();
+                program.lowestDepth = stack.size();
+            } else {
+                writeInstruction(program, state.getVirtualMachine(), program.stackSize);
+            }
+
+            TraceCodec.writeVarInt(record, program.writtenNames.size());
+            for (Map.Entry<String, IValue> symbol : program.writtenNames.entrySet()) {
+                TraceCodec.writeVarInt(record, nameId(symbol.getKey()));
+                TraceCodec.writeValue(record, symbol.getValue());
+            }
+            TraceCodec.writeVarInt(record, program.removedNames.size());
+            for (String name : program.removedNames)
+                TraceCodec.writeVarInt(record, nameId(name));
+
+            TraceCodec.writeVarInt(record, program.writtenCells.size());
+            for (Map.Entry<Integer, IValue> cell : program.writtenCells.entrySet()) {
+                TraceCodec.writeVarInt(record, cell.getKey());
+                TraceCodec.writeValue(record, cell.getValue());
+            }
+            TraceCodec.writeVarInt(record, program.freedCells.size());
+            for (int address : program.freedCells)
+                TraceCodec.writeVarInt(record, address);
+            program.clearChanges();
+        }
+
+        // what was printed since the last record
+        Output output = state.getOutput();
+        List<IValue> printed = output.getSince(program.outputCount);
+        TraceCodec.writeVarInt(record, printed.size());
+        for (IValue value : printed)
+            TraceCodec.writeValue(record, value);
+        program.outputCount = output.size();
+
+        List<String> files = files(state);
+        boolean filesChanged = !files.equals(program.files);
+        record.writeBoolean(filesChanged);
+        if (filesChanged)
+            writeFiles(files);
+        program.files = files;
+    }
+
+    // a program on the virtual machine shows the instruction it is at as its only stack entry
+    private void writeInstruction(ProgramTrace program, VirtualMachine virtualMachine, int previousSize) throws IOException {
+        TraceCodec.writeVarInt(record, previousSize);
+        if (virtualMachine.isHalted()) {
+            TraceCodec.writeVarInt(record, 0);
+            program.stackSize = 0;
+        } else {
+            TraceCodec.writeVarInt(record, 1);
+            TraceCodec.writeVarInt(record, entryId(virtualMachine.getCode()[virtualMachine.getPc()]));
+            program.stackSize = 1;
+        }
+    }
+
+    private static List<String> files(ProgramState state) {
+        List<String> files = new ArrayList<>();
+        state.getFileTable().getFileList().forEach(file -> files.add(file.toString()));
+        return files;
+    }
+
+    private void writeFiles(List<String> files) throws IOException {
+        TraceCodec.writeVarInt(record, files.size());
+        for (String file : files)
+            TraceCodec.writeString(record, file);
+    }
+
+    private int entryId(Object entry) throws IOException {
+        Reference<?> collected;
+        while ((collected = collectedEntries.poll()) != null)
+            entryIds.remove(collected);
+        Integer id = entryIds.get(new EntryKey(entry, null));
+        if (id == null) {
+            id = internString(entry.toString());
+            entryIds.put(new EntryKey(entry, collectedEntries), id);
+        }
+        return id;
+    }
+
+    private int nameId(String name) throws IOException {
+        Integer id = nameIds.get(name);
+        if (id == null) {
+            id = internString(name);
+            nameIds.put(name, id);
+        }
+        return id;
+    }
+
+    private int internString(String text) throws IOException {
+        int id = nextStringId++;
+        index.writeByte(TraceCodec.INDEX_STRING);
+        TraceCodec.writeVarInt(index, id);
+        TraceCodec.writeString(index, text);
+        return id;
+    }
+
+    public synchronized void flush() throws LogFileException {
+        if (closed)
+            return;
+        try {
+            trace.flush();
+            index.flush();
+        } catch (IOException e) {
+            throw new LogFileException("Could not write trace:" + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws LogFileException {
+        if (closed)
+            return;
+        closed = true;
+        programs.values().forEach(ProgramTrace::detach);
+        try {
+            trace.close();
+            index.close();
+        } catch (IOException e) {
+            throw new LogFileException("Could not close trace:" + e.getMessage());
+        }
+    }
+
+    // equal only to a key of the same entry, a collected entry's key is only equal to itself
+    private static final class EntryKey extends WeakReference<Object> {
+        private final int hash;
+
+        EntryKey(Object entry, ReferenceQueue<Object> queue) {
+            super(entry, queue);
+            this.hash = System.identityHashCode(entry);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this)
+                return true;
+            Object entry = get();
+            return entry != null && other instanceof EntryKey && ((EntryKey) other).get() == entry;
+        }
+    }
+
+    // what a program's parts reported changing since its last record, told by them as they change
+    private static class ProgramTrace implements StateListener {
+        int step;
+        int stackSize;
+        long outputCount;
+        List<String> files = List.of();
+        // the parts followed, null once the program stopped being followed
+        private ExecutionStack stack;
+        private SymbolTable symbols;
+        private IHeap heap;
+        // the lowest the stack got since the last record, the entries below it were not touched
+        int lowestDepth;
+        private int depth;
+        final Map<String, IValue> writtenNames = new LinkedHashMap<>();
+        final Set<String> removedNames = new LinkedHashSet<>();
+        final Map<Integer, IValue> writtenCells = new LinkedHashMap<>();
+        final Set<Integer> freedCells = new LinkedHashSet<>();
+        private boolean heapRestored;
+
+        // false when the program's parts are not the ones followed, or their changes were lost
+        synchronized boolean follows(ProgramState state) {
+            return stack == state.getExecutionStack() && symbols == state.getSymbolTable()
+                    && heap == state.getHeapTable() && !heapRestored;
+        }
+
+        synchronized void attach(ProgramState state) {
+            detach();
+            stack = state.getExecutionStack();
+            symbols = state.getSymbolTable();
+            heap = state.getHeapTable();
+            stack.addListener(this);
+            symbols.addListener(this);
+            heap.addListener(this);
+            depth = stack.toList().size();
+            lowestDepth = depth;
+        }
+
+        synchronized void detach() {
+            if (stack != null) {
+                stack.removeListener(this);
+                symbols.removeListener(this);
+                heap.removeListener(this);
+                stack = null;
+                symbols = null;
+                heap = null;
+            }
+            clearChanges();
+        }
+
+        void clearChanges() {
+            writtenNames.clear();
+            removedNames.clear();
+            writtenCells.clear();
+            freedCells.clear();
+            heapRestored = false;
+        }
+
+        @Override
+        public synchronized void statementPushed(ExecutionStack stack, IStatement statement) {
+            depth++;
+        }
+
+        @Override
+        public synchronized void statementPopped(ExecutionStack stack) {
+            depth--;
+            if (depth < lowestDepth)
+                lowestDepth = depth;
+        }
+
+        @Override
+        public synchronized void symbolWritten(SymbolTable table, String name, IValue value) {
+            writtenNames.put(name, value);
+            removedNames.remove(name);
+        }
+
+        @Override
+        public synchronized void symbolRemoved(SymbolTable table, String name) {
+            writtenNames.remove(name);
+            removedNames.add(name);
+        }
+
+        @Override
+        public synchronized void heapWritten(IHeap heap, int address, IValue value) {
+            writtenCells.put(address, value);
+            freedCells.remove(address);
+        }
+
+        @Override
+        public synchronized void heapFreed(IHeap heap, int address) {
+            writtenCells.remove(address);
+            freedCells.add(address);
+        }
+
+        @Override
+        public synchronized void heapRestored(IHeap heap) {
+            heapRestored = true;
+        }
+    }
+}
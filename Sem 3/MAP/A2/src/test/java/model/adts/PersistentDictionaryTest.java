@@ -0,0 +1,206 @@
+package model.adts;
+
+import exception.AdtException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersistentDictionaryTest {
+    // keys with a hash picked by the test, equal only by name
+    private static final class Key {
+        final String name;
+        final int hash;
+
+        Key(String name, int hash) {
+            this.name = name;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    @Test
+    void putLookupAndRemove() throws AdtException {
+        PersistentDictionary<String, Integer> dictionary = new PersistentDictionary<>();
+        for (int i = 0; i < 1000; i++)
+            dictionary.put("k" + i, i);
+        assertEquals(1000, dictionary.size());
+        for (int i = 0; i < 1000; i++)
+            assertEquals(i, dictionary.lookup("k" + i));
+        for (int i = 0; i < 1000; i += 2)
+            dictionary.remove("k" + i);
+        assertEquals(500, dictionary.size());
+        for (int i = 0; i < 1000; i++)
+            assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), dictionary.get("k" + i));
+    }
+
+    @Test
+    void putRejectsAnExistingKeyAndGiveAMissingOne() throws AdtException {
+        PersistentDictionary<String, Integer> dictionary = new PersistentDictionary<>();
+        dictionary.put("a", 1);
+        assertThrows(AdtException.class, () -> dictionary.put("a", 2));
+        assertThrows(AdtException.class, () -> dictionary.give("b", 2));
+        assertThrows(AdtException.class, () -> dictionary.lookup("b"));
+        dictionary.give("a", 3);
+        assertEquals(3, dictionary.lookup("a"));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    void removingAMissingKeyKeepsTheSize() throws AdtException {
+        PersistentDictionary<String, Integer> dictionary = new PersistentDictionary<>();
+        dictionary.put("a", 1);
+        dictionary.remove("b");
+        assertEquals(1, dictionary.size());
+        dictionary.remove("a");
+        dictionary.remove("a");
+        assertEquals(0, dictionary.size());
+        assertTrue(dictionary.toMap().isEmpty());
+    }
+
+    @Test
+    void copiesDoNotSeeEachOthersWrites() throws AdtException {
+        PersistentDictionary<String, Integer> original = new PersistentDictionary<>();
+        for (int i = 0; i < 100; i++)
+            original.put("k" + i, i);
+        PersistentDictionary<String, Integer> copy = original.copy();
+        copy.give("k1", -1);
+        copy.remove("k2");
+        copy.put("new", 7);
+        original.give("k3", -3);
+
+        assertEquals(1, original.lookup("k1"));
+        assertEquals(2, original.lookup("k2"));
+        assertFalse(original.isDefined("new"));
+        assertEquals(100, original.size());
+        assertEquals(-1, copy.lookup("k1"));
+        assertFalse(copy.isDefined("k2"));
+        assertEquals(7, copy.lookup("new"));
+        assertEquals(3, copy.lookup("k3"));
+        assertEquals(100, copy.size());
+    }
+
+    @Test
+    void keysWithTheSameHashShareACollisionNode() throws AdtException {
+        PersistentDictionary<Key, Integer> dictionary = new PersistentDictionary<>();
+        for (int i = 0; i < 10; i++)
+            dictionary.put(new Key("c" + i, 42), i);
+        dictionary.put(new Key("other", 43), 100);
+        assertEquals(11, dictionary.size());
+        for (int i = 0; i < 10; i++)
+            assertEquals(i, dictionary.lookup(new Key("c" + i, 42)));
+        assertThrows(AdtException.class, () -> dictionary.put(new Key("c3", 42), 0));
+        assertNull(dictionary.get(new Key("missing", 42)));
+
+        dictionary.give(new Key("c4", 42), 40);
+        assertEquals(40, dictionary.lookup(new Key("c4", 42)));
+        for (int i = 0; i < 10; i += 3)
+            dictionary.remove(new Key("c" + i, 42));
+        assertEquals(7, dictionary.size());
+        for (int i = 0; i < 10; i++)
+            assertEquals(i % 3 != 0, dictionary.isDefined(new Key("c" + i, 42)));
+        assertEquals(100, dictionary.lookup(new Key("other", 43)));
+    }
+
+    @Test
+    void aCollisionNodeShrinksBackToASingleEntry() throws AdtException {
+        PersistentDictionary<Key, Integer> dictionary = new PersistentDictionary<>();
+        dictionary.put(new Key("a", 7), 1);
+        dictionary.put(new Key("b", 7), 2);
+        dictionary.remove(new Key("a", 7));
+        assertEquals(1, dictionary.size());
+        assertEquals(2, dictionary.lookup(new Key("b", 7)));
+        // the entry left can be joined by a key that differs in the hash again
+        dictionary.put(new Key("c", 7 | 1 << 20), 3);
+        assertEquals(3, dictionary.lookup(new Key("c", 7 | 1 << 20)));
+        dictionary.remove(new Key("b", 7));
+        dictionary.remove(new Key("c", 7 | 1 << 20));
+        assertEquals(0, dictionary.size());
+    }
+
+    @Test
+    void copiesOfACollisionNodeStayApart() throws AdtException {
+        PersistentDictionary<Key, Integer> original = new PersistentDictionary<>();
+        for (int i = 0; i < 4; i++)
+            original.put(new Key("c" + i, 5), i);
+        PersistentDictionary<Key, Integer> copy = original.copy();
+        copy.remove(new Key("c0", 5));
+        copy.give(new Key("c1", 5), 10);
+        copy.put(new Key("c4", 5), 4);
+
+        assertEquals(4, original.size());
+        assertEquals(0, original.lookup(new Key("c0", 5)));
+        assertEquals(1, original.lookup(new Key("c1", 5)));
+        assertFalse(original.isDefined(new Key("c4", 5)));
+        assertEquals(4, copy.size());
+        assertFalse(copy.isDefined(new Key("c0", 5)));
+        assertEquals(10, copy.lookup(new Key("c1", 5)));
+    }
+
+    @Test
+    void hashesThatOnlyDifferDeepInTheTrieAreKeptApart() throws AdtException {
+        PersistentDictionary<Key, Integer> dictionary = new PersistentDictionary<>();
+        // the same low bits, the trie has to go down several levels to tell them apart
+        for (int i = 0; i < 8; i++)
+            dictionary.put(new Key("d" + i, 0x1f | i << 27), i);
+        for (int i = 0; i < 8; i++)
+            assertEquals(i, dictionary.lookup(new Key("d" + i, 0x1f | i << 27)));
+        for (int i = 0; i < 8; i++)
+            dictionary.remove(new Key("d" + i, 0x1f | i << 27));
+        assertEquals(0, dictionary.size());
+    }
+
+    @Test
+    void matchesAHashMapUnderRandomWrites() throws AdtException {
+        Random random = new Random(12);
+        PersistentDictionary<Key, Integer> dictionary = new PersistentDictionary<>();
+        PersistentDictionary<Key, Integer> snapshot = null;
+        Map<Key, Integer> expected = new HashMap<>();
+        Map<Key, Integer> expectedSnapshot = null;
+        for (int i = 0; i < 20000; i++) {
+            int id = random.nextInt(300);
+            // few distinct hashes, so collision nodes come and go
+            Key key = new Key("k" + id, id % 37);
+            int operation = random.nextInt(3);
+            if (operation == 0 && !expected.containsKey(key)) {
+                dictionary.put(key, i);
+                expected.put(key, i);
+            } else if (operation == 1 && expected.containsKey(key)) {
+                dictionary.give(key, i);
+                expected.put(key, i);
+            } else if (operation == 2) {
+                dictionary.remove(key);
+                expected.remove(key);
+            }
+            if (i % 5000 == 0) {
+                snapshot = dictionary.copy();
+                expectedSnapshot = new HashMap<>(expected);
+            }
+        }
+        assertEquals(expected, dictionary.toMap());
+        assertEquals(expected.size(), dictionary.size());
+        assertEquals(expectedSnapshot, snapshot.toMap());
+        assertEquals(expectedSnapshot.size(), snapshot.size());
+    }
+}
@@ -0,0 +1,194 @@
+package model.parser;
+
+import exception.ProgramSyntaxException;
+import model.expresion.ArithmeticExpression;
+import model.expresion.ComparisonExpression;
+import model.expresion.IExpression;
+import model.expresion.ValueExpression;
+import model.expresion.VariableExpression;
+import model.expresion.rHExpression;
+import model.statement.AsignStatement;
+import model.statement.BlockStatement;
+import model.statement.IStatement;
+import model.statement.IfStatement;
+import model.statement.NodeEncoder;
+import model.statement.NopStatement;
+import model.statement.PrintStatement;
+import model.statement.VariableDeclarationStatement;
+import model.statement.newStatement;
+import model.statement.whileStatement;
+import model.type.IType;
+import model.type.IntType;
+import model.type.ReferenceType;
+import model.values.IValue;
+import model.values.IntValue;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProgramParserTest {
+    // the structure of a program as its nodes encode it, the same for two equal programs
+    private static String shape(Object node) {
+        StringBuilder shape = new StringBuilder();
+        shape(node, shape);
+        return shape.toString();
+    }
+
+    private static void shape(Object node, StringBuilder shape) {
+        if (node == null) {
+            shape.append("null");
+            return;
+        }
+        shape.append(node.getClass().getSimpleName()).append('(');
+        NodeEncoder encoder = new NodeEncoder() {
+            @Override
+            public void statement(IStatement statement) {
+                shape(statement, shape);
+                shape.append(' ');
+            }
+
+            @Override
+            public void expression(IExpression expression) {
+                shape(expression, shape);
+                shape.append(' ');
+            }
+
+            @Override
+            public void name(String name) {
+                shape.append(name).append(' ');
+            }
+
+            @Override
+            public void number(int number) {
+                shape.append(number).append(' ');
+            }
+
+            @Override
+            public void type(IType type) {
+                shape.append(type).append(' ');
+            }
+
+            @Override
+            public void value(IValue value) {
+                shape.append(value).append(' ');
+            }
+        };
+        if (node instanceof IStatement)
+            ((IStatement) node).encode(encoder);
+        else
+            ((IExpression) node).encode(encoder);
+        shape.append(')');
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = ProgramParserTest.class.getResourceAsStream("/programs/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void readsTheProgramItWasWrittenFrom() {
+        IStatement parsed = ProgramParser.parse("Ref(Integer) v; new(v, 20); while (rH(v) > 0) { print(rH(v)); v = v; }");
+        IStatement expected = new BlockStatement(
+                new VariableDeclarationStatement("v", new ReferenceType(new IntType())),
+                new newStatement("v", new ValueExpression(new IntValue(20))),
+                new whileStatement(
+                        new ComparisonExpression(new rHExpression(new VariableExpression("v")), new ValueExpression(new IntValue(0)), ">"),
+                        new BlockStatement(
+                                new PrintStatement(new rHExpression(new VariableExpression("v"))),
+                                new AsignStatement("v", new VariableExpression("v")))));
+        assertEquals(shape(expected), shape(parsed));
+    }
+
+    @Test
+    void layoutAndCommentsDoNotChangeTheProgram() throws IOException {
+        for (String name : new String[]{"countdown.prg", "heap_chain.prg", "fork_heap.prg", "read_file.prg", "write_file.prg", "compare_file.prg"}) {
+            String text = resource(name);
+            StringBuilder compact = new StringBuilder();
+            for (String line : text.split("\n")) {
+                int comment = line.indexOf("//");
+                compact.append(comment >= 0 ? line.substring(0, comment) : line).append(' ');
+            }
+            assertEquals(shape(ProgramParser.parse(text)), shape(ProgramParser.parse(compact.toString().replaceAll("\\s+", " "))), name);
+        }
+    }
+
+    @Test
+    void operatorsBindByPrecedence() {
+        IStatement parsed = ProgramParser.parse("x = 1 + 2 * 3 - 4;");
+        IStatement expected = new AsignStatement("x", new ArithmeticExpression(
+                new ArithmeticExpression(new ValueExpression(new IntValue(1)),
+                        new ArithmeticExpression(new ValueExpression(new IntValue(2)), new ValueExpression(new IntValue(3)), 3), 1),
+                new ValueExpression(new IntValue(4)), 2));
+        assertEquals(shape(expected), shape(parsed));
+    }
+
+    @Test
+    void elseBelongsToTheNearestIf() {
+        IStatement parsed = ProgramParser.parse("if (a) if (b) x = 1; else x = 2;");
+        IStatement expected = new IfStatement(new VariableExpression("a"),
+                new IfStatement(new VariableExpression("b"),
+                        new AsignStatement("x", new ValueExpression(new IntValue(1))),
+                        new AsignStatement("x", new ValueExpression(new IntValue(2)))),
+                new NopStatement());
+        assertEquals(shape(expected), shape(parsed));
+    }
+
+    @Test
+    void bracesGiveTheElseToTheOuterIf() {
+        IStatement parsed = ProgramParser.parse("if (a) { if (b) x = 1; } else x = 2;");
+        IStatement expected = new IfStatement(new VariableExpression("a"),
+                new IfStatement(new VariableExpression("b"),
+                        new AsignStatement("x", new ValueExpression(new IntValue(1))),
+                        new NopStatement()),
+                new AsignStatement("x", new ValueExpression(new IntValue(2))));
+        assertEquals(shape(expected), shape(parsed));
+    }
+
+    @Test
+    void theSmallestIntegerIsFoldedIntoALiteral() {
+        assertEquals(shape(new PrintStatement(new ValueExpression(new IntValue(Integer.MIN_VALUE)))),
+                shape(ProgramParser.parse("print(-2147483648);")));
+        assertEquals(shape(new PrintStatement(new ValueExpression(new IntValue(Integer.MAX_VALUE)))),
+                shape(ProgramParser.parse("print(2147483647);")));
+        assertEquals(shape(new PrintStatement(new ValueExpression(new IntValue(-5)))),
+                shape(ProgramParser.parse("print(-5);")));
+    }
+
+    @Test
+    void integersOutsideTheRangeAreRejected() {
+        assertThrows(ProgramSyntaxException.class, () -> ProgramParser.parse("print(2147483648);"));
+        assertThrows(ProgramSyntaxException.class, () -> ProgramParser.parse("print(-2147483649);"));
+        assertThrows(ProgramSyntaxException.class, () -> ProgramParser.parse("print(-99999999999);"));
+        // only a minus right before the literal is folded into it
+        assertThrows(ProgramSyntaxException.class, () -> ProgramParser.parse("print(-(2147483648));"));
+        assertThrows(ProgramSyntaxException.class, () -> ProgramParser.parse("print(99999999999999999999);"));
+    }
+
+    @Test
+    void aMinusAfterAnOperandIsASubtraction() {
+        IStatement parsed = ProgramParser.parse("x = 1 - -2147483648;");
+        IStatement expected = new AsignStatement("x", new ArithmeticExpression(new ValueExpression(new IntValue(1)),
+                new ValueExpression(new IntValue(Integer.MIN_VALUE)), 2));
+        assertEquals(shape(expected), shape(parsed));
+        // the literal after a subtraction is positive, so it has to fit on its own
+        assertThrows(ProgramSyntaxException.class, () -> ProgramParser.parse("x = 1 -2147483648;"));
+    }
+
+    @Test
+    void errorsNameTheLineAndColumn() {
+        ProgramSyntaxException error = assertThrows(ProgramSyntaxException.class,
+                () -> ProgramParser.parse("Integer v;\nv = ;"));
+        assertEquals(2, error.getLine());
+        assertEquals(5, error.getColumn());
+        assertTrue(error.getMessage().startsWith("line 2, column 5"));
+        assertThrows(ProgramSyntaxException.class, () -> ProgramParser.parse("while (true) { print(1);"));
+        assertThrows(ProgramSyntaxException.class, () -> ProgramParser.parse("print(1); }"));
+    }
+}